@@ -3,6 +3,7 @@ package com.flippingcopilot.controller;
 import com.flippingcopilot.model.*;
 import com.flippingcopilot.rs.CopilotLoginRS;
 import com.flippingcopilot.ui.graph.model.Data;
+import com.flippingcopilot.ui.graph.model.GraphDataCache;
 import com.flippingcopilot.util.ProtoUtils;
 import com.google.gson.*;
 import com.google.gson.reflect.TypeToken;
@@ -14,17 +15,20 @@ import okhttp3.*;
 
 import javax.inject.Inject;
 import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Type;
 import java.net.URLEncoder;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.zip.GZIPOutputStream;
 
 
 @Slf4j
@@ -36,17 +40,35 @@ public class ApiRequestHandler {
     private static final String serverFeUrl = serverUrl.replace("api.", "");
     private static final MediaType JSON_MEDIA_TYPE = MediaType.get("application/json; charset=utf-8");
     private static final MediaType PROTO_MEDIA_TYPE = MediaType.get("application/protobuf");
+    // flips delta batch size, bounds how long each merge holds the FlipManager lock
+    private static final int FLIPS_DELTA_BATCH_SIZE = 2000;
     private static final String GRAPH_DATA_PRICE_BITS_HEADER = "X-Graph-Data-Price-Bits";
+    // asks for the graph data price series delta encoded, servers that don't support it send the plain series
+    private static final String GRAPH_DATA_SERIES_ENCODING_HEADER = "X-Graph-Data-Series-Encoding";
+    private static final String GRAPH_DATA_SERIES_ENCODING = "delta-varint";
+    // the cached graph data versions, the server then only sends the price history points added since
+    private static final String GRAPH_DATA_CACHED_HEADER = "X-Graph-Data-Cached";
     public static final String DEFAULT_COPILOT_PRICE_ERROR_MESSAGE = "Unable to fetch price copilot price (possible server update)";
     public static final String DEFAULT_PREMIUM_INSTANCE_ERROR_MESSAGE = "Error loading premium instance data (possible server update)";
     public static final String UNKNOWN_ERROR = "Unknown error";
     public static final int UNAUTHORIZED_CODE = 401;
     // dependencies
-    private final OkHttpClient client;
+    private final CopilotConnectionManager connectionManager;
     private final Gson gson;
     private final CopilotLoginRS copilotLoginRS;
     private final SuggestionPreferencesManager preferencesManager;
     private final ClientThread clientThread;
+    private final GraphDataCache graphDataCache;
+
+    // state
+    // whether the server takes gzipped transactions bodies, known once it advertises it or a first upload settles it
+    private volatile GzipSupport gzipTransactions = GzipSupport.UNKNOWN;
+
+    private enum GzipSupport {
+        UNKNOWN,
+        SUPPORTED,
+        UNSUPPORTED
+    }
 
     @FunctionalInterface
     private interface CheckedResponseConsumer {
@@ -68,11 +90,14 @@ public class ApiRequestHandler {
     }
 
     private Call timeoutCall(Request request, int seconds) {
-        return client.newBuilder()
-                // Overall timeout
-                .callTimeout(seconds, TimeUnit.SECONDS)
-                .build()
-                .newCall(request);
+        return connectionManager.callTimeoutClient(seconds).newCall(request);
+    }
+
+    /**
+     * Opens a connection to the copilot server ahead of the first request after login.
+     */
+    public void warmUpConnection() {
+        connectionManager.warmUp(serverUrl);
     }
 
     private void clearLoginIfUnauthorized(Response response, String jwtToken) {
@@ -86,7 +111,7 @@ public class ApiRequestHandler {
                          String label,
                          Consumer<HttpResponseException> onFailure,
                          CheckedResponseConsumer onSuccess) {
-        enqueue(client.newCall(request), jwtToken, label, onFailure, onSuccess);
+        enqueue(connectionManager.client().newCall(request), jwtToken, label, onFailure, onSuccess);
     }
 
     private void enqueue(Call call,
@@ -97,13 +122,18 @@ public class ApiRequestHandler {
         call.enqueue(new Callback() {
             @Override
             public void onFailure(Call call, IOException e) {
-                log.warn("{} failed", label, e);
+                if (call.isCanceled()) {
+                    log.debug("{} cancelled", label);
+                } else {
+                    log.warn("{} failed", label, e);
+                }
                 onFailure.accept(new HttpResponseException(-1, UNKNOWN_ERROR));
             }
 
             @Override
             public void onResponse(Call call, Response response) {
                 try {
+                    noteAcceptedEncodings(response);
                     if (!response.isSuccessful()) {
                         clearLoginIfUnauthorized(response, jwtToken);
                         String errorMessage = extractErrorMessage(response);
@@ -120,6 +150,14 @@ public class ApiRequestHandler {
         });
     }
 
+    private void noteAcceptedEncodings(Response response) {
+        // a server lists the content codings it takes for request bodies in Accept-Encoding (RFC 7694)
+        String accepted = response.header("Accept-Encoding");
+        if (accepted != null && accepted.contains("gzip")) {
+            gzipTransactions = GzipSupport.SUPPORTED;
+        }
+    }
+
     private Consumer<HttpResponseException> stringFailure(Consumer<String> onFailure) {
         return error -> onFailure.accept(error.getMessage());
     }
@@ -136,7 +174,7 @@ public class ApiRequestHandler {
                 .post(jsonBody(""))
                 .build();
 
-        client.newCall(request).enqueue(new Callback() {
+        connectionManager.client().newCall(request).enqueue(new Callback() {
             @Override
             public void onFailure(Call call, IOException e) {
                 failureCallback.accept(UNKNOWN_ERROR);
@@ -172,11 +210,7 @@ public class ApiRequestHandler {
                 .url(serverFeUrl + "/v1/plugin-discord-login")
                 .get().build();
 
-        Call call = client.newBuilder()
-                .readTimeout(0, TimeUnit.MILLISECONDS)
-                .callTimeout(0, TimeUnit.MILLISECONDS)
-                .build()
-                .newCall(r);
+        Call call = connectionManager.unboundedClient().newCall(r);
 
         call.enqueue(new Callback() {
             @Override
@@ -218,30 +252,36 @@ public class ApiRequestHandler {
         return call;
     }
 
-    public void getSuggestionAsync(byte[] status,
+    public Call getSuggestionAsync(byte[] status,
                                    Consumer<Suggestion> suggestionConsumer,
                                    Consumer<Data> graphDataConsumer,
                                    Consumer<HttpResponseException>  onFailure,
-                                   boolean skipGraphData) {
+                                   boolean skipGraphData,
+                                   SuggestionLatencyTracer.Trace trace) {
         String jwtToken = copilotLoginRS.get().getJwtToken();
         Request.Builder rb = authed(jwtToken, "/suggestion")
                 .addHeader("Accept", "application/protobuf")
                 .addHeader(GRAPH_DATA_PRICE_BITS_HEADER, "64")
+                .addHeader(GRAPH_DATA_SERIES_ENCODING_HEADER, GRAPH_DATA_SERIES_ENCODING)
                 .addHeader("X-VERSION", "1")
+                .tag(SuggestionLatencyTracer.Trace.class, trace)
                 .post(protoBody(status));
 
         if(skipGraphData){
             rb.addHeader("X-SKIP-GD", "true");
+        } else {
+            addGraphDataCachedHeader(rb, null);
         }
 
-        Request request = rb.build();
-
-        enqueue(request, jwtToken, "get suggestion",
+        Call call = connectionManager.client().newCall(rb.build());
+        enqueue(call, jwtToken, "get suggestion",
                 error -> clientThread.invoke(() -> onFailure.accept(error)),
-                response -> handleSuggestionResponse(response, suggestionConsumer, graphDataConsumer));
+                response -> handleSuggestionResponse(response, suggestionConsumer, graphDataConsumer, trace));
+        return call;
     }
 
-    private void handleSuggestionResponse(Response response, Consumer<Suggestion> suggestionConsumer, Consumer<Data> graphDataConsumer) throws IOException {
+    private void handleSuggestionResponse(Response response, Consumer<Suggestion> suggestionConsumer, Consumer<Data> graphDataConsumer, SuggestionLatencyTracer.Trace trace) throws IOException {
+        trace.end(SuggestionLatencyTracer.Stage.REQUEST);
         if (response.body() == null) {
             throw new IOException("empty suggestion request response");
         }
@@ -263,7 +303,9 @@ public class ApiRequestHandler {
             if (bytesRead != suggestionContentLength) {
                 throw new IOException("failed to read complete suggestion content: " + bytesRead + " of " + suggestionContentLength + " bytes");
             }
+            trace.end(SuggestionLatencyTracer.Stage.READ);
             s = Suggestion.decodeProto(suggestionBytes);
+            trace.end(SuggestionLatencyTracer.Stage.DECODE);
             log.debug("suggestion received");
             clientThread.invoke(() -> suggestionConsumer.accept(s));
 
@@ -279,6 +321,9 @@ public class ApiRequestHandler {
                         try {
                             d = Data.fromMsgPack(ByteBuffer.wrap(remainingBytes));
                             log.debug("graph data received");
+                            if (d != null && !graphDataCache.merge(d)) {
+                                d.loadingErrorMessage = "There was an issue loading the graph data for this item.";
+                            }
                         } catch (Exception e) {
                             log.error("error deserializing graph data", e);
                             d.loadingErrorMessage = "There was an issue loading the graph data for this item.";
@@ -297,6 +342,13 @@ public class ApiRequestHandler {
         clientThread.invoke(() -> graphDataConsumer.accept(finalD));
     }
 
+    private void addGraphDataCachedHeader(Request.Builder rb, Integer itemId) {
+        String versions = graphDataCache.versions(itemId);
+        if (versions != null) {
+            rb.addHeader(GRAPH_DATA_CACHED_HEADER, versions);
+        }
+    }
+
     private int resolveContentLength(Response resp) throws IOException {
         try {
             String cl = resp.header("Content-Length");
@@ -316,6 +368,10 @@ public class ApiRequestHandler {
     }
 
     public void sendTransactionsAsync(List<Transaction> transactions, String displayName, BiConsumer<Integer, List<FlipV2>> onSuccess, Consumer<HttpResponseException> onFailure) {
+        sendTransactionsAsync(transactions, displayName, gzipTransactions != GzipSupport.UNSUPPORTED, onSuccess, onFailure);
+    }
+
+    private void sendTransactionsAsync(List<Transaction> transactions, String displayName, boolean gzip, BiConsumer<Integer, List<FlipV2>> onSuccess, Consumer<HttpResponseException> onFailure) {
         log.debug("sending {} transactions for display name {}", transactions.size(), displayName);
         JsonArray body = new JsonArray();
         for (Transaction transaction : transactions) {
@@ -324,13 +380,47 @@ public class ApiRequestHandler {
         Integer userId = copilotLoginRS.get().getUserId();
         String jwtToken = copilotLoginRS.get().getJwtToken();
         String encodedDisplayName = URLEncoder.encode(displayName, StandardCharsets.UTF_8);
-        Request request = authed(jwtToken, "/profit-tracking/client-transactions?display_name=" + encodedDisplayName)
-                .post(jsonBody(body.toString()))
-                .header("Accept", "application/protobuf")
-                .build();
+        Request.Builder rb = authed(jwtToken, "/profit-tracking/client-transactions?display_name=" + encodedDisplayName)
+                .header("Accept", "application/protobuf");
+        if (gzip) {
+            rb.header("Content-Encoding", "gzip").post(RequestBody.create(JSON_MEDIA_TYPE, gzip(body.toString())));
+        } else {
+            rb.post(jsonBody(body.toString()));
+        }
 
-        enqueue(request, jwtToken, "sync transactions", onFailure,
-                response -> onSuccess.accept(userId, FlipV2.listDecodeProto(response.body().bytes())));
+        boolean probe = gzip && gzipTransactions == GzipSupport.UNKNOWN;
+        Consumer<HttpResponseException> failure = e -> {
+            if (probe && (e.getResponseCode() == 400 || e.getResponseCode() == 415)) {
+                // the compression may be why, resend uncompressed and only stop compressing if that's accepted so an
+                // unrelated error doesn't turn it off. Other statuses (401, 429, 5xx) can't be caused by the encoding
+                // so they go to the normal failure handling
+                log.info("gzipped transactions failed ({}), resending uncompressed", e.getResponseCode());
+                sendTransactionsAsync(transactions, displayName, false, (u, flips) -> {
+                    log.info("server rejected gzipped transactions, sending uncompressed");
+                    gzipTransactions = GzipSupport.UNSUPPORTED;
+                    onSuccess.accept(u, flips);
+                }, onFailure);
+                return;
+            }
+            onFailure.accept(e);
+        };
+        enqueue(rb.build(), jwtToken, "sync transactions", failure, response -> {
+            List<FlipV2> flips = FlipV2.listDecodeProto(response.body().bytes());
+            if (gzip) {
+                gzipTransactions = GzipSupport.SUPPORTED;
+            }
+            onSuccess.accept(userId, flips);
+        });
+    }
+
+    private static byte[] gzip(String s) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(s.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
     }
 
     public void toggleItemPortfolioAsync(ToggleItemPortfolioRequest payload,
@@ -393,12 +483,16 @@ public class ApiRequestHandler {
         body.addProperty("include_graph_data", includeGraphData);
         log.debug("requesting price graph data for item {}", itemId);
         String jwtToken = copilotLoginRS.get().getJwtToken();
-        Request request = authed(jwtToken, "/prices")
+        Request.Builder rb = authed(jwtToken, "/prices")
                 .addHeader("Accept", "application/x-msgpack")
                 .addHeader(GRAPH_DATA_PRICE_BITS_HEADER, "64")
+                .addHeader(GRAPH_DATA_SERIES_ENCODING_HEADER, GRAPH_DATA_SERIES_ENCODING)
                 .addHeader("X-VERSION", "1")
-                .post(jsonBody(body.toString()))
-                .build();
+                .post(jsonBody(body.toString()));
+        if (includeGraphData) {
+            addGraphDataCachedHeader(rb, itemId);
+        }
+        Request request = rb.build();
 
         Consumer<HttpResponseException> emitError = error -> {
             ItemPrice ip = new ItemPrice(0, 0, DEFAULT_COPILOT_PRICE_ERROR_MESSAGE, null);
@@ -407,6 +501,10 @@ public class ApiRequestHandler {
         enqueue(timeoutCall(request, 30), jwtToken, "copilot price item=" + itemId, emitError, response -> {
             ItemPrice ip = ItemPrice.fromMsgPack(ByteBuffer.wrap(response.body().bytes()));
             log.debug("price graph data received for item {}", itemId);
+            Data d = ip == null ? null : ip.getGraphData();
+            if (d != null && !graphDataCache.merge(d)) {
+                d.loadingErrorMessage = "There was an issue loading the graph data for this item.";
+            }
             clientThread.invoke(() -> consumer.accept(ip));
         });
     }
@@ -550,7 +648,11 @@ public class ApiRequestHandler {
         });
     }
 
-    public void asyncLoadFlips(Map<Integer, Integer> accountIdTime, BiConsumer<Integer, FlipsDeltaResult> onSuccess, Consumer<String> onFailure) {
+    /**
+     * Loads the flips delta since accountIdTime. The response is decoded as it streams in and the flips passed to onBatch
+     * in batches, onSuccess gets a null result if onBatch returned false.
+     */
+    public void asyncLoadFlips(Map<Integer, Integer> accountIdTime, Predicate<List<FlipV2>> onBatch, BiConsumer<Integer, FlipsDeltaResult> onSuccess, Consumer<String> onFailure) {
         Integer userId = copilotLoginRS.get().getUserId();
         String jwtToken = copilotLoginRS.get().getJwtToken();
         DataDeltaRequest body = new DataDeltaRequest(accountIdTime);
@@ -562,7 +664,11 @@ public class ApiRequestHandler {
                 .build();
 
         enqueue(request, jwtToken, "load flips", stringFailure(onFailure),
-                response -> onSuccess.accept(userId, FlipsDeltaResult.decodeProto(response.body().bytes())));
+                response -> {
+                    try (ResponseBody responseBody = response.body()) {
+                        onSuccess.accept(userId, FlipsDeltaResult.decodeProto(responseBody.byteStream(), FLIPS_DELTA_BATCH_SIZE, onBatch));
+                    }
+                });
     }
 
     public void asyncLoadTransactionsData(String displayName, Consumer<byte[]> onSuccess, Consumer<String> onFailure) {
@@ -576,7 +682,9 @@ public class ApiRequestHandler {
                 .build();
 
         enqueue(request, jwtToken, "load transactions", stringFailure(onFailure), response -> {
-            onSuccess.accept(AckedTransaction.listDecodeProto(response.body().bytes()));
+            try (ResponseBody responseBody = response.body()) {
+                onSuccess.accept(AckedTransaction.listDecodeProto(responseBody.byteStream(), responseBody.contentLength()));
+            }
         });
     }
 
@@ -587,11 +695,7 @@ public class ApiRequestHandler {
                 .post(jsonBody(""))
                 .build();
 
-        Call call = client.newBuilder()
-                .readTimeout(10, TimeUnit.SECONDS)
-                .callTimeout(0, TimeUnit.MILLISECONDS)
-                .build()
-                .newCall(request);
+        Call call = connectionManager.longPollClient().newCall(request);
 
         call.enqueue(new Callback() {
             @Override
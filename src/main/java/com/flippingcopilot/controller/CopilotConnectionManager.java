@@ -0,0 +1,157 @@
+package com.flippingcopilot.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Connection;
+import okhttp3.ConnectionPool;
+import okhttp3.EventListener;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The HTTP clients for the copilot API. All of them share the RuneLite client's dispatcher and one connection pool
+ * dedicated to the copilot host, so connections (HTTP/2 where the server supports it) are kept alive between
+ * suggestion requests and a connection can be opened ahead of the first request with {@link #warmUp}.
+ */
+@Slf4j
+@Singleton
+public class CopilotConnectionManager {
+
+    private static final int MAX_IDLE_CONNECTIONS = 5;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+
+    private final ConnectionPool connectionPool = new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES);
+    private final OkHttpClient client;
+    // no read or call timeout, for requests that wait on user action
+    private final OkHttpClient unboundedClient;
+    // long polling, the server holds the request open until there is something to send
+    private final OkHttpClient longPollClient;
+    private final Map<Integer, OkHttpClient> callTimeoutClients = new ConcurrentHashMap<>();
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong connectionsOpened = new AtomicLong();
+    private final AtomicLong connectionsAcquired = new AtomicLong();
+
+    @Inject
+    public CopilotConnectionManager(OkHttpClient baseClient) {
+        client = baseClient.newBuilder()
+                .connectionPool(connectionPool)
+                .eventListener(new StatsListener())
+                .build();
+        unboundedClient = client.newBuilder()
+                .readTimeout(0, TimeUnit.MILLISECONDS)
+                .callTimeout(0, TimeUnit.MILLISECONDS)
+                .build();
+        longPollClient = client.newBuilder()
+                .readTimeout(10, TimeUnit.SECONDS)
+                .callTimeout(0, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    public OkHttpClient client() {
+        return client;
+    }
+
+    public OkHttpClient unboundedClient() {
+        return unboundedClient;
+    }
+
+    public OkHttpClient longPollClient() {
+        return longPollClient;
+    }
+
+    public OkHttpClient callTimeoutClient(int seconds) {
+        return callTimeoutClients.computeIfAbsent(seconds, s -> client.newBuilder()
+                .callTimeout(s, TimeUnit.SECONDS)
+                .build());
+    }
+
+    /**
+     * Opens a connection to the server unless there is already an idle one, so the next request doesn't pay for the
+     * TLS handshake.
+     */
+    public void warmUp(String serverUrl) {
+        if (connectionPool.idleConnectionCount() > 0) {
+            return;
+        }
+        long s = System.nanoTime();
+        Request request = new Request.Builder().url(serverUrl).head().build();
+        client.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                log.debug("connection warm up failed", e);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                response.close();
+                log.debug("connection warm up took {}ms, {}", (System.nanoTime() - s) / 1000_000, stats());
+            }
+        });
+    }
+
+    /**
+     * Closes the idle pooled connections, for when the plugin shuts down. Calls still in flight finish normally.
+     */
+    public void shutdown() {
+        connectionPool.evictAll();
+    }
+
+    public long getCalls() {
+        return calls.get();
+    }
+
+    public long getConnectionsOpened() {
+        return connectionsOpened.get();
+    }
+
+    /**
+     * Returns the number of calls that were sent over an already open connection.
+     */
+    public long getConnectionsReused() {
+        return Math.max(0, connectionsAcquired.get() - connectionsOpened.get());
+    }
+
+    public String stats() {
+        return String.format("calls=%d opened=%d reused=%d pooled=%d idle=%d", getCalls(), getConnectionsOpened(),
+                getConnectionsReused(), connectionPool.connectionCount(), connectionPool.idleConnectionCount());
+    }
+
+    private final class StatsListener extends EventListener {
+        @Override
+        public void callStart(Call call) {
+            calls.incrementAndGet();
+        }
+
+        @Override
+        public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+            connectionsOpened.incrementAndGet();
+        }
+
+        @Override
+        public void connectionAcquired(Call call, Connection connection) {
+            connectionsAcquired.incrementAndGet();
+        }
+
+        @Override
+        public void requestHeadersStart(Call call) {
+            // the rest of a traced suggestion request's time is the server's and the network's
+            SuggestionLatencyTracer.Trace trace = call.request().tag(SuggestionLatencyTracer.Trace.class);
+            if (trace != null) {
+                trace.endOnce(SuggestionLatencyTracer.Stage.SEND);
+            }
+        }
+    }
+}
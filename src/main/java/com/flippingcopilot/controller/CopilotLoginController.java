@@ -1,6 +1,7 @@
 package com.flippingcopilot.controller;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ScheduledExecutorService;
@@ -12,6 +13,7 @@ import com.flippingcopilot.model.*;
 import com.flippingcopilot.rs.CopilotLoginRS;
 import com.flippingcopilot.ui.LoginPanel;
 import com.flippingcopilot.ui.MainPanel;
+import com.flippingcopilot.ui.graph.model.GraphDataCache;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
@@ -22,6 +24,8 @@ import javax.inject.Singleton;
 @Singleton
 public class CopilotLoginController {
 
+    private static final long FLIPS_SNAPSHOT_INTERVAL_MS = 60_000;
+
     // dependencies
     @Setter
     private LoginPanel loginPanel;
@@ -35,6 +39,9 @@ public class CopilotLoginController {
     private final ScheduledExecutorService executorService;
     private final CopilotLoginRS copilotLoginRS;
 
+    // state
+    private volatile boolean flipsSnapshotDirty;
+    private volatile long lastFlipsSnapshotMs;
 
     @Inject
     public CopilotLoginController(ApiRequestHandler apiRequestHandler,
@@ -45,7 +52,8 @@ public class CopilotLoginController {
                                   SessionManager sessionManager,
                                   TransactionManager transactionManager,
                                   ScheduledExecutorService executorService,
-                                  CopilotLoginRS copilotLoginRS) {
+                                  CopilotLoginRS copilotLoginRS,
+                                  GraphDataCache graphDataCache) {
         this.apiRequestHandler = apiRequestHandler;
         this.flipManager = flipManager;
         this.osrsLoginManager = osrsLoginManager;
@@ -54,12 +62,16 @@ public class CopilotLoginController {
         this.executorService = executorService;
         this.copilotLoginRS = copilotLoginRS;
         flipManager.setCopilotUserId(copilotLoginRS.get().getUserId());
+        if (copilotLoginRS.get().isLoggedIn()) {
+            apiRequestHandler.warmUpConnection();
+        }
         loadCopilotAccounts(0);
         copilotLoginRS.registerListener((s) -> {
             if(s.loginResponse == null) {
                 flipManager.reset();
                 suggestionManager.reset();
                 highlightController.removeAll();
+                graphDataCache.clear();
                 mainPanel.refresh();
             }
         });
@@ -74,7 +86,7 @@ public class CopilotLoginController {
         Consumer<Map<String, Integer>> onSuccess = (displayNameToAccountId) -> {
             displayNameToAccountId.forEach((key, value) -> copilotLoginRS.addAccountIfMissing(value, key, userId));
             log.info("loading {} copilot accounts succeeded - took {}ms", displayNameToAccountId.size(), (System.nanoTime() - s) / 1000_000);
-            syncFlips(copilotLoginRS.get().getUserId(), new HashMap<>(), 0);
+            syncFlips(userId, loadFlipsSnapshot(userId), 0);
         };
         Consumer<String> onFailure = (errorMessage) -> {
             if (copilotLoginRS.get().isLoggedIn()) {
@@ -101,21 +113,68 @@ public class CopilotLoginController {
         }
         accountIds.forEach(a -> accountIdTime.computeIfAbsent(a, i -> 0));
         long s = System.nanoTime();
+        // the delta is merged in batches so the flips lock isn't held for long, but the listeners are told once
+        FlipsChange change = new FlipsChange();
         BiConsumer<Integer, FlipsDeltaResult> onSuccess = (Integer copilotUserId, FlipsDeltaResult r) -> {
-            if(!flipManager.mergeFlips(r.flips, userId)) {
+            flipManager.flipsMerged(change);
+            if(r == null) {
                 log.info("user={}, no longer logged in, stopping syncFlips.", userId);
                 return;
             }
-            log.debug("user={}, loading {} updated flips - took {}ms", userId, r.flips.size(), (System.nanoTime() - s) / 1000_000);
+            log.debug("user={}, loading {} updated flips - took {}ms", userId, r.numFlips, (System.nanoTime() - s) / 1000_000);
             accountIds.forEach((a) -> accountIdTime.put(a, r.time));
+            flipsSnapshotDirty |= r.numFlips > 0;
+            if (flipsSnapshotDirty && System.currentTimeMillis() - lastFlipsSnapshotMs >= FLIPS_SNAPSHOT_INTERVAL_MS) {
+                storeFlipsSnapshot(userId, accountIdTime);
+            }
             executorService.schedule(() -> syncFlips(userId, accountIdTime, 0), 5, TimeUnit.SECONDS);
         };
         Consumer<String> onFailure = (errorMessage) -> {
+            flipManager.flipsMerged(change);
             long backOffSeconds = Math.min(45, (long) Math.exp(previousFailures));
             log.info("user={}, failed to load updated flips ({}) retrying in {}s", userId, errorMessage, backOffSeconds);
             executorService.schedule(() -> syncFlips(userId, accountIdTime, previousFailures + 1), backOffSeconds, TimeUnit.SECONDS);
         };
-        apiRequestHandler.asyncLoadFlips(accountIdTime, onSuccess, onFailure);
+        apiRequestHandler.asyncLoadFlips(accountIdTime, flips -> flipManager.mergeFlips(flips, userId, change), onSuccess, onFailure);
+    }
+
+    private Map<Integer, Integer> loadFlipsSnapshot(int userId) {
+        // starts the sync from the local snapshot (if any) so only the flips delta since it was taken is requested
+        Map<Integer, Integer> accountIdTime = new HashMap<>();
+        FlipsSnapshot snapshot = Persistance.loadFlipsSnapshot(userId);
+        if (snapshot == null) {
+            return accountIdTime;
+        }
+        // accounts deleted since the snapshot was taken are dropped
+        Set<Integer> accountIds = copilotLoginRS.get().accountIds();
+        snapshot.flips.removeIf(f -> !accountIds.contains(f.getAccountId()));
+        if (!flipManager.mergeFlips(snapshot.flips, userId)) {
+            return accountIdTime;
+        }
+        snapshot.accountIdTime.forEach((accountId, time) -> {
+            if (accountIds.contains(accountId)) {
+                accountIdTime.put(accountId, time);
+            }
+        });
+        return accountIdTime;
+    }
+
+    private void storeFlipsSnapshot(int userId, Map<Integer, Integer> accountIdTime) {
+        List<FlipV2> flips = flipManager.getAllFlips(userId);
+        if (flips == null) {
+            return;
+        }
+        FlipsSnapshot snapshot = new FlipsSnapshot();
+        snapshot.userId = userId;
+        snapshot.accountIdTime = new HashMap<>(accountIdTime);
+        snapshot.flips = flips;
+        flipsSnapshotDirty = false;
+        lastFlipsSnapshotMs = System.currentTimeMillis();
+        executorService.submit(() -> {
+            long s = System.nanoTime();
+            Persistance.storeFlipsSnapshot(snapshot);
+            log.debug("user={}, stored flips snapshot of {} flips - took {}ms", userId, flips.size(), (System.nanoTime() - s) / 1000_000);
+        });
     }
 
     public void onLoginPressed(String email, String password) {
@@ -147,6 +206,7 @@ public class CopilotLoginController {
             transactionManager.scheduleSyncIn(0, displayName);
         }
         flipManager.setCopilotUserId(loginResponse.getUserId());
+        apiRequestHandler.warmUpConnection();
         loadCopilotAccounts(0);
     }
 
@@ -76,6 +76,8 @@ public class FlippingCopilotPlugin extends Plugin {
 	@Inject
 	private SuggestionManager suggestionManager;
 	@Inject
+	private ApiRequestHandler apiRequestHandler;
+	@Inject
 	private WebHookController webHookController;
 	@Inject
 	private KeybindHandler keybindHandler;
@@ -102,6 +104,8 @@ public class FlippingCopilotPlugin extends Plugin {
 	@Inject
 	private OfferManager offerManager;
 	@Inject
+	private CopilotConnectionManager connectionManager;
+	@Inject
 	private TooltipController tooltipController;
   	@Inject
 	private MenuHandler menuHandler;
@@ -222,6 +226,9 @@ public class FlippingCopilotPlugin extends Plugin {
 			}
 		}
 		keybindHandler.unregister();
+		flipsDialogController.disposeDialog();
+		transactionManager.closeLogs();
+		connectionManager.shutdown();
 	}
 
 	@Provides
@@ -338,6 +345,10 @@ public class FlippingCopilotPlugin extends Plugin {
 				osrsLoginRS.set(osrsLoginRS.get().nextState(client));
 				break;
 			case LOGGED_IN:
+				if (copilotLoginRS.get().isLoggedIn()) {
+					// the pooled connection may have timed out whilst logged out, reopen it before the first suggestion
+					apiRequestHandler.warmUpConnection();
+				}
 				// we want to update the flips panel on login but unfortunately the display name
 				// is not available immediately so schedule what we need to do here for in the future
 				// todo: move to just using the accountHash which is available immediately to simply things
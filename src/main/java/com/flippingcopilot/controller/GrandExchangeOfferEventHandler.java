@@ -34,6 +34,7 @@ public class GrandExchangeOfferEventHandler {
     private final GrandExchangeUncollectedManager grandExchangeUncollectedManager;
     private final OfferManager offerManager;
     private final SuggestionManager suggestionManager;
+    private final SuggestionLatencyTracer latencyTracer;
 
     // state
     private final Queue<Transaction> transactionsToProcess = new ConcurrentLinkedQueue<>();
@@ -88,6 +89,7 @@ public class GrandExchangeOfferEventHandler {
 
         // Always fetch suggestion to ensure fast response for better UX
         suggestionManager.setSuggestionNeeded(true);
+        latencyTracer.trigger();
     }
 
     private boolean wasCopilotPriceUsed(SavedOffer o, SavedOffer prev) {
@@ -230,7 +230,7 @@ public class MenuHandler {
                                 result == null ? null : result.getPortfolioItems(),
                                 result == null ? null : result.getTime()
                         );
-                        suggestionManager.setSuggestionNeeded(true);
+                        suggestionManager.forceSuggestionRefresh();
                         int itemsUpdated = result == null || result.getPortfolioItems() == null ? 0 : result.getPortfolioItems().size();
                         log.info("toggle portfolio succeeded for item_id={}, account_id={}, portfolio_id={}, quantity={}, portfolio_items_updated={}", menuItem.unnotedItemId, accountId, portfolioId, quantity, itemsUpdated);
                     },
@@ -1,29 +1,45 @@
 package com.flippingcopilot.controller;
 
+import com.flippingcopilot.model.FlipsSnapshot;
 import com.flippingcopilot.model.Transaction;
 import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.client.RuneLite;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 @Slf4j
 public class Persistance {
     public static Gson gson;
     public static final File COPILOT_DIR = new File(RuneLite.RUNELITE_DIR, "flipping-copilot");
+    // replaced by the un acked transactions log, only read to migrate existing files
     public static final String UN_ACKED_TRANSACTIONS_FILE_TEMPLATE = "%s_un_acked.jsonl";
+    public static final String UN_ACKED_TRANSACTIONS_LOG_TEMPLATE = "%s_un_acked.wal";
     public static final String LOGIN_RESPONSE_JSON_FILE = "login-response.json";
+    public static final String FLIPS_SNAPSHOT_FILE_TEMPLATE = "%d_flips.pb.gz";
+    public static final String TRANSACTIONS_FILE_TEMPLATE = "%s_transactions.bin";
+    public static final String SUGGESTION_LATENCY_FILE = "suggestion-latency.json";
     public static File directory;
 
     public static void setUp(String directoryPath) throws IOException {
@@ -70,13 +86,32 @@ public class Persistance {
     }
 
 
-    public static List<Transaction> loadUnAckedTransactions(String displayName) {
-        List<Transaction> transactions = new ArrayList<>();
-        File file = new File(COPILOT_DIR, String.format(UN_ACKED_TRANSACTIONS_FILE_TEMPLATE, hashDisplayName(displayName)));
-        if (!file.exists()) {
-            log.info("no existing un acked transactions file for {}", displayName);
-            return new ArrayList<>();
+    public static UnAckedTransactionLog openUnAckedTransactionLog(String displayName) {
+        String hash = hashDisplayName(displayName);
+        File file = new File(COPILOT_DIR, String.format(UN_ACKED_TRANSACTIONS_LOG_TEMPLATE, hash));
+        UnAckedTransactionLog transactionLog;
+        try {
+            transactionLog = UnAckedTransactionLog.open(file);
+        } catch (IOException e) {
+            log.warn("error opening un acked transaction log {}, transactions will only be held in memory", file, e);
+            return UnAckedTransactionLog.inMemory();
+        }
+        File legacyFile = new File(COPILOT_DIR, String.format(UN_ACKED_TRANSACTIONS_FILE_TEMPLATE, hash));
+        if (legacyFile.exists()) {
+            // appending is idempotent, so a migration interrupted before the old file is deleted is just redone
+            for (Transaction t : loadLegacyUnAckedTransactions(legacyFile)) {
+                transactionLog.append(t);
+            }
+            if (!legacyFile.delete()) {
+                log.warn("failed to delete migrated un acked transactions file {}", legacyFile);
+            }
         }
+        log.info("loaded {} stored transactions for {}", transactionLog.transactions().size(), displayName);
+        return transactionLog;
+    }
+
+    private static List<Transaction> loadLegacyUnAckedTransactions(File file) {
+        List<Transaction> transactions = new ArrayList<>();
         Set<UUID> added = new HashSet<>();
         try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
             String line;
@@ -97,7 +132,7 @@ public class Persistance {
                 }
             }
         } catch (FileNotFoundException e) {
-            log.info("no existing un acked transactions file for {}", displayName);
+            log.info("no existing un acked transactions file {}", file);
             return new ArrayList<>();
         } catch (IOException e) {
             log.warn("error loading un acked transaction file {}", file, e);
@@ -106,23 +141,63 @@ public class Persistance {
             log.warn("corrupted un acked transaction file {}", file, e);
             return new ArrayList<>();
         }
-        log.info("loaded {} stored transactions for {}", transactions.size(), displayName);
         return transactions;
     }
 
-    public static void storeUnAckedTransactions(List<Transaction> transactions, String displayName) {
-        File unackedTransactionsFile = new File(COPILOT_DIR, String.format(UN_ACKED_TRANSACTIONS_FILE_TEMPLATE, hashDisplayName(displayName)));
-        try (BufferedWriter w = new BufferedWriter(new FileWriter(unackedTransactionsFile, false))) {
-            for (Transaction transaction : transactions) {
-                String json = gson.toJson(transaction);
-                w.write(json);
-                w.newLine();
+    public static FlipsSnapshot loadFlipsSnapshot(int userId) {
+        File file = new File(COPILOT_DIR, String.format(FLIPS_SNAPSHOT_FILE_TEMPLATE, userId));
+        if (!file.exists()) {
+            log.info("no existing flips snapshot for user {}", userId);
+            return null;
+        }
+        try (InputStream in = new GZIPInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            FlipsSnapshot snapshot = FlipsSnapshot.decodeProto(CodedInputStream.newInstance(in));
+            if (snapshot == null || snapshot.userId != userId) {
+                log.info("ignoring flips snapshot {} of a different version or user", file);
+                return null;
             }
+            log.info("loaded flips snapshot of {} flips for user {}", snapshot.flips.size(), userId);
+            return snapshot;
         } catch (IOException e) {
-            log.warn("error storing un acked transactions to file {}", unackedTransactionsFile, e);
+            log.warn("error loading flips snapshot file {}", file, e);
+            return null;
         }
     }
 
+    public static void storeFlipsSnapshot(FlipsSnapshot snapshot) {
+        File file = new File(COPILOT_DIR, String.format(FLIPS_SNAPSHOT_FILE_TEMPLATE, snapshot.userId));
+        // write to a temp file first so a crash mid write can't leave a truncated snapshot
+        File tmp = new File(COPILOT_DIR, file.getName() + ".tmp");
+        try (OutputStream out = new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            CodedOutputStream cos = CodedOutputStream.newInstance(out);
+            snapshot.encodeProto(cos);
+            cos.flush();
+        } catch (IOException e) {
+            log.warn("error storing flips snapshot to file {}", tmp, e);
+            return;
+        }
+        try {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("error replacing flips snapshot file {}", file, e);
+        }
+    }
+
+    public static void storeSuggestionLatency(Map<String, Object> summary) {
+        File file = new File(COPILOT_DIR, SUGGESTION_LATENCY_FILE);
+        String json = gson.toJson(summary);
+        log.debug("suggestion latency {}", json);
+        try {
+            Files.write(file.toPath(), json.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            log.warn("error storing suggestion latency to file {}", file, e);
+        }
+    }
+
+    public static File transactionsFile(String displayName) {
+        return new File(COPILOT_DIR, String.format(TRANSACTIONS_FILE_TEMPLATE, hashDisplayName(displayName)));
+    }
+
     public static String hashDisplayName(String displayName) {
         if(displayName == null) {
             return "null";
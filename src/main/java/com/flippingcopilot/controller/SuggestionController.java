@@ -19,6 +19,7 @@ import net.runelite.api.VarClientInt;
 import net.runelite.client.Notifier;
 import net.runelite.client.callback.ClientThread;
 import net.runelite.client.chat.ChatMessageBuilder;
+import okhttp3.Call;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -51,6 +52,8 @@ public class SuggestionController {
     private final PortfolioStateRS portfolioStateRS;
     private final FlipsDialogController flipDialogController;
     private final GePreviousSearch gePreviousSearch;
+    private final SuggestionRequestScheduler requestScheduler;
+    private final SuggestionLatencyTracer latencyTracer;
 
 
     private MainPanel mainPanel;
@@ -79,7 +82,14 @@ public class SuggestionController {
     }
 
     void onGameTick() {
-        if(suggestionManager.isSuggestionRequestInProgress() || suggestionManager.isGraphDataReadingInProgress()) {
+        if (suggestionManager.isSuggestionRequestInProgress()) {
+            // the account status may have changed since the in flight request was sent, in which case it's superseded
+            if (suggestionManager.isSuggestionNeeded() && !osrsLoginManager.hasJustLoggedIn() && shouldFetchNewSuggestion()) {
+                getSuggestionAsync();
+            }
+            return;
+        }
+        if (suggestionManager.isGraphDataReadingInProgress()) {
             return;
         }
         // There is a race condition when the collect button is hit at the same time as offers fill.
@@ -138,30 +148,72 @@ public class SuggestionController {
     }
 
     public void getSuggestionAsync() {
-        suggestionManager.setSuggestionNeeded(false);
         if (!copilotLoginRS.get().isLoggedIn() || !osrsLoginManager.isValidLoginState()) {
+            suggestionManager.setSuggestionNeeded(false);
             suggestionManager.setSuggestionRefreshPending(false);
             return;
         }
-        if (suggestionManager.isSuggestionRequestInProgress()) {
-            return;
-        }
+        SuggestionLatencyTracer.Trace trace = latencyTracer.start();
         AccountStatus accountStatus = accountStatusManager.getAccountStatus();
+        trace.end(SuggestionLatencyTracer.Stage.ACCOUNT_STATUS);
         if (accountStatus == null) {
+            suggestionManager.setSuggestionNeeded(false);
             suggestionManager.setSuggestionRefreshPending(false);
             return;
         }
         Suggestion oldSuggestion = suggestionManager.getSuggestion();
         if (oldSuggestion != null && oldSuggestion.isRecentUnActionedDumpAlert()) {
+            suggestionManager.setSuggestionNeeded(false);
             suggestionManager.setSuggestionRefreshPending(false);
             return;
         }
+        boolean sendGraphData = config.priceGraphWebsite() == FlippingCopilotConfig.PriceGraphWebsite.FLIPPING_COPILOT && !config.lowDataMode();
+        boolean geOpen = grandExchange.isOpen();
+        byte[] status = accountStatus.encodeProto(geOpen, sendGraphData);
+        trace.end(SuggestionLatencyTracer.Stage.ENCODE);
+        long now = System.currentTimeMillis();
+        boolean fresh = !suggestionManager.isSuggestionRefreshForced()
+                && oldSuggestion != null
+                && suggestionManager.getSuggestionError() == null
+                && !suggestionManager.suggestionOutOfDate();
+        SuggestionRequestScheduler.Decision decision = requestScheduler.decide(status, fresh, now);
+        if (decision == SuggestionRequestScheduler.Decision.WAIT) {
+            return;
+        }
+        int triggers = suggestionManager.takeSuggestionTriggers();
+        latencyTracer.triggerHandled();
+        if (decision == SuggestionRequestScheduler.Decision.SKIP) {
+            requestScheduler.skip(triggers);
+            if (suggestionManager.isSuggestionRefreshPending()) {
+                suggestionManager.setSuggestionRefreshPending(false);
+                suggestionPanel.refresh();
+            }
+            return;
+        }
+        long requestId = requestScheduler.begin(status, triggers, now);
         suggestionManager.setSuggestionRequestInProgress(true);
         suggestionManager.setSuggestionRefreshPending(false);
         boolean skipGraphData = config.lowDataMode();
         suggestionManager.setGraphDataReadingInProgress(!skipGraphData);
-        Consumer<Suggestion> suggestionConsumer = (newSuggestion) -> handleSuggestionReceived(oldSuggestion, newSuggestion, accountStatus);
+        Consumer<Suggestion> suggestionConsumer = (newSuggestion) -> {
+            if (!requestScheduler.isCurrent(requestId)) {
+                log.debug("discarding suggestion of superseded request {}", newSuggestion);
+                return;
+            }
+            requestScheduler.completed(requestId);
+            trace.end(SuggestionLatencyTracer.Stage.CLIENT_THREAD);
+            handleSuggestionReceived(oldSuggestion, newSuggestion, accountStatus);
+            trace.end(SuggestionLatencyTracer.Stage.HANDLE);
+            // queued behind the suggestion panel refresh
+            SwingUtilities.invokeLater(() -> {
+                trace.end(SuggestionLatencyTracer.Stage.RENDER);
+                latencyTracer.finish(trace);
+            });
+        };
         Consumer<Data> graphDataConsumer = (d) -> {
+            if (!requestScheduler.isCurrent(requestId)) {
+                return;
+            }
             SwingUtilities.invokeLater(() -> {
                 if (flipDialogController.priceGraphPanel != null) {
                     flipDialogController.priceGraphPanel.setSuggestionPriceData(d);
@@ -170,6 +222,10 @@ public class SuggestionController {
             suggestionManager.setGraphDataReadingInProgress(false);
         };
         Consumer<HttpResponseException> onFailure = (e) -> {
+            if (!requestScheduler.isCurrent(requestId)) {
+                return;
+            }
+            requestScheduler.completed(requestId);
             suggestionManager.setSuggestion(null);
             suggestionManager.setSuggestionError(e);
             suggestionManager.setSuggestionRequestInProgress(false);
@@ -183,10 +239,10 @@ public class SuggestionController {
             }
         };
         suggestionPanel.refresh();
-        log.debug("tick {} getting suggestion", client.getTickCount());
-        boolean sendGraphData = config.priceGraphWebsite() == FlippingCopilotConfig.PriceGraphWebsite.FLIPPING_COPILOT && !config.lowDataMode();
-        boolean geOpen = grandExchange.isOpen();
-        apiRequestHandler.getSuggestionAsync(accountStatus.encodeProto(geOpen, sendGraphData), suggestionConsumer, graphDataConsumer, onFailure, skipGraphData);
+        log.debug("tick {} getting suggestion (sent={} coalesced={} skipped={} superseded={})", client.getTickCount(),
+                requestScheduler.getSent(), requestScheduler.getCoalesced(), requestScheduler.getSkipped(), requestScheduler.getSuperseded());
+        Call call = apiRequestHandler.getSuggestionAsync(status, suggestionConsumer, graphDataConsumer, onFailure, skipGraphData, trace);
+        requestScheduler.sent(requestId, call);
     }
 
     void handleDumpSuggestion(Suggestion suggestion) {
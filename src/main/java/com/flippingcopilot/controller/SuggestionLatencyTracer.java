@@ -0,0 +1,187 @@
+package com.flippingcopilot.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Times the stages between a GE offer changing and the new suggestion being rendered, keeping the percentiles of the
+ * last {@link #WINDOW_SIZE} suggestion requests per stage. The summary is written to
+ * {@link Persistance#SUGGESTION_LATENCY_FILE} every {@link #EXPORT_EVERY} requests.
+ */
+@Slf4j
+@Singleton
+@RequiredArgsConstructor(onConstructor_ = @Inject)
+public class SuggestionLatencyTracer {
+
+    static final int WINDOW_SIZE = 500;
+    static final int EXPORT_EVERY = 50;
+
+    public enum Stage {
+        // offer change to the request being started on a game tick
+        QUEUED,
+        ACCOUNT_STATUS,
+        ENCODE,
+        // until the request headers are written: the scheduler bookkeeping, building the request, the wait in the
+        // dispatcher queue shared with RuneLite and opening a connection if none is pooled
+        SEND,
+        // request headers written to response headers received, the server time plus the network round trip
+        REQUEST,
+        READ,
+        DECODE,
+        CLIENT_THREAD,
+        HANDLE,
+        // until the suggestion panel refresh has run on the EDT
+        RENDER
+    }
+
+    private static final Stage[] STAGES = Stage.values();
+
+    // dependencies
+    private final ScheduledExecutorService executorService;
+
+    // state
+    private final AtomicLong triggeredAt = new AtomicLong();
+    private final Window[] stages = newWindows(STAGES.length);
+    private final Window server = new Window();
+    private final Window client = new Window();
+    private final Window total = new Window();
+    private long finished;
+
+    /**
+     * A suggestion request's stage durations, each stage ends when the next one begins.
+     */
+    public static final class Trace {
+        final long[] nanos = new long[STAGES.length];
+        private long last;
+        // whether an offer change triggered the request, there's no queued time otherwise
+        boolean triggered;
+
+        public void end(Stage stage) {
+            long now = System.nanoTime();
+            nanos[stage.ordinal()] = now - last;
+            last = now;
+        }
+
+        /**
+         * Ends the stage unless it has already ended, for events that repeat such as the headers of a retried request.
+         */
+        public void endOnce(Stage stage) {
+            if (nanos[stage.ordinal()] == 0) {
+                end(stage);
+            }
+        }
+    }
+
+    /**
+     * Records a change that needs a new suggestion, only the first one since the last request counts.
+     */
+    public void trigger() {
+        triggeredAt.compareAndSet(0, System.nanoTime());
+    }
+
+    public void triggerHandled() {
+        triggeredAt.set(0);
+    }
+
+    public Trace start() {
+        Trace t = new Trace();
+        t.last = System.nanoTime();
+        long trigger = triggeredAt.get();
+        if (trigger != 0) {
+            t.nanos[Stage.QUEUED.ordinal()] = t.last - trigger;
+            t.triggered = true;
+        }
+        return t;
+    }
+
+    public void finish(Trace t) {
+        long serverNanos = t.nanos[Stage.REQUEST.ordinal()] + t.nanos[Stage.READ.ordinal()];
+        long totalNanos = 0;
+        for (long n : t.nanos) {
+            totalNanos += n;
+        }
+        boolean export;
+        synchronized (this) {
+            for (int i = 0; i < STAGES.length; i++) {
+                if (i != Stage.QUEUED.ordinal() || t.triggered) {
+                    stages[i].add(t.nanos[i]);
+                }
+            }
+            server.add(serverNanos);
+            client.add(totalNanos - serverNanos);
+            total.add(totalNanos);
+            export = ++finished % EXPORT_EVERY == 0;
+        }
+        if (export) {
+            executorService.execute(() -> Persistance.storeSuggestionLatency(summary()));
+        }
+    }
+
+    /**
+     * Returns the request count and the p50/p95/p99 milliseconds of each stage, the server and client split and the
+     * total.
+     */
+    public synchronized Map<String, Object> summary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", finished);
+        Map<String, Object> stageSummary = new LinkedHashMap<>();
+        for (int i = 0; i < STAGES.length; i++) {
+            stageSummary.put(STAGES[i].name().toLowerCase(), stages[i].percentiles());
+        }
+        summary.put("stages", stageSummary);
+        summary.put("server", server.percentiles());
+        summary.put("client", client.percentiles());
+        summary.put("total", total.percentiles());
+        return summary;
+    }
+
+    private static Window[] newWindows(int n) {
+        Window[] windows = new Window[n];
+        for (int i = 0; i < n; i++) {
+            windows[i] = new Window();
+        }
+        return windows;
+    }
+
+    /**
+     * The last {@link #WINDOW_SIZE} durations of a stage.
+     */
+    private static final class Window {
+        private final long[] nanos = new long[WINDOW_SIZE];
+        private int size;
+        private int next;
+
+        void add(long n) {
+            nanos[next] = n;
+            next = (next + 1) % WINDOW_SIZE;
+            size = Math.min(size + 1, WINDOW_SIZE);
+        }
+
+        Map<String, Double> percentiles() {
+            long[] sorted = Arrays.copyOf(nanos, size);
+            Arrays.sort(sorted);
+            Map<String, Double> p = new LinkedHashMap<>();
+            p.put("p50", percentile(sorted, 0.50));
+            p.put("p95", percentile(sorted, 0.95));
+            p.put("p99", percentile(sorted, 0.99));
+            return p;
+        }
+
+        private static double percentile(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            // nearest rank
+            int i = (int) Math.ceil(p * sorted.length) - 1;
+            return sorted[Math.max(0, i)] / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.flippingcopilot.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
+
+import javax.inject.Singleton;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides when a suggestion request is sent. Triggers arriving within {@link #COALESCE_WINDOW_MS} of the last request
+ * are collapsed into one follow-up request, a request for the same encoded account status as the last one is skipped
+ * while its suggestion is still fresh and a request for a changed status supersedes (cancels) the in flight one.
+ */
+@Slf4j
+@Singleton
+public class SuggestionRequestScheduler {
+
+    // minimum time between two sent requests
+    static final long COALESCE_WINDOW_MS = 1000;
+
+    enum Decision {
+        SEND,
+        // the in flight request or the current suggestion is already for this status
+        SKIP,
+        // a request was sent within the window, try again on a later tick
+        WAIT
+    }
+
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong superseded = new AtomicLong();
+
+    // id of the latest request, responses of older requests are dropped
+    private volatile long current;
+    private boolean inFlight;
+    private Call call;
+    private byte[] lastStatus;
+    private long lastSentAt;
+
+    /**
+     * Decides what to do with a wanted request for the status. Fresh is whether the current suggestion is a recent
+     * successful response, so an identical request can be skipped.
+     */
+    synchronized Decision decide(byte[] status, boolean fresh, long now) {
+        boolean same = Arrays.equals(status, lastStatus);
+        if (same && (inFlight || fresh)) {
+            return Decision.SKIP;
+        }
+        if (now - lastSentAt < COALESCE_WINDOW_MS) {
+            return Decision.WAIT;
+        }
+        return Decision.SEND;
+    }
+
+    /**
+     * Records a skipped request, triggers is the number of times a suggestion was asked for since the last request.
+     */
+    synchronized void skip(int triggers) {
+        if (inFlight) {
+            coalesced.addAndGet(triggers);
+        } else {
+            skipped.incrementAndGet();
+            coalesced.addAndGet(Math.max(0, triggers - 1));
+        }
+    }
+
+    /**
+     * Records a request about to be sent for the status, cancelling the in flight request if any. Returns the id to
+     * check responses against with {@link #isCurrent}.
+     */
+    synchronized long begin(byte[] status, int triggers, long now) {
+        if (inFlight) {
+            superseded.incrementAndGet();
+            if (call != null) {
+                call.cancel();
+            }
+            log.debug("superseding in flight suggestion request {}", current);
+        }
+        inFlight = true;
+        call = null;
+        lastStatus = status;
+        lastSentAt = now;
+        sent.incrementAndGet();
+        coalesced.addAndGet(Math.max(0, triggers - 1));
+        return ++current;
+    }
+
+    synchronized void sent(long id, Call call) {
+        if (id == current && inFlight) {
+            this.call = call;
+        }
+    }
+
+    boolean isCurrent(long id) {
+        return id == current;
+    }
+
+    synchronized void completed(long id) {
+        if (id == current) {
+            inFlight = false;
+            call = null;
+        }
+    }
+
+    public long getSent() {
+        return sent.get();
+    }
+
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    public long getSkipped() {
+        return skipped.get();
+    }
+
+    public long getSuperseded() {
+        return superseded.get();
+    }
+}
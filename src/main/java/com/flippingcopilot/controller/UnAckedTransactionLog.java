@@ -0,0 +1,310 @@
+package com.flippingcopilot.controller;
+
+import com.flippingcopilot.model.Transaction;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+/**
+ * The un acked transactions of an account backed by an append only log file, so that adding a transaction or acking a
+ * batch writes only that change rather than the whole list. Each record is CRC32 checked, a record torn by a crash
+ * mid write fails the check and is cut off when the log is opened. Acks are written as tombstones and the log is
+ * rewritten with only the un acked transactions once the dead records outnumber them.
+ */
+@Slf4j
+public class UnAckedTransactionLog {
+
+    // file layout: magic, version, then the records
+    private static final int MAGIC = 0x46435557;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    // record layout: payload length, CRC32 of the type and payload, type, payload
+    private static final int RECORD_HEADER_SIZE = 9;
+    private static final byte ADD = 1;
+    // the payload is the acked transaction's id
+    private static final byte ACK = 2;
+    private static final int ACK_SIZE = 16;
+    static final int COMPACT_MIN_DEAD = 256;
+
+    // null when the log is only held in memory
+    private final File file;
+    private FileChannel channel;
+    private final List<Transaction> transactions;
+    private final Set<UUID> ids = new HashSet<>();
+    // acked add records and their tombstones
+    private int dead;
+
+    private UnAckedTransactionLog(File file, FileChannel channel, List<Transaction> transactions, int dead) {
+        this.file = file;
+        this.channel = channel;
+        this.transactions = transactions;
+        this.dead = dead;
+        for (Transaction t : transactions) {
+            ids.add(t.getId());
+        }
+    }
+
+    /**
+     * A log that isn't written anywhere, for when the file can't be opened.
+     */
+    public static UnAckedTransactionLog inMemory() {
+        return new UnAckedTransactionLog(null, null, new ArrayList<>(), 0);
+    }
+
+    public static UnAckedTransactionLog open(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+        try {
+            ByteBuffer b = ByteBuffer.allocate((int) channel.size());
+            while (b.hasRemaining() && channel.read(b) >= 0) {
+                // read the whole log, it only holds the transactions since the last compaction
+            }
+            b.flip();
+            Map<UUID, Transaction> live = new LinkedHashMap<>();
+            int dead = 0;
+            if (b.remaining() < HEADER_SIZE || b.getInt() != MAGIC || b.getInt() != VERSION) {
+                if (b.limit() > 0) {
+                    log.warn("un acked transaction log {} has an unknown header, starting a new log", file);
+                }
+                channel.truncate(0);
+                writeFully(channel, header());
+            } else {
+                int end = replay(b, live);
+                dead = replayDead(b, end, live);
+                if (end < b.limit()) {
+                    log.warn("cutting {} torn bytes off the end of un acked transaction log {}", b.limit() - end, file);
+                    channel.truncate(end);
+                }
+            }
+            channel.position(channel.size());
+            UnAckedTransactionLog l = new UnAckedTransactionLog(file, channel, new ArrayList<>(live.values()), dead);
+            l.compactIfNeeded();
+            return l;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * A copy of the un acked transactions, oldest first.
+     */
+    public synchronized List<Transaction> transactions() {
+        return new ArrayList<>(transactions);
+    }
+
+    public synchronized void append(Transaction t) {
+        if (!ids.add(t.getId())) {
+            return;
+        }
+        transactions.add(t);
+        ByteBuffer b = ByteBuffer.allocate(RECORD_HEADER_SIZE + Transaction.RAW_SIZE);
+        int start = beginRecord(b, ADD, Transaction.RAW_SIZE);
+        t.writeRaw(b);
+        endRecord(b, start);
+        b.flip();
+        write(b);
+    }
+
+    public synchronized void ack(Collection<Transaction> acked) {
+        Set<Transaction> toRemove = Collections.newSetFromMap(new IdentityHashMap<>());
+        toRemove.addAll(acked);
+        ByteBuffer b = ByteBuffer.allocate(acked.size() * (RECORD_HEADER_SIZE + ACK_SIZE));
+        int n = 0;
+        for (Transaction t : transactions) {
+            if (toRemove.contains(t)) {
+                int start = beginRecord(b, ACK, ACK_SIZE);
+                b.putLong(t.getId().getMostSignificantBits());
+                b.putLong(t.getId().getLeastSignificantBits());
+                endRecord(b, start);
+                ids.remove(t.getId());
+                n++;
+            }
+        }
+        if (n == 0) {
+            return;
+        }
+        transactions.removeAll(toRemove);
+        dead += 2 * n;
+        b.flip();
+        write(b);
+        compactIfNeeded();
+    }
+
+    private void compactIfNeeded() {
+        if (dead >= COMPACT_MIN_DEAD && dead > transactions.size()) {
+            compact();
+        }
+    }
+
+    private void compact() {
+        if (channel == null) {
+            return;
+        }
+        // write the live records to a temp file first so a crash mid compaction leaves the old log intact
+        File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (FileChannel out = FileChannel.open(tmp.toPath(), StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer b = ByteBuffer.allocate(HEADER_SIZE + transactions.size() * (RECORD_HEADER_SIZE + Transaction.RAW_SIZE));
+            b.put(header());
+            for (Transaction t : transactions) {
+                int start = beginRecord(b, ADD, Transaction.RAW_SIZE);
+                t.writeRaw(b);
+                endRecord(b, start);
+            }
+            b.flip();
+            writeFully(out, b);
+            out.force(true);
+        } catch (IOException e) {
+            log.warn("error compacting un acked transaction log {}", file, e);
+            return;
+        }
+        try {
+            channel.close();
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            log.debug("compacted un acked transaction log {} dropping {} dead records", file, dead);
+            dead = 0;
+        } catch (IOException e) {
+            log.warn("error replacing un acked transaction log {}", file, e);
+            reopen();
+        }
+    }
+
+    private void reopen() {
+        try {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            log.warn("error reopening un acked transaction log {}, transactions will only be held in memory", file, e);
+            channel = null;
+        }
+    }
+
+    /**
+     * Closes the log file, later changes are only held in memory.
+     */
+    public synchronized void close() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("error closing un acked transaction log {}", file, e);
+        }
+        channel = null;
+    }
+
+    private void write(ByteBuffer b) {
+        if (channel == null) {
+            return;
+        }
+        long start = -1;
+        try {
+            start = channel.size();
+            writeFully(channel, b);
+        } catch (IOException e) {
+            log.warn("error appending to un acked transaction log {}", file, e);
+            cutOff(start);
+        }
+    }
+
+    private void cutOff(long start) {
+        // a partly written record would fail its check on the next open and hide every record appended after it
+        try {
+            if (start < 0) {
+                throw new IOException("log size unknown");
+            }
+            channel.truncate(start);
+        } catch (IOException e) {
+            log.warn("error truncating un acked transaction log {}, transactions will only be held in memory", file, e);
+            close();
+        }
+    }
+
+    /**
+     * Replays the records into live, returning the end of the last intact record.
+     */
+    private static int replay(ByteBuffer b, Map<UUID, Transaction> live) {
+        CRC32 crc = new CRC32();
+        int end = b.position();
+        while (b.remaining() >= RECORD_HEADER_SIZE) {
+            int length = b.getInt();
+            int checksum = b.getInt();
+            if (length < 0 || length > b.remaining() - 1) {
+                break;
+            }
+            crc.reset();
+            crc.update(b.array(), b.position(), length + 1);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            byte type = b.get();
+            int next = b.position() + length;
+            if (type == ADD && length == Transaction.RAW_SIZE) {
+                Transaction t = Transaction.readRaw(b);
+                live.putIfAbsent(t.getId(), t);
+            } else if (type == ACK && length == ACK_SIZE) {
+                live.remove(new UUID(b.getLong(), b.getLong()));
+            }
+            b.position(next);
+            end = next;
+        }
+        return end;
+    }
+
+    private static int replayDead(ByteBuffer b, int end, Map<UUID, Transaction> live) {
+        // every intact record that isn't one of the live adds is dead
+        int records = 0;
+        b.position(HEADER_SIZE);
+        while (b.position() < end) {
+            int length = b.getInt();
+            b.position(b.position() + 4 + 1 + length);
+            records++;
+        }
+        return records - live.size();
+    }
+
+    private static int beginRecord(ByteBuffer b, byte type, int length) {
+        int start = b.position();
+        b.putInt(length);
+        b.putInt(0);
+        b.put(type);
+        return start;
+    }
+
+    private static void endRecord(ByteBuffer b, int start) {
+        CRC32 crc = new CRC32();
+        crc.update(b.array(), start + 8, b.position() - start - 8);
+        b.putInt(start + 4, (int) crc.getValue());
+    }
+
+    private static ByteBuffer header() {
+        ByteBuffer b = ByteBuffer.allocate(HEADER_SIZE);
+        b.putInt(MAGIC);
+        b.putInt(VERSION);
+        b.flip();
+        return b;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer b) throws IOException {
+        while (b.hasRemaining()) {
+            channel.write(b);
+        }
+    }
+}
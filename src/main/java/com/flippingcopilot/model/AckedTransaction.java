@@ -4,10 +4,11 @@ import com.google.protobuf.WireFormat;
 import lombok.*;
 import lombok.extern.slf4j.Slf4j;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.Arrays;
 import java.util.UUID;
 
 @Getter
@@ -73,38 +74,40 @@ public class AckedTransaction {
         return b.array();
     }
 
-    public static byte[] listDecodeProto(byte[] bytes) {
-        ByteArrayOutputStream rawTransactions = new ByteArrayOutputStream();
-        if (bytes == null || bytes.length == 0) {
-            return rawTransactions.toByteArray();
-        }
-        try {
-            CodedInputStream input = CodedInputStream.newInstance(bytes);
-            while (!input.isAtEnd()) {
-                int tag = input.readTag();
-                if (tag == 0) {
-                    break;
-                }
-                if (WireFormat.getTagFieldNumber(tag) == 1) {
-                    AckedTransaction transaction = decodeProto(input.readByteArray());
-                    if (transaction != null) {
-                        byte[] raw = transaction.toRaw();
-                        rawTransactions.write(raw, 0, raw.length);
-                    }
-                } else {
-                    input.skipField(tag);
+    /**
+     * Decodes a client transactions list from a stream straight into concatenated raw records, see {@link #toRaw}.
+     * The expected length (-1 if unknown) is used to pre-size the records buffer.
+     */
+    public static byte[] listDecodeProto(InputStream in, long expectedLength) throws IOException {
+        // a larger read buffer than the 4KB default cuts the per field refill checks of the stream decoder
+        CodedInputStream input = CodedInputStream.newInstance(in, 64 * 1024);
+        // encoded transactions are rarely under 50 bytes, so the buffer rarely needs to grow
+        long expectedCount = expectedLength > 0 ? expectedLength / 50 + 1 : 1024;
+        ByteBuffer raw = ByteBuffer.allocate((int) Math.min(expectedCount * RAW_SIZE, Integer.MAX_VALUE - RAW_SIZE));
+        int n = 0;
+        while (!input.isAtEnd()) {
+            int tag = input.readTag();
+            if (tag == 0) {
+                break;
+            }
+            if (WireFormat.getTagFieldNumber(tag) == 1) {
+                if ((n + 1) * RAW_SIZE > raw.capacity()) {
+                    raw = ByteBuffer.wrap(Arrays.copyOf(raw.array(), raw.capacity() + (raw.capacity() >> 1) + RAW_SIZE));
                 }
+                int length = input.readRawVarint32();
+                int limit = input.pushLimit(length);
+                decodeRaw(input, raw, n * RAW_SIZE);
+                input.popLimit(limit);
+                n++;
+            } else {
+                input.skipField(tag);
             }
-        } catch (IOException | IllegalArgumentException e) {
-            log.warn("failed decoding client transactions proto", e);
         }
-        return rawTransactions.toByteArray();
+        return raw.capacity() == n * RAW_SIZE ? raw.array() : Arrays.copyOf(raw.array(), n * RAW_SIZE);
     }
 
-    private static AckedTransaction decodeProto(byte[] bytes) throws IOException {
-        AckedTransaction transaction = new AckedTransaction();
-        transaction.clientFlipId = new UUID(0L, 0L);
-        CodedInputStream input = CodedInputStream.newInstance(bytes);
+    private static void decodeRaw(CodedInputStream input, ByteBuffer raw, int o) throws IOException {
+        // fields are written at their toRaw offsets, the client flip id stays zero if absent
         while (!input.isAtEnd()) {
             int tag = input.readTag();
             if (tag == 0) {
@@ -112,41 +115,41 @@ public class AckedTransaction {
             }
             switch (WireFormat.getTagFieldNumber(tag)) {
                 case 1:
-                    transaction.id = decodeUuid(input.readByteArray());
+                    decodeRawUuid(input, raw, o);
                     break;
                 case 2:
-                    transaction.clientFlipId = decodeUuid(input.readByteArray());
+                    decodeRawUuid(input, raw, o + 16);
                     break;
                 case 3:
-                    transaction.accountId = input.readInt32();
+                    raw.putInt(o + 32, input.readInt32());
                     break;
                 case 4:
-                    transaction.time = input.readInt32();
+                    raw.putInt(o + 36, input.readInt32());
                     break;
                 case 5:
-                    transaction.itemId = input.readInt32();
+                    raw.putInt(o + 40, input.readInt32());
                     break;
                 case 6:
-                    transaction.quantity = input.readInt32();
+                    raw.putInt(o + 44, input.readInt32());
                     break;
                 case 11:
-                    transaction.price = input.readInt64();
+                    raw.putLong(o + 48, input.readInt64());
                     break;
                 case 12:
-                    transaction.amountSpent = input.readInt64();
+                    raw.putLong(o + 56, input.readInt64());
                     break;
                 default:
                     input.skipField(tag);
             }
         }
-        return transaction;
     }
 
-    private static UUID decodeUuid(byte[] bytes) throws IOException {
-        if (bytes.length != 16) {
+    private static void decodeRawUuid(CodedInputStream input, ByteBuffer raw, int o) throws IOException {
+        if (input.readRawVarint32() != 16) {
             throw new IOException("UUID data must be exactly 16 bytes");
         }
-        ByteBuffer b = ByteBuffer.wrap(bytes).order(ByteOrder.BIG_ENDIAN);
-        return new UUID(b.getLong(), b.getLong());
+        // the UUID bytes are big endian like the raw layout
+        raw.putLong(o, Long.reverseBytes(input.readRawLittleEndian64()));
+        raw.putLong(o + 8, Long.reverseBytes(input.readRawLittleEndian64()));
     }
 }
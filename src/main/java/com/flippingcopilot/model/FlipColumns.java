@@ -0,0 +1,225 @@
+package com.flippingcopilot.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.UUID;
+
+/**
+ * Columnar {@link FlipRows} implementation. Each flip field is held in a primitive array (the id is packed as two
+ * longs) so a row costs ~90 bytes instead of a ~140 byte FlipV2 object plus UUID. FlipV2 instances are only materialized
+ * when a row is read through {@link #get(int)}, e.g. for the flips shown on a page. All rows belong to one account.
+ */
+class FlipColumns extends FlipRows {
+
+    private static final FlipStatus[] STATUSES = FlipStatus.values();
+    private static final int INITIAL_CAPACITY = 4;
+
+    private final int accountId;
+    private int size;
+
+    private long[] idMsb = new long[INITIAL_CAPACITY];
+    private long[] idLsb = new long[INITIAL_CAPACITY];
+    private int[] itemId = new int[INITIAL_CAPACITY];
+    private int[] openedTime = new int[INITIAL_CAPACITY];
+    private int[] openedQuantity = new int[INITIAL_CAPACITY];
+    private long[] spent = new long[INITIAL_CAPACITY];
+    private int[] closedTime = new int[INITIAL_CAPACITY];
+    private int[] closedQuantity = new int[INITIAL_CAPACITY];
+    private long[] receivedPostTax = new long[INITIAL_CAPACITY];
+    private long[] profit = new long[INITIAL_CAPACITY];
+    private long[] taxPaid = new long[INITIAL_CAPACITY];
+    private byte[] status = new byte[INITIAL_CAPACITY];
+    private int[] updatedTime = new int[INITIAL_CAPACITY];
+    private boolean[] deleted = new boolean[INITIAL_CAPACITY];
+    private int[] portfolioId = new int[INITIAL_CAPACITY];
+    private long[] seqNo = new long[INITIAL_CAPACITY];
+    private int[] userId = new int[INITIAL_CAPACITY];
+
+    FlipColumns(int accountId) {
+        this.accountId = accountId;
+    }
+
+    @Override
+    int size() {
+        return size;
+    }
+
+    @Override
+    int closedTime(int i) {
+        return closedTime[i];
+    }
+
+    @Override
+    long idMsb(int i) {
+        return idMsb[i];
+    }
+
+    @Override
+    long idLsb(int i) {
+        return idLsb[i];
+    }
+
+    @Override
+    FlipV2 get(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("index " + i + ", size " + size);
+        }
+        FlipV2 f = new FlipV2();
+        f.setId(new UUID(idMsb[i], idLsb[i]));
+        f.setAccountId(accountId);
+        f.setItemId(itemId[i]);
+        f.setOpenedTime(openedTime[i]);
+        f.setOpenedQuantity(openedQuantity[i]);
+        f.setSpent(spent[i]);
+        f.setClosedTime(closedTime[i]);
+        f.setClosedQuantity(closedQuantity[i]);
+        f.setReceivedPostTax(receivedPostTax[i]);
+        f.setProfit(profit[i]);
+        f.setTaxPaid(taxPaid[i]);
+        f.setStatus(status[i] < 0 ? null : STATUSES[status[i]]);
+        f.setUpdatedTime(updatedTime[i]);
+        f.setDeleted(deleted[i]);
+        f.setPortfolioId(portfolioId[i]);
+        f.setSeqNo(seqNo[i]);
+        f.setUserId(userId[i]);
+        return f;
+    }
+
+    @Override
+    void insert(int i, FlipV2 f) {
+        if (i < 0 || i > size) {
+            throw new IndexOutOfBoundsException("index " + i + ", size " + size);
+        }
+        if (size == idMsb.length) {
+            grow();
+        }
+        if (i < size) {
+            shift(i, i + 1, size - i);
+        }
+        idMsb[i] = f.getId().getMostSignificantBits();
+        idLsb[i] = f.getId().getLeastSignificantBits();
+        itemId[i] = f.getItemId();
+        openedTime[i] = f.getOpenedTime();
+        openedQuantity[i] = f.getOpenedQuantity();
+        spent[i] = f.getSpent();
+        closedTime[i] = f.getClosedTime();
+        closedQuantity[i] = f.getClosedQuantity();
+        receivedPostTax[i] = f.getReceivedPostTax();
+        profit[i] = f.getProfit();
+        taxPaid[i] = f.getTaxPaid();
+        status[i] = f.getStatus() == null ? -1 : (byte) f.getStatus().ordinal();
+        updatedTime[i] = f.getUpdatedTime();
+        deleted[i] = f.isDeleted();
+        portfolioId[i] = f.getPortfolioId();
+        seqNo[i] = f.getSeqNo();
+        userId[i] = f.getUserId();
+        size++;
+    }
+
+    @Override
+    void delete(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("index " + i + ", size " + size);
+        }
+        if (i < size - 1) {
+            shift(i + 1, i, size - i - 1);
+        }
+        size--;
+    }
+
+    @Override
+    int itemId(int i) {
+        return itemId[i];
+    }
+
+    @Override
+    long profit(int i) {
+        return profit[i];
+    }
+
+    @Override
+    long spent(int i) {
+        return spent[i];
+    }
+
+    @Override
+    long taxPaid(int i) {
+        return taxPaid[i];
+    }
+
+    @Override
+    int portfolioId(int i) {
+        return portfolioId[i];
+    }
+
+    @Override
+    List<FlipV2> view(int from, int to) {
+        return new RowsView(from, to);
+    }
+
+    private void shift(int src, int dst, int n) {
+        System.arraycopy(idMsb, src, idMsb, dst, n);
+        System.arraycopy(idLsb, src, idLsb, dst, n);
+        System.arraycopy(itemId, src, itemId, dst, n);
+        System.arraycopy(openedTime, src, openedTime, dst, n);
+        System.arraycopy(openedQuantity, src, openedQuantity, dst, n);
+        System.arraycopy(spent, src, spent, dst, n);
+        System.arraycopy(closedTime, src, closedTime, dst, n);
+        System.arraycopy(closedQuantity, src, closedQuantity, dst, n);
+        System.arraycopy(receivedPostTax, src, receivedPostTax, dst, n);
+        System.arraycopy(profit, src, profit, dst, n);
+        System.arraycopy(taxPaid, src, taxPaid, dst, n);
+        System.arraycopy(status, src, status, dst, n);
+        System.arraycopy(updatedTime, src, updatedTime, dst, n);
+        System.arraycopy(deleted, src, deleted, dst, n);
+        System.arraycopy(portfolioId, src, portfolioId, dst, n);
+        System.arraycopy(seqNo, src, seqNo, dst, n);
+        System.arraycopy(userId, src, userId, dst, n);
+    }
+
+    private void grow() {
+        int capacity = idMsb.length + (idMsb.length >> 1) + 1;
+        idMsb = Arrays.copyOf(idMsb, capacity);
+        idLsb = Arrays.copyOf(idLsb, capacity);
+        itemId = Arrays.copyOf(itemId, capacity);
+        openedTime = Arrays.copyOf(openedTime, capacity);
+        openedQuantity = Arrays.copyOf(openedQuantity, capacity);
+        spent = Arrays.copyOf(spent, capacity);
+        closedTime = Arrays.copyOf(closedTime, capacity);
+        closedQuantity = Arrays.copyOf(closedQuantity, capacity);
+        receivedPostTax = Arrays.copyOf(receivedPostTax, capacity);
+        profit = Arrays.copyOf(profit, capacity);
+        taxPaid = Arrays.copyOf(taxPaid, capacity);
+        status = Arrays.copyOf(status, capacity);
+        updatedTime = Arrays.copyOf(updatedTime, capacity);
+        deleted = Arrays.copyOf(deleted, capacity);
+        portfolioId = Arrays.copyOf(portfolioId, capacity);
+        seqNo = Arrays.copyOf(seqNo, capacity);
+        userId = Arrays.copyOf(userId, capacity);
+    }
+
+    private class RowsView extends AbstractList<FlipV2> implements RandomAccess {
+        private final int from;
+        private final int to;
+
+        RowsView(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public FlipV2 get(int index) {
+            if (index < 0 || index >= to - from) {
+                throw new IndexOutOfBoundsException("index " + index + ", size " + (to - from));
+            }
+            return FlipColumns.this.get(from + index);
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+}
@@ -1,8 +1,7 @@
 package com.flippingcopilot.model;
 
 import com.flippingcopilot.controller.ItemController;
-import com.flippingcopilot.util.Constants;
-import lombok.RequiredArgsConstructor;
+import com.flippingcopilot.util.UuidIntMap;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
@@ -11,6 +10,7 @@ import javax.inject.Singleton;
 import javax.swing.*;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -21,22 +21,30 @@ import java.util.function.Function;
  * A bucketed aggregation strategy is used where we keep pre-computed weekly buckets of statistics and flips. For any
  * time range we can efficiently combine the weekly buckets and only have to re-calculate statistics for the partial
  * weeks on the boundaries of the time range. Have tested the UI experience with >100k flips.
+ * The whole week statistics are additionally indexed by Fenwick trees (globally and per account) so the stats for any
+ * [start, end) range are answered in O(log n), the partial boundary weeks use lazily built per week prefix sums.
+ * The flips within each week can optionally be held in a columnar store (see {@link FlipColumns}), enabled with
+ * -Dflippingcopilot.flips.columnar=true, which trades a little merge speed for a smaller heap footprint per flip.
  */
 @Slf4j
 @Singleton
-@RequiredArgsConstructor(onConstructor_ = @Inject)
 public class FlipManager {
 
-    private static final int WEEK_SECS = 7 * 24 * 60 * 60;
+    static final int WEEK_SECS = 7 * 24 * 60 * 60;
+    private static final int NO_CLOSE_TIME = Integer.MIN_VALUE;
+    private static final int MAX_INDEXED_ITEMS = 64;
+    // merges larger than this drop the order indexes rather than inserting into them one flip at a time
+    private static final int MAX_ORDER_INDEX_UPDATES = 64;
+    private static final boolean COLUMNAR_FLIP_STORE = Boolean.parseBoolean(System.getProperty("flippingcopilot.flips.columnar", "false"));
 
     public static final Comparator<FlipV2> FLIP_STATUS_TIME_COMPARATOR =
                 Comparator.comparing(FlipV2::isClosed).reversed().thenComparing(f -> f.getClosedTime() > 0 ? f.getClosedTime() : f.getOpenedTime());
 
     // dependencies
     private final ItemController itemController;
+    private final boolean columnarStore;
 
-    @Setter
-    private Runnable flipsChangedCallback = () -> {};
+    private final List<Consumer<FlipsChange>> flipsChangedListeners = new CopyOnWriteArrayList<>();
 
     // state
     @Setter
@@ -46,17 +54,68 @@ public class FlipManager {
     private Stats intervalStats = new Stats();
 
     final Map<Integer, Map<Integer, FlipV2>> lastOpenFlipByItemId = new HashMap<>();
-    final Map<UUID, Integer> existingCloseTimes = new HashMap<>();
+    final UuidIntMap existingCloseTimes = new UuidIntMap();
     final List<WeekAggregate> weeks = new ArrayList<>(365*5);
     // Non-deleted flips with portfolio_id in {-1, -2, -3, -4} (ghost + disappeared buckets),
     // kept separately from week aggregates because mergeFlip_ excludes them via isInPortfolio.
     final Map<Integer, Map<UUID, FlipV2>> missedFlipsByAccount = new HashMap<>();
+    // Fenwick trees over the weeks list positions. Rebuilt lazily after a week is inserted, otherwise kept current
+    // as flips are added to and removed from the week aggregates.
+    private StatsFenwick allWeeksIndex;
+    private final Map<Integer, StatsFenwick> accountWeeksIndex = new HashMap<>();
+    // Time ordered flips of an item per account (item id -> account id -> flips) used for item filtered views. Built
+    // lazily the first time an item is filtered on and kept current as the week aggregates change, bounded to the most
+    // recently used items.
+    final Map<Integer, Map<Integer, FlipRows>> itemIndex = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Map<Integer, FlipRows>> eldest) {
+            return size() > MAX_INDEXED_ITEMS;
+        }
+    };
+    // Flips of all accounts ordered by the flips table sort columns. Built lazily the first time the order is paged
+    // and kept current as the week aggregates change.
+    private final Map<FlipSortKey, FlipOrderIndex> orderIndexes = new EnumMap<>(FlipSortKey.class);
 
+    @Inject
+    public FlipManager(ItemController itemController) {
+        this(itemController, COLUMNAR_FLIP_STORE);
+    }
+
+    FlipManager(ItemController itemController, boolean columnarStore) {
+        this.itemController = itemController;
+        this.columnarStore = columnarStore;
+    }
 
     public synchronized Integer getIntervalAccount() {
         return intervalAccount;
     }
 
+    public synchronized int getIntervalStartTime() {
+        return intervalStartTime;
+    }
+
+    /**
+     * Returns the tracked flip with the given id, or null if there is none.
+     */
+    public synchronized FlipV2 getFlip(UUID id) {
+        int closedTime = existingCloseTimes.get(id, NO_CLOSE_TIME);
+        if (closedTime == NO_CLOSE_TIME) {
+            return null;
+        }
+        WeekAggregate w = weeks.get(firstWeekEndingAfter(closedTime));
+        for (FlipRows flips : w.accountIdToFlips.values()) {
+            int i = bisect(flips.size(), closedTimeCmp(flips, id, closedTime));
+            if (i >= 0) {
+                FlipV2 flip = flips.get(i);
+                if (itemController != null) {
+                    flip.setCachedItemName(itemController.getItemName(flip.getItemId()));
+                }
+                return flip;
+            }
+        }
+        return null;
+    }
+
     public synchronized Long estimateTransactionProfit(Integer accountId, Transaction t) {
         if (accountId != null && lastOpenFlipByItemId.containsKey(accountId)) {
             FlipV2 flip = lastOpenFlipByItemId.get(accountId).get(t.getItemId());
@@ -68,25 +127,174 @@ public class FlipManager {
     }
 
     public synchronized boolean mergeFlips(List<FlipV2> flips, int copilotUserId) {
+        FlipsChange change = new FlipsChange();
+        if (!mergeFlips(flips, copilotUserId, change)) {
+            return false;
+        }
+        fireFlipsChanged(change);
+        return true;
+    }
+
+    /**
+     * Merges one batch of a larger update into change without notifying the listeners, {@link #flipsMerged} does that
+     * once for the whole update. The sort indexes are dropped (to be rebuilt when next used) only once, when the
+     * update's flips first outnumber what's cheaper to apply to them in place.
+     */
+    public synchronized boolean mergeFlips(List<FlipV2> flips, int copilotUserId, FlipsChange change) {
         if (copilotUserId != this.copilotUserId) {
             return false;
         }
         flips.sort(FLIP_STATUS_TIME_COMPARATOR);
-        flips.forEach(this::mergeFlip_);
-        SwingUtilities.invokeLater(flipsChangedCallback);
+        int merged = change.merged;
+        change.merged += flips.size();
+        if (merged <= MAX_ORDER_INDEX_UPDATES && change.merged > MAX_ORDER_INDEX_UPDATES) {
+            orderIndexes.clear();
+        }
+        flips.forEach(f -> mergeFlip_(f, change));
         return true;
     }
 
+    /**
+     * Notifies the listeners of an update merged in batches with {@link #mergeFlips(List, int, FlipsChange)}.
+     */
+    public void flipsMerged(FlipsChange change) {
+        fireFlipsChanged(change);
+    }
+
+    /**
+     * Returns all the flips held (tracked and missed), or null if the flips are no longer of the given copilot user.
+     */
+    public synchronized List<FlipV2> getAllFlips(int copilotUserId) {
+        if (copilotUserId != this.copilotUserId) {
+            return null;
+        }
+        List<FlipV2> flips = new ArrayList<>(existingCloseTimes.size());
+        for (WeekAggregate w : weeks) {
+            for (FlipRows rows : w.accountIdToFlips.values()) {
+                for (int i = 0; i < rows.size(); i++) {
+                    flips.add(rows.get(i));
+                }
+            }
+        }
+        missedFlipsByAccount.values().forEach(byId -> flips.addAll(byId.values()));
+        return flips;
+    }
+
+    /**
+     * Adds a listener called on the swing thread with the changes of each update that changed any flips.
+     */
+    public void addFlipsChangedListener(Consumer<FlipsChange> listener) {
+        flipsChangedListeners.add(listener);
+    }
+
+    public void removeFlipsChangedListener(Consumer<FlipsChange> listener) {
+        flipsChangedListeners.remove(listener);
+    }
+
+    private void fireFlipsChanged(FlipsChange change) {
+        if (change.isEmpty()) {
+            return;
+        }
+        SwingUtilities.invokeLater(() -> flipsChangedListeners.forEach(l -> l.accept(change)));
+    }
+
     public synchronized Stats getIntervalStats() {
         return intervalStats.copy();
     }
 
     public synchronized Stats calculateStats(int startTime, Integer accountId) {
-        if(accountId == null) {
-            return calculateStatsAllAccounts(startTime);
-        } else {
-            return calculateStatsForAccount(startTime, accountId);
+        return calculateStats(startTime, Integer.MAX_VALUE, accountId);
+    }
+
+    public synchronized Stats calculateStats(int startTime, int endTime, Integer accountId) {
+        return calculateStats(startTime, endTime, accountId == null ? null : Collections.singleton(accountId));
+    }
+
+    /**
+     * Calculates the stats of the flips closed in [startTime, endTime) for the given accounts (null for all accounts).
+     */
+    public synchronized Stats calculateStats(int startTime, int endTime, Set<Integer> accountIds) {
+        Stats stats = new Stats();
+        // weeks [first, end) overlap the time range, only the first and last can be partially covered
+        int first = firstWeekEndingAfter(startTime);
+        int end = firstWeekStartingFrom(endTime);
+        if (first >= end) {
+            return stats;
+        }
+        weeks.get(first).addStats(stats, startTime, endTime, accountIds);
+        if (end - 1 > first) {
+            weeks.get(end - 1).addStats(stats, startTime, endTime, accountIds);
+            ensureWeeksIndex();
+            if (accountIds == null) {
+                allWeeksIndex.addRange(stats, first + 1, end - 1);
+            } else {
+                for (Integer accountId : accountIds) {
+                    StatsFenwick f = accountWeeksIndex.get(accountId);
+                    if (f != null) {
+                        f.addRange(stats, first + 1, end - 1);
+                    }
+                }
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Returns the account aggregate (without account name) of the flips closed in [startTime, endTime).
+     */
+    public synchronized AccountAggregate calculateAccountAggregate(int startTime, int endTime, int accountId) {
+        Stats stats = calculateStats(startTime, endTime, accountId);
+        long minProfit = Long.MAX_VALUE;
+        long maxProfit = Long.MIN_VALUE;
+        for (int i = firstWeekEndingAfter(startTime); i < weeks.size() && weeks.get(i).weekStart < endTime; i++) {
+            WeekAggregate w = weeks.get(i);
+            FlipRows flips = w.accountIdToFlips.get(accountId);
+            if (flips != null) {
+                int from = w.cut(flips, startTime);
+                int to = w.cut(flips, endTime);
+                minProfit = Math.min(minProfit, flips.minProfit(from, to));
+                maxProfit = Math.max(maxProfit, flips.maxProfit(from, to));
+            }
+        }
+        return AccountAggregate.builder()
+                .accountId(accountId)
+                .numberOfFlips(stats.flipsMade)
+                .totalProfit(stats.profit)
+                .biggestLoss(Math.min(minProfit, 0))
+                .biggestWin(Math.max(maxProfit, 0))
+                .build();
+    }
+
+    public synchronized Set<Integer> getAccountIds() {
+        Set<Integer> accountIds = new HashSet<>();
+        for (WeekAggregate w : weeks) {
+            w.accountIdToFlips.forEach((accountId, flips) -> {
+                if (flips.size() > 0) {
+                    accountIds.add(accountId);
+                }
+            });
+        }
+        return accountIds;
+    }
+
+    /**
+     * Returns the earliest closed time at or after the given time, or -1 if no flip closed since then.
+     */
+    public synchronized int firstClosedTime(int time) {
+        for (int i = firstWeekEndingAfter(time); i < weeks.size(); i++) {
+            WeekAggregate w = weeks.get(i);
+            int first = Integer.MAX_VALUE;
+            for (FlipRows flips : w.accountIdToFlips.values()) {
+                int cut = w.cut(flips, time);
+                if (cut < flips.size()) {
+                    first = Math.min(first, flips.closedTime(cut));
+                }
+            }
+            if (first != Integer.MAX_VALUE) {
+                return first;
+            }
         }
+        return -1;
     }
 
     public synchronized void setIntervalAccount(Integer account) {
@@ -107,37 +315,9 @@ public class FlipManager {
     }
 
     private void recalculateIntervalStats() {
-        if(intervalAccount == null) {
-            intervalStats = calculateStatsAllAccounts(intervalStartTime);
-        } else {
-            intervalStats = calculateStatsForAccount(intervalStartTime, intervalAccount);
-        }
+        intervalStats = calculateStats(intervalStartTime, intervalAccount);
         log.debug("interval flips updated to {}, interval profit updated to {}", intervalStats.flipsMade, intervalStats.profit);
-        SwingUtilities.invokeLater(flipsChangedCallback);
-    }
-
-    private Stats calculateStatsAllAccounts(int startTime) {
-        Stats stats = new Stats();
-        WeekAggregate w = getOrInitWeek(startTime);
-        for (FlipV2 f : w.flipsAfter(startTime, false)) {
-            stats.addFlip(f);
-        }
-        for(int i=w.pos+1; i < weeks.size(); i++) {
-            stats.add(weeks.get(i).allStats);
-        }
-        return stats;
-    }
-
-    private Stats calculateStatsForAccount(int startTime, int accountId) {
-        Stats stats = new Stats();
-        WeekAggregate w = getOrInitWeek(startTime);
-        for (FlipV2 f : w.flipsAfterForAccount(startTime, accountId)) {
-            stats.addFlip(f);
-        }
-        for(int i=w.pos+1; i < weeks.size(); i++) {
-            stats.add(weeks.get(i).accountIdToStats.get(accountId));
-        }
-        return stats;
+        fireFlipsChanged(FlipsChange.ofInterval());
     }
 
     public List<FlipV2> getPageFlips(int page, int pageSize) {
@@ -172,12 +352,107 @@ public class FlipManager {
             for(int ii=n-1; ii >= 0; ii--) {
                 FlipV2 f = weekFlips.get(ii);
                 if (isTrackedFlip(f)) {
+                    if (columnarStore && itemController != null) {
+                        // materialized views don't carry the item name
+                        f.setCachedItemName(itemController.getItemName(f.getItemId()));
+                    }
                     c.accept(f);
                 }
             }
         }
     }
 
+    /**
+     * Calculates the stats of the flips of the given items closed at or after startTime.
+     */
+    public synchronized Stats calculateStats(int startTime, Integer accountId, Set<Integer> itemIds) {
+        if (itemIds == null || itemIds.isEmpty()) {
+            return calculateStats(startTime, accountId);
+        }
+        Stats stats = new Stats();
+        for (FlipRows flips : itemFlipRows(itemIds, accountId)) {
+            flips.addStats(stats, firstClosedFrom(flips, startTime), flips.size());
+        }
+        return stats;
+    }
+
+    /**
+     * Returns a page of the flips of the given items closed at or after intervalStartTime, most recently closed first.
+     * Only the flips of the filtered items are visited.
+     */
+    public synchronized List<FlipV2> getPageFlips(int page, int pageSize, int intervalStartTime, Integer accountId, Set<Integer> itemIds) {
+        if (itemIds == null || itemIds.isEmpty()) {
+            return getPageFlips(page, pageSize, intervalStartTime, accountId);
+        }
+        if (Objects.equals(accountId,-1)) {
+            return new ArrayList<>();
+        }
+        List<FlipRows> lists = itemFlipRows(itemIds, accountId);
+        int k = lists.size();
+        int[] low = new int[k];
+        int[] next = new int[k];
+        for (int j = 0; j < k; j++) {
+            low[j] = firstClosedFrom(lists.get(j), intervalStartTime);
+            next[j] = lists.get(j).size() - 1;
+        }
+        int toSkip = (page -1) * pageSize;
+        if (k == 1) {
+            next[0] -= toSkip;
+            toSkip = 0;
+        }
+        List<FlipV2> pageFlips = new ArrayList<>(pageSize == Integer.MAX_VALUE ? 0 : pageSize);
+        while (pageFlips.size() < pageSize) {
+            // k-way merge, most recent (closed time then id) first
+            int best = -1;
+            for (int j = 0; j < k; j++) {
+                if (next[j] < low[j]) {
+                    continue;
+                }
+                if (best < 0 || compareRows(lists.get(j), next[j], lists.get(best), next[best]) > 0) {
+                    best = j;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            if (toSkip > 0) {
+                toSkip--;
+            } else {
+                pageFlips.add(lists.get(best).get(next[best]));
+            }
+            next[best]--;
+        }
+        if (itemController != null) {
+            pageFlips.forEach(flip -> flip.setCachedItemName(itemController.getItemName(flip.getItemId())));
+        }
+        return pageFlips;
+    }
+
+    /**
+     * Returns a page of the flips closed at or after intervalStartTime ordered by the sort key (ascending unless
+     * reversed).
+     * Flips with equal keys are ordered most recently closed first.
+     */
+    public synchronized List<FlipV2> getSortedPageFlips(int page, int pageSize, int intervalStartTime, Integer accountId, FlipSortKey sortKey, boolean reversed) {
+        if (Objects.equals(accountId,-1)) {
+            return new ArrayList<>();
+        }
+        FlipOrderIndex index = orderIndexes.get(sortKey);
+        if (index == null || (sortKey == FlipSortKey.ITEM_NAME && index.itemNamesChanged(this::itemName))) {
+            index = buildOrderIndex(sortKey);
+            orderIndexes.put(sortKey, index);
+        }
+        int[] positions = index.page((page -1) * pageSize, pageSize, intervalStartTime, accountId, reversed);
+        List<FlipV2> pageFlips = new ArrayList<>(positions.length);
+        for (int i : positions) {
+            pageFlips.add(findFlip(index.accountId(i), index.closedTime(i), index.id(i)));
+        }
+        if (itemController != null) {
+            pageFlips.forEach(flip -> flip.setCachedItemName(itemController.getItemName(flip.getItemId())));
+        }
+        return pageFlips;
+    }
+
     public synchronized List<FlipV2> getPageFlips(int page, int pageSize, int intervalStartTime, Integer accountId) {
         if (Objects.equals(accountId,-1)) {
             return new ArrayList<>();
@@ -191,19 +466,22 @@ public class FlipManager {
                 break;
             }
             WeekAggregate w = weeks.get(i);
+            // all flips held in the week aggregates are tracked so whole weeks can be skipped by their count without
+            // having to build (or materialize) their flips
+            int weekCount = w.countAfter(intervalStartTime, accountId);
+            if (toSkip >= weekCount) {
+                toSkip -= weekCount;
+                continue;
+            }
             List<FlipV2> weekFlips = accountId == null ? w.flipsAfter(intervalStartTime, true) : w.flipsAfterForAccount(intervalStartTime, accountId);
             int n = weekFlips.size();
-            for(int ii=n-1; ii >= 0 && pageFlips.size() < pageSize; ii--) {
+            for(int ii=n-1-toSkip; ii >= 0 && pageFlips.size() < pageSize; ii--) {
                 FlipV2 flip = weekFlips.get(ii);
-                if (!isTrackedFlip(flip)) {
-                    continue;
-                }
-                if (toSkip > 0) {
-                    toSkip -= 1;
-                    continue;
+                if (isTrackedFlip(flip)) {
+                    pageFlips.add(flip);
                 }
-                pageFlips.add(flip);
             }
+            toSkip = 0;
         }
         if (itemController != null) {
             pageFlips.forEach(flip -> flip.setCachedItemName(itemController.getItemName(flip.getItemId())));
@@ -220,6 +498,9 @@ public class FlipManager {
         existingCloseTimes.clear();
         weeks.clear();
         missedFlipsByAccount.clear();
+        invalidateWeeksIndex();
+        itemIndex.clear();
+        orderIndexes.clear();
     }
 
     public synchronized boolean isGhostFlip(int accountId, UUID flipId) {
@@ -249,12 +530,13 @@ public class FlipManager {
         return result;
     }
 
-    private void mergeFlip_(FlipV2 flip) {
-        Integer existingCloseTime = existingCloseTimes.get(flip.getId());
+    private void mergeFlip_(FlipV2 flip, FlipsChange change) {
+        int existingCloseTime = existingCloseTimes.get(flip.getId(), NO_CLOSE_TIME);
 
-        if(existingCloseTime != null) {
+        FlipV2 removed = null;
+        if(existingCloseTime != NO_CLOSE_TIME) {
             WeekAggregate wa = getOrInitWeek(existingCloseTime);
-            FlipV2 removed = wa.removeFlipIfUpdatedBefore(existingCloseTime, flip);
+            removed = wa.removeFlipIfUpdatedBefore(existingCloseTime, flip);
             if (removed == null) {
                 // the flip we are merging is an out of date instance of the same flip
                 return;
@@ -264,6 +546,9 @@ public class FlipManager {
             }
         }
         if(flip.isDeleted() || !PortfolioId.isInPortfolio(flip.getPortfolioId())) {
+            if (removed != null) {
+                change.removed(removed);
+            }
             existingCloseTimes.remove(flip.getId());
             Map<Integer, FlipV2> openByItem = lastOpenFlipByItemId.get(flip.getAccountId());
             if (openByItem != null) {
@@ -277,6 +562,11 @@ public class FlipManager {
         }
         WeekAggregate wa = getOrInitWeek(flip.getClosedTime());
         wa.addFlip(flip);
+        if (removed != null) {
+            change.updated(removed, flip);
+        } else {
+            change.added(flip);
+        }
         if(isInInterval(flip)) {
             intervalStats.addFlip(flip);
         }
@@ -330,13 +620,183 @@ public class FlipManager {
         wf.weekEnd = ws + WEEK_SECS;
         wf.pos = -i-1;
         weeks.add(wf.pos, wf);
+        invalidateWeeksIndex();
         return wf;
     }
 
+    private int firstWeekEndingAfter(int time) {
+        int low = 0;
+        int high = weeks.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (weeks.get(mid).weekEnd <= time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int firstWeekStartingFrom(int time) {
+        int low = 0;
+        int high = weeks.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (weeks.get(mid).weekStart < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void invalidateWeeksIndex() {
+        allWeeksIndex = null;
+        accountWeeksIndex.clear();
+    }
+
+    private void ensureWeeksIndex() {
+        if (allWeeksIndex != null) {
+            return;
+        }
+        int n = weeks.size();
+        Stats[] all = new Stats[n];
+        Map<Integer, Stats[]> byAccount = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            WeekAggregate w = weeks.get(i);
+            all[i] = w.allStats;
+            for (Map.Entry<Integer, Stats> e : w.accountIdToStats.entrySet()) {
+                byAccount.computeIfAbsent(e.getKey(), (k) -> new Stats[n])[i] = e.getValue();
+            }
+        }
+        allWeeksIndex = StatsFenwick.of(all);
+        byAccount.forEach((accountId, stats) -> accountWeeksIndex.put(accountId, StatsFenwick.of(stats)));
+    }
+
+    private List<FlipRows> itemFlipRows(Set<Integer> itemIds, Integer accountId) {
+        List<FlipRows> lists = new ArrayList<>();
+        for (Integer itemId : itemIds) {
+            Map<Integer, FlipRows> byAccount = itemIndex.get(itemId);
+            if (byAccount == null) {
+                byAccount = buildItemIndex(itemId);
+                itemIndex.put(itemId, byAccount);
+            }
+            if (accountId == null) {
+                lists.addAll(byAccount.values());
+            } else if (byAccount.containsKey(accountId)) {
+                lists.add(byAccount.get(accountId));
+            }
+        }
+        return lists;
+    }
+
+    private Map<Integer, FlipRows> buildItemIndex(int itemId) {
+        Map<Integer, FlipRows> byAccount = new HashMap<>();
+        // weeks and the rows within them are in ascending order so rows can simply be appended
+        for (WeekAggregate w : weeks) {
+            w.accountIdToFlips.forEach((accountId, flips) -> {
+                for (int i = 0; i < flips.size(); i++) {
+                    if (flips.itemId(i) == itemId) {
+                        FlipRows itemFlips = byAccount.computeIfAbsent(accountId, this::newFlipRows);
+                        itemFlips.add(itemFlips.size(), flips.get(i));
+                    }
+                }
+            });
+        }
+        return byAccount;
+    }
+
+    private void updateItemIndex(FlipV2 flip, int closedTime, boolean add) {
+        Map<Integer, FlipRows> byAccount = itemIndex.get(flip.getItemId());
+        if (byAccount == null) {
+            return;
+        }
+        FlipRows flips = byAccount.computeIfAbsent(flip.getAccountId(), this::newFlipRows);
+        int i = bisect(flips.size(), closedTimeCmp(flips, flip.getId(), closedTime));
+        if (add) {
+            flips.add(-i - 1, flip);
+        } else if (i >= 0) {
+            flips.remove(i);
+        }
+    }
+
+    private FlipOrderIndex buildOrderIndex(FlipSortKey sortKey) {
+        FlipOrderIndex index = new FlipOrderIndex(sortKey);
+        for (WeekAggregate w : weeks) {
+            for (FlipRows flips : w.accountIdToFlips.values()) {
+                for (int i = 0; i < flips.size(); i++) {
+                    index.append(flips.get(i));
+                }
+            }
+        }
+        index.sort(this::itemName);
+        return index;
+    }
+
+    private void updateOrderIndexes(FlipV2 flip, int closedTime, boolean add) {
+        for (FlipOrderIndex index : orderIndexes.values()) {
+            if (add) {
+                index.add(flip, this::itemName);
+            } else {
+                index.remove(flip, closedTime);
+            }
+        }
+    }
+
+    private FlipV2 findFlip(int accountId, int closedTime, UUID id) {
+        WeekAggregate w = weeks.get(firstWeekEndingAfter(closedTime));
+        FlipRows flips = w.accountIdToFlips.get(accountId);
+        return flips.get(bisect(flips.size(), closedTimeCmp(flips, id, closedTime)));
+    }
+
+    private String itemName(int itemId) {
+        // same fallback as the flips table item comparator
+        return itemController == null ? "" : itemController.getItemName(itemId);
+    }
+
+    /**
+     * The index of the first row closed at or after time, whatever its id, so a range starting at time includes all
+     * the flips closed at time.
+     */
+    private static int firstClosedFrom(FlipRows flips, int time) {
+        int low = 0;
+        int high = flips.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (flips.closedTime(mid) < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int compareRows(FlipRows a, int i, FlipRows b, int j) {
+        int c = Integer.compare(a.closedTime(i), b.closedTime(j));
+        if (c == 0) {
+            c = Long.compare(a.idMsb(i), b.idMsb(j));
+        }
+        return c != 0 ? c : Long.compare(a.idLsb(i), b.idLsb(j));
+    }
+
+    private void updateWeeksIndex(int pos, FlipV2 flip, int sign) {
+        if (allWeeksIndex == null) {
+            return;
+        }
+        allWeeksIndex.addFlip(pos, flip, sign);
+        accountWeeksIndex.computeIfAbsent(flip.getAccountId(), (k) -> new StatsFenwick(weeks.size())).addFlip(pos, flip, sign);
+    }
+
     public synchronized void deleteAccount(int accountId) {
         for (WeekAggregate week : weeks) {
             week.deleteAccountFlips(accountId);
         }
+        invalidateWeeksIndex();
+        itemIndex.values().forEach(byAccount -> byAccount.remove(accountId));
+        orderIndexes.clear();
         if (intervalAccount != null && intervalAccount == accountId) {
             // change the intervalAccount if it is the one being deleted
             intervalAccount = null;
@@ -346,7 +806,7 @@ public class FlipManager {
         }
         lastOpenFlipByItemId.remove(accountId);
         missedFlipsByAccount.remove(accountId);
-        SwingUtilities.invokeLater(flipsChangedCallback);
+        fireFlipsChanged(FlipsChange.ofAccount(accountId));
     }
 
     class WeekAggregate {
@@ -357,19 +817,22 @@ public class FlipManager {
 
         Stats allStats = new Stats();
         Map<Integer, Stats> accountIdToStats = new HashMap<>(20);
-        Map<Integer, List<FlipV2>> accountIdToFlips = new HashMap<>(20);
+        Map<Integer, FlipRows> accountIdToFlips = new HashMap<>(20);
 
         void addFlip(FlipV2 flip) {
             int accountId = flip.getAccountId();
             allStats.addFlip(flip);
             accountIdToStats.computeIfAbsent(accountId, (k) -> new Stats()).addFlip(flip);
-            List<FlipV2> flips = accountIdToFlips.computeIfAbsent(accountId, (k) -> new ArrayList<>());
+            updateWeeksIndex(pos, flip, 1);
+            updateItemIndex(flip, flip.getClosedTime(), true);
+            updateOrderIndexes(flip, flip.getClosedTime(), true);
+            FlipRows flips = accountIdToFlips.computeIfAbsent(accountId, FlipManager.this::newFlipRows);
             int i = bisect(flips.size(), closedTimeCmp(flips, flip.getId(), flip.getClosedTime()));
             flips.add(-i -1, flip);
         }
 
         FlipV2 removeFlipIfUpdatedBefore(int existingCloseTime, FlipV2 updatedFlip) {
-            List<FlipV2> flips = accountIdToFlips.computeIfAbsent(updatedFlip.getAccountId(), (k) -> new ArrayList<>());
+            FlipRows flips = accountIdToFlips.computeIfAbsent(updatedFlip.getAccountId(), FlipManager.this::newFlipRows);
             int i = bisect(flips.size(), closedTimeCmp(flips, updatedFlip.getId(), existingCloseTime));
             FlipV2 flip = flips.get(i);
             // if the existing instance of the flip is updated more recently return null
@@ -379,38 +842,108 @@ public class FlipManager {
             allStats.subtractFlip(flip);
             flips.remove(i);
             accountIdToStats.get(updatedFlip.getAccountId()).subtractFlip(flip);
+            updateWeeksIndex(pos, flip, -1);
+            updateItemIndex(flip, existingCloseTime, false);
+            updateOrderIndexes(flip, existingCloseTime, false);
             return flip;
         }
 
+        int cut(FlipRows flips, int time) {
+            // index of the first row closed at or after time
+            if (time <= weekStart) {
+                return 0;
+            }
+            if (time >= weekEnd) {
+                return flips.size();
+            }
+            return firstClosedFrom(flips, time);
+        }
+
+        int countAfter(int time, Integer accountId) {
+            if (weekEnd <= time) {
+                return 0;
+            }
+            if (accountId != null) {
+                FlipRows flips = accountIdToFlips.get(accountId);
+                return flips == null ? 0 : flips.size() - cut(flips, time);
+            }
+            int n = 0;
+            for (FlipRows flips : accountIdToFlips.values()) {
+                n += flips.size() - cut(flips, time);
+            }
+            return n;
+        }
+
+        void addStats(Stats stats, int startTime, int endTime, Set<Integer> accountIds) {
+            if (accountIds == null) {
+                for (FlipRows flips : accountIdToFlips.values()) {
+                    flips.addStats(stats, cut(flips, startTime), cut(flips, endTime));
+                }
+            } else {
+                for (Integer accountId : accountIds) {
+                    FlipRows flips = accountIdToFlips.get(accountId);
+                    if (flips != null) {
+                        flips.addStats(stats, cut(flips, startTime), cut(flips, endTime));
+                    }
+                }
+            }
+        }
+
         public List<FlipV2> flipsAfterForAccount(int time, int accountId) {
             if (weekEnd <= time) {
                 return Collections.emptyList();
             }
-            List<FlipV2> flips = accountIdToFlips.computeIfAbsent(accountId, (k) -> new ArrayList<>());
-            if (time <= weekStart) {
-                return flips;
-            }
-            int cut = -bisect(flips.size(), closedTimeCmp(flips, Constants.MAX_UUID, time)) - 1;
-            return flips.subList(cut, flips.size());
+            FlipRows flips = accountIdToFlips.computeIfAbsent(accountId, FlipManager.this::newFlipRows);
+            return flips.view(cut(flips, time), flips.size());
         }
 
         public List<FlipV2> flipsAfter(int time, boolean requireSorted) {
             if (weekEnd <= time) {
                 return Collections.emptyList();
             }
-            List<FlipV2> combinedFlips = new ArrayList<>(allStats.flipsMade);
-            accountIdToFlips.keySet().forEach(i -> combinedFlips.addAll(flipsAfterForAccount(time, i)));
+            FlipRows[] parts = accountIdToFlips.values().toArray(new FlipRows[0]);
+            long[] refs = new long[countAfter(time, null)];
+            int n = 0;
+            for (int p = 0; p < parts.length; p++) {
+                for (int r = cut(parts[p], time); r < parts[p].size(); r++) {
+                    refs[n++] = ((long) p << 32) | r;
+                }
+            }
             if (requireSorted) {
-                combinedFlips.sort(Comparator.comparing(FlipV2::getClosedTime).thenComparing(FlipV2::getId));
+                // closed time ascending with id ascending as tie-breaker
+                sortRefs(refs, (a, b) -> {
+                    FlipRows pa = parts[(int) (a >>> 32)];
+                    FlipRows pb = parts[(int) (b >>> 32)];
+                    int ra = (int) a;
+                    int rb = (int) b;
+                    int c = Integer.compare(pa.closedTime(ra), pb.closedTime(rb));
+                    if (c == 0) {
+                        c = Long.compare(pa.idMsb(ra), pb.idMsb(rb));
+                    }
+                    return c != 0 ? c : Long.compare(pa.idLsb(ra), pb.idLsb(rb));
+                });
             }
-            return combinedFlips;
+            return new AbstractList<FlipV2>() {
+                @Override
+                public FlipV2 get(int index) {
+                    long ref = refs[index];
+                    return parts[(int) (ref >>> 32)].get((int) ref);
+                }
+
+                @Override
+                public int size() {
+                    return refs.length;
+                }
+            };
         }
+
         public void deleteAccountFlips(int accountId) {
-            accountIdToFlips.computeIfAbsent(accountId, (k) -> new ArrayList<>()).forEach((FlipV2 f) -> {
-                    allStats.subtractFlip(f);
+            FlipRows flips = accountIdToFlips.remove(accountId);
+            if (flips != null) {
+                for (int i = 0; i < flips.size(); i++) {
+                    allStats.subtractFlip(flips.get(i));
                 }
-            );
-            accountIdToFlips.remove(accountId);
+            }
             accountIdToStats.remove(accountId);
         }
 
@@ -421,14 +954,50 @@ public class FlipManager {
 
     }
 
-    private Function<Integer, Integer> closedTimeCmp(List<FlipV2> flips, UUID id, int time) {
+    private FlipRows newFlipRows(int accountId) {
+        return columnarStore ? new FlipColumns(accountId) : new FlipObjectRows();
+    }
+
+    private Function<Integer, Integer> closedTimeCmp(FlipRows flips, UUID id, int time) {
         return (a) -> {
             // sorts time ascending with id as tie-breaker
-            int c = Integer.compare(flips.get(a).getClosedTime(), time);
-            return c != 0 ? c : id.compareTo(flips.get(a).getId());
+            int c = Integer.compare(flips.closedTime(a), time);
+            return c != 0 ? c : -flips.compareId(a, id);
         };
     }
 
+    static void sortRefs(long[] refs, LongComparator cmp) {
+        // stable bottom-up merge sort, avoids boxing the refs to use Arrays.sort with a comparator
+        long[] src = refs;
+        long[] dst = new long[refs.length];
+        for (int width = 1; width < refs.length; width <<= 1) {
+            for (int lo = 0; lo < refs.length; lo += width << 1) {
+                int mid = Math.min(lo + width, refs.length);
+                int hi = Math.min(lo + (width << 1), refs.length);
+                int i = lo, j = mid, k = lo;
+                while (i < mid && j < hi) {
+                    dst[k++] = cmp.compare(src[j], src[i]) < 0 ? src[j++] : src[i++];
+                }
+                while (i < mid) {
+                    dst[k++] = src[i++];
+                }
+                while (j < hi) {
+                    dst[k++] = src[j++];
+                }
+            }
+            long[] t = src;
+            src = dst;
+            dst = t;
+        }
+        if (src != refs) {
+            System.arraycopy(src, 0, refs, 0, refs.length);
+        }
+    }
+
+    interface LongComparator {
+        int compare(long a, long b);
+    }
+
     private int bisect(int size, Function<Integer, Integer> cmpFunc) {
         int high = size -1;
         int low = 0;
@@ -0,0 +1,78 @@
+package com.flippingcopilot.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Default {@link FlipRows} implementation backed by a list of FlipV2 objects.
+ */
+class FlipObjectRows extends FlipRows {
+
+    private final List<FlipV2> flips = new ArrayList<>();
+
+    @Override
+    int size() {
+        return flips.size();
+    }
+
+    @Override
+    int closedTime(int i) {
+        return flips.get(i).getClosedTime();
+    }
+
+    @Override
+    long idMsb(int i) {
+        return flips.get(i).getId().getMostSignificantBits();
+    }
+
+    @Override
+    long idLsb(int i) {
+        return flips.get(i).getId().getLeastSignificantBits();
+    }
+
+    @Override
+    FlipV2 get(int i) {
+        return flips.get(i);
+    }
+
+    @Override
+    void insert(int i, FlipV2 flip) {
+        flips.add(i, flip);
+    }
+
+    @Override
+    void delete(int i) {
+        flips.remove(i);
+    }
+
+    @Override
+    int itemId(int i) {
+        return flips.get(i).getItemId();
+    }
+
+    @Override
+    long profit(int i) {
+        return flips.get(i).getProfit();
+    }
+
+    @Override
+    long spent(int i) {
+        return flips.get(i).getSpent();
+    }
+
+    @Override
+    long taxPaid(int i) {
+        return flips.get(i).getTaxPaid();
+    }
+
+    @Override
+    int portfolioId(int i) {
+        return flips.get(i).getPortfolioId();
+    }
+
+    @Override
+    List<FlipV2> view(int from, int to) {
+        return Collections.unmodifiableList(flips.subList(from, to));
+    }
+}
@@ -0,0 +1,203 @@
+package com.flippingcopilot.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * The flips of all accounts ordered by a {@link FlipSortKey}, with the most recently closed flip first for equal keys.
+ * Only the sort key and what is needed to locate a flip in its week aggregate are held, as parallel primitive arrays.
+ */
+class FlipOrderIndex {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final FlipSortKey sortKey;
+    // snapshot of the item names the ITEM_NAME order was built with, so the order can't change under the index
+    private final Map<Integer, String> itemNames = new HashMap<>();
+    private int size;
+
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private int[] closedTime = new int[INITIAL_CAPACITY];
+    private int[] accountId = new int[INITIAL_CAPACITY];
+    private long[] idMsb = new long[INITIAL_CAPACITY];
+    private long[] idLsb = new long[INITIAL_CAPACITY];
+
+    FlipOrderIndex(FlipSortKey sortKey) {
+        this.sortKey = sortKey;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int closedTime(int i) {
+        return closedTime[i];
+    }
+
+    int accountId(int i) {
+        return accountId[i];
+    }
+
+    UUID id(int i) {
+        return new UUID(idMsb[i], idLsb[i]);
+    }
+
+    /**
+     * Appends a flip without keeping the order, {@link #sort} must be called once all flips are appended.
+     */
+    void append(FlipV2 f) {
+        if (size == keys.length) {
+            grow(size + 1);
+        }
+        set(size++, f);
+    }
+
+    void sort(Function<Integer, String> itemName) {
+        if (sortKey == FlipSortKey.ITEM_NAME) {
+            for (int i = 0; i < size; i++) {
+                itemNames.computeIfAbsent((int) keys[i], itemName);
+            }
+        }
+        long[] refs = new long[size];
+        for (int i = 0; i < size; i++) {
+            refs[i] = i;
+        }
+        FlipManager.sortRefs(refs, (a, b) -> compare((int) a, keys[(int) b], closedTime[(int) b], idMsb[(int) b], idLsb[(int) b]));
+        long[] k = keys.clone();
+        int[] ct = closedTime.clone();
+        int[] acc = accountId.clone();
+        long[] msb = idMsb.clone();
+        long[] lsb = idLsb.clone();
+        for (int i = 0; i < size; i++) {
+            int r = (int) refs[i];
+            keys[i] = k[r];
+            closedTime[i] = ct[r];
+            accountId[i] = acc[r];
+            idMsb[i] = msb[r];
+            idLsb[i] = lsb[r];
+        }
+    }
+
+    /**
+     * Returns true if the item names the index was ordered by are no longer the current names.
+     */
+    boolean itemNamesChanged(Function<Integer, String> itemName) {
+        for (Map.Entry<Integer, String> e : itemNames.entrySet()) {
+            if (!e.getValue().equals(itemName.apply(e.getKey()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void add(FlipV2 f, Function<Integer, String> itemName) {
+        if (sortKey == FlipSortKey.ITEM_NAME) {
+            itemNames.computeIfAbsent(f.getItemId(), itemName);
+        }
+        int i = search(f, f.getClosedTime());
+        if (i >= 0) {
+            return;
+        }
+        i = -i - 1;
+        if (size == keys.length) {
+            grow(size + 1);
+        }
+        shift(i, i + 1, size - i);
+        set(i, f);
+        size++;
+    }
+
+    void remove(FlipV2 f, int closedTime) {
+        int i = search(f, closedTime);
+        if (i >= 0) {
+            shift(i + 1, i, size - i - 1);
+            size--;
+        }
+    }
+
+    /**
+     * Returns the positions of a page of the flips closed at or after startTime (and of the account if not null), in
+     * index order or reversed.
+     */
+    int[] page(int toSkip, int pageSize, int startTime, Integer accountId, boolean reversed) {
+        int[] positions = new int[Math.min(pageSize, size)];
+        int n = 0;
+        for (int j = 0; j < size && n < positions.length; j++) {
+            int i = reversed ? size - 1 - j : j;
+            if (closedTime[i] < startTime || (accountId != null && this.accountId[i] != accountId)) {
+                continue;
+            }
+            if (toSkip > 0) {
+                toSkip--;
+            } else {
+                positions[n++] = i;
+            }
+        }
+        return Arrays.copyOf(positions, n);
+    }
+
+    private int search(FlipV2 f, int time) {
+        long key = sortKey.key(f);
+        long msb = f.getId().getMostSignificantBits();
+        long lsb = f.getId().getLeastSignificantBits();
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compare(mid, key, time, msb, lsb);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private int compare(int i, long key, int time, long msb, long lsb) {
+        // key ascending, then closed time and id descending
+        int c = sortKey == FlipSortKey.ITEM_NAME
+                ? itemNames.get((int) keys[i]).compareTo(itemNames.get((int) key))
+                : 0;
+        if (c == 0) {
+            c = Long.compare(keys[i], key);
+        }
+        if (c == 0) {
+            c = Integer.compare(time, closedTime[i]);
+        }
+        if (c == 0) {
+            c = Long.compare(msb, idMsb[i]);
+        }
+        return c != 0 ? c : Long.compare(lsb, idLsb[i]);
+    }
+
+    private void set(int i, FlipV2 f) {
+        keys[i] = sortKey.key(f);
+        closedTime[i] = f.getClosedTime();
+        accountId[i] = f.getAccountId();
+        idMsb[i] = f.getId().getMostSignificantBits();
+        idLsb[i] = f.getId().getLeastSignificantBits();
+    }
+
+    private void shift(int src, int dst, int n) {
+        System.arraycopy(keys, src, keys, dst, n);
+        System.arraycopy(closedTime, src, closedTime, dst, n);
+        System.arraycopy(accountId, src, accountId, dst, n);
+        System.arraycopy(idMsb, src, idMsb, dst, n);
+        System.arraycopy(idLsb, src, idLsb, dst, n);
+    }
+
+    private void grow(int minCapacity) {
+        int capacity = Math.max(minCapacity, keys.length + (keys.length >> 1) + 1);
+        keys = Arrays.copyOf(keys, capacity);
+        closedTime = Arrays.copyOf(closedTime, capacity);
+        accountId = Arrays.copyOf(accountId, capacity);
+        idMsb = Arrays.copyOf(idMsb, capacity);
+        idLsb = Arrays.copyOf(idLsb, capacity);
+    }
+}
@@ -0,0 +1,163 @@
+package com.flippingcopilot.model;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The flips of one account within a {@link FlipManager} week bucket, ordered by closed time (ascending) with the id
+ * as tie-breaker. Implementations expose the sort keys as primitives so that the FlipManager can bisect, count and
+ * aggregate rows without necessarily holding (or creating) a FlipV2 object per row.
+ */
+abstract class FlipRows {
+
+    // partial ranges shorter than this are summed row by row rather than building prefix sums
+    private static final int PREFIX_SUMS_MIN_RANGE = 32;
+
+    // prefix sums over the rows, built lazily the first time a long partial range is summed and dropped on any change
+    private long[] cumProfit;
+    private long[] cumGross;
+    private long[] cumTaxPaid;
+    private int[] cumFlips;
+    // min/max profit over all rows, cached until the rows change
+    private boolean profitExtremesValid;
+    private long minProfit;
+    private long maxProfit;
+
+    abstract int size();
+
+    abstract int closedTime(int i);
+
+    abstract long idMsb(int i);
+
+    abstract long idLsb(int i);
+
+    abstract int itemId(int i);
+
+    abstract long profit(int i);
+
+    abstract long spent(int i);
+
+    abstract long taxPaid(int i);
+
+    abstract int portfolioId(int i);
+
+    /**
+     * Returns the flip at row i. Implementations that don't store FlipV2 objects materialize a new instance.
+     */
+    abstract FlipV2 get(int i);
+
+    /**
+     * Returns a read only list view of rows [from, to).
+     */
+    abstract List<FlipV2> view(int from, int to);
+
+    abstract void insert(int i, FlipV2 flip);
+
+    abstract void delete(int i);
+
+    final void add(int i, FlipV2 flip) {
+        insert(i, flip);
+        cumProfit = null;
+        profitExtremesValid = false;
+    }
+
+    final void remove(int i) {
+        delete(i);
+        cumProfit = null;
+        profitExtremesValid = false;
+    }
+
+    /**
+     * Adds rows [from, to) to the stats, equivalent to calling {@link Stats#addFlip} on each row.
+     */
+    final void addStats(Stats stats, int from, int to) {
+        if (to - from < PREFIX_SUMS_MIN_RANGE) {
+            for (int i = from; i < to; i++) {
+                if (PortfolioId.isInPortfolio(portfolioId(i))) {
+                    stats.profit += profit(i);
+                    stats.gross += spent(i);
+                    stats.taxPaid += taxPaid(i);
+                    stats.flipsMade += 1;
+                }
+            }
+            return;
+        }
+        if (cumProfit == null) {
+            buildPrefixSums();
+        }
+        stats.profit += cumProfit[to] - cumProfit[from];
+        stats.gross += cumGross[to] - cumGross[from];
+        stats.taxPaid += cumTaxPaid[to] - cumTaxPaid[from];
+        stats.flipsMade += cumFlips[to] - cumFlips[from];
+    }
+
+    /**
+     * Returns the lowest profit of rows [from, to), or Long.MAX_VALUE if the range is empty.
+     */
+    final long minProfit(int from, int to) {
+        if (from == 0 && to == size()) {
+            ensureProfitExtremes();
+            return minProfit;
+        }
+        long min = Long.MAX_VALUE;
+        for (int i = from; i < to; i++) {
+            min = Math.min(min, profit(i));
+        }
+        return min;
+    }
+
+    /**
+     * Returns the highest profit of rows [from, to), or Long.MIN_VALUE if the range is empty.
+     */
+    final long maxProfit(int from, int to) {
+        if (from == 0 && to == size()) {
+            ensureProfitExtremes();
+            return maxProfit;
+        }
+        long max = Long.MIN_VALUE;
+        for (int i = from; i < to; i++) {
+            max = Math.max(max, profit(i));
+        }
+        return max;
+    }
+
+    /**
+     * Compares the id of row i with the given id, with the same ordering as {@link UUID#compareTo}.
+     */
+    final int compareId(int i, UUID id) {
+        int c = Long.compare(idMsb(i), id.getMostSignificantBits());
+        return c != 0 ? c : Long.compare(idLsb(i), id.getLeastSignificantBits());
+    }
+
+    private void ensureProfitExtremes() {
+        if (profitExtremesValid) {
+            return;
+        }
+        minProfit = Long.MAX_VALUE;
+        maxProfit = Long.MIN_VALUE;
+        for (int i = 0; i < size(); i++) {
+            minProfit = Math.min(minProfit, profit(i));
+            maxProfit = Math.max(maxProfit, profit(i));
+        }
+        profitExtremesValid = true;
+    }
+
+    private void buildPrefixSums() {
+        int n = size();
+        long[] profit = new long[n + 1];
+        long[] gross = new long[n + 1];
+        long[] taxPaid = new long[n + 1];
+        int[] flips = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            boolean tracked = PortfolioId.isInPortfolio(portfolioId(i));
+            profit[i + 1] = profit[i] + (tracked ? profit(i) : 0);
+            gross[i + 1] = gross[i] + (tracked ? spent(i) : 0);
+            taxPaid[i + 1] = taxPaid[i] + (tracked ? taxPaid(i) : 0);
+            flips[i + 1] = flips[i] + (tracked ? 1 : 0);
+        }
+        cumGross = gross;
+        cumTaxPaid = taxPaid;
+        cumFlips = flips;
+        cumProfit = profit;
+    }
+}
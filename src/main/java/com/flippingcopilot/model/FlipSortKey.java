@@ -0,0 +1,35 @@
+package com.flippingcopilot.model;
+
+/**
+ * Flip orderings that the {@link FlipManager} can keep an order index for.
+ */
+public enum FlipSortKey {
+    OPENED_TIME,
+    ITEM_NAME,
+    OPENED_QUANTITY,
+    CLOSED_QUANTITY,
+    PROFIT,
+    PROFIT_EACH;
+
+    /**
+     * Returns the value the flip is ordered by. Flips are ordered by item name through their item id.
+     */
+    long key(FlipV2 f) {
+        switch (this) {
+            case OPENED_TIME:
+                return f.getOpenedTime();
+            case ITEM_NAME:
+                return f.getItemId();
+            case OPENED_QUANTITY:
+                return f.getOpenedQuantity();
+            case CLOSED_QUANTITY:
+                return f.getClosedQuantity();
+            case PROFIT:
+                return f.getProfit();
+            case PROFIT_EACH:
+                return f.getClosedQuantity() > 0 ? f.getProfit() / f.getClosedQuantity() : 0L;
+            default:
+                throw new IllegalStateException("unknown sort key " + this);
+        }
+    }
+}
@@ -19,4 +19,15 @@ public enum FlipStatus {
                 return FlipStatus.BUYING;
         }
     }
+
+    public String toValue() {
+        switch (this) {
+            case SELLING:
+                return "C";
+            case FINISHED:
+                return "F";
+            default:
+                return "O";
+        }
+    }
 }
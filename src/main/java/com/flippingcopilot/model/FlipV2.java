@@ -1,7 +1,9 @@
 package com.flippingcopilot.model;
 
 import com.flippingcopilot.util.ProfitCalculator;
+import com.flippingcopilot.util.ProtoUtils;
 import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
 import com.google.protobuf.WireFormat;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
@@ -188,6 +190,33 @@ public class FlipV2 {
         return flip;
     }
 
+    /**
+     * Encodes the flip with the same field numbers as {@link #decodeProto(CodedInputStream)} reads, except the item name.
+     */
+    public void encodeProto(CodedOutputStream out) throws IOException {
+        if (id != null) {
+            out.writeByteArray(1, ProtoUtils.uuidToBytes(id));
+        }
+        out.writeInt32(2, accountId);
+        out.writeInt32(3, itemId);
+        out.writeInt32(5, openedTime);
+        out.writeInt32(6, openedQuantity);
+        out.writeInt64(7, spent);
+        out.writeInt32(8, closedTime);
+        out.writeInt32(9, closedQuantity);
+        out.writeInt64(10, receivedPostTax);
+        out.writeInt64(11, taxPaid);
+        out.writeInt64(12, profit);
+        if (status != null) {
+            out.writeString(14, status.toValue());
+        }
+        out.writeInt32(16, updatedTime);
+        out.writeBool(17, deleted);
+        out.writeSInt32(19, portfolioId);
+        out.writeInt64(20, seqNo);
+        out.writeInt32(21, userId);
+    }
+
     private static UUID decodeUuid(byte[] raw) {
         if (raw == null || raw.length != 16) {
             return null;
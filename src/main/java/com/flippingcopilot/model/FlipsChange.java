@@ -0,0 +1,98 @@
+package com.flippingcopilot.model;
+
+import lombok.Getter;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * The flips changed by one {@link FlipManager} update, passed to the flips changed listeners so they can patch their
+ * state rather than reload it. Ids of flips that didn't change (e.g. out of date instances) are not included.
+ */
+@Getter
+public class FlipsChange {
+
+    private final Set<UUID> addedIds = new HashSet<>();
+    private final Set<UUID> updatedIds = new HashSet<>();
+    private final Set<UUID> removedIds = new HashSet<>();
+    // start times of the weeks the changed flips were closed in, before and after the change
+    private final Set<Integer> weekStarts = new HashSet<>();
+    private final Set<Integer> accountIds = new HashSet<>();
+    // item ids of the changed flips, before and after the change
+    private final Set<Integer> itemIds = new HashSet<>();
+    // set when the change can't be described by flip ids (e.g. an account's flips were deleted)
+    private boolean allWeeks;
+    // set when the FlipManager interval (start time or account) changed rather than any flips
+    private boolean intervalChanged;
+    // the number of flips merged into the change so far, including unchanged ones
+    int merged;
+
+    static FlipsChange ofInterval() {
+        FlipsChange c = new FlipsChange();
+        c.intervalChanged = true;
+        return c;
+    }
+
+    static FlipsChange ofAccount(int accountId) {
+        FlipsChange c = new FlipsChange();
+        c.allWeeks = true;
+        c.accountIds.add(accountId);
+        return c;
+    }
+
+    void added(FlipV2 flip) {
+        addedIds.add(flip.getId());
+        touch(flip);
+    }
+
+    void updated(FlipV2 before, FlipV2 after) {
+        updatedIds.add(after.getId());
+        touch(before);
+        touch(after);
+    }
+
+    void removed(FlipV2 flip) {
+        removedIds.add(flip.getId());
+        touch(flip);
+    }
+
+    public boolean isEmpty() {
+        return accountIds.isEmpty() && !intervalChanged;
+    }
+
+    /**
+     * Returns true if the change may affect the flips closed after startTime of the account (or all accounts if null).
+     */
+    public boolean affects(int startTime, Integer accountId) {
+        if (accountId == null ? accountIds.isEmpty() : !accountIds.contains(accountId)) {
+            return false;
+        }
+        if (allWeeks) {
+            return true;
+        }
+        for (int weekStart : weekStarts) {
+            if (weekStart + FlipManager.WEEK_SECS > startTime) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the ids of all added, updated and removed flips.
+     */
+    public Set<UUID> changedIds() {
+        Set<UUID> ids = new HashSet<>(addedIds);
+        ids.addAll(updatedIds);
+        ids.addAll(removedIds);
+        return ids;
+    }
+
+    private void touch(FlipV2 flip) {
+        int closedTime = flip.getClosedTime();
+        weekStarts.add(closedTime - (closedTime % FlipManager.WEEK_SECS));
+        accountIds.add(flip.getAccountId());
+        itemIds.add(flip.getItemId());
+    }
+}
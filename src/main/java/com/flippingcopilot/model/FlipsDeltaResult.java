@@ -7,8 +7,10 @@ import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Predicate;
 
 @Slf4j
 @Data
@@ -16,42 +18,50 @@ import java.util.List;
 public class FlipsDeltaResult {
 
     public int time;
-    public List<FlipV2> flips;
+    public int numFlips;
 
-    public static FlipsDeltaResult decodeProto(byte[] bytes) {
+    /**
+     * Decodes a flips delta from a stream, passing the flips to onBatch in batches of up to batchSize so the whole
+     * delta is never held in memory. Flips that aren't closed are held back to the last batch so that, as within one
+     * {@link FlipManager#mergeFlips} call, they are merged after the closed flips. Returns null if onBatch returns false.
+     */
+    public static FlipsDeltaResult decodeProto(InputStream in, int batchSize, Predicate<List<FlipV2>> onBatch) throws IOException {
         FlipsDeltaResult res = new FlipsDeltaResult();
-        res.flips = new ArrayList<>();
-        if (bytes == null || bytes.length == 0) {
-            return res;
-        }
-        try {
-            CodedInputStream input = CodedInputStream.newInstance(bytes);
-            while (!input.isAtEnd()) {
-                int tag = input.readTag();
-                if (tag == 0) {
+        List<FlipV2> batch = new ArrayList<>();
+        List<FlipV2> notClosed = new ArrayList<>();
+        CodedInputStream input = CodedInputStream.newInstance(in);
+        while (!input.isAtEnd()) {
+            int tag = input.readTag();
+            if (tag == 0) {
+                break;
+            }
+            int fieldNumber = WireFormat.getTagFieldNumber(tag);
+            switch (fieldNumber) {
+                case 1:
+                    res.time = input.readInt32();
                     break;
-                }
-                int fieldNumber = WireFormat.getTagFieldNumber(tag);
-                switch (fieldNumber) {
-                    case 1:
-                        res.time = input.readInt32();
+                case 2:
+                    int length = input.readRawVarint32();
+                    int limit = input.pushLimit(length);
+                    FlipV2 f = FlipV2.decodeProto(input);
+                    input.popLimit(limit);
+                    if (f == null) {
                         break;
-                    case 2:
-                        int length = input.readRawVarint32();
-                        int limit = input.pushLimit(length);
-                        FlipV2 f = FlipV2.decodeProto(input);
-                        input.popLimit(limit);
-                        if (f != null) {
-                            res.flips.add(f);
+                    }
+                    res.numFlips++;
+                    (f.isClosed() ? batch : notClosed).add(f);
+                    if (batch.size() == batchSize) {
+                        if (!onBatch.test(batch)) {
+                            return null;
                         }
-                        break;
-                    default:
-                        input.skipField(tag);
-                }
+                        batch = new ArrayList<>();
+                    }
+                    break;
+                default:
+                    input.skipField(tag);
             }
-        } catch (IOException e) {
-            log.warn("failed decoding flips delta proto", e);
         }
-        return res;
+        batch.addAll(notClosed);
+        return onBatch.test(batch) ? res : null;
     }
 }
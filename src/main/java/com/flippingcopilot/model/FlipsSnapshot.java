@@ -0,0 +1,103 @@
+package com.flippingcopilot.model;
+
+import com.flippingcopilot.util.ProtoUtils;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A local copy of a copilot user's flips together with the per account time they were synced up to, so that only the
+ * flips delta since then needs to be requested from the server.
+ */
+@Data
+@NoArgsConstructor
+public class FlipsSnapshot {
+
+    // bumped when the encoding changes, snapshots of another version are ignored
+    public static final int VERSION = 1;
+
+    public int userId;
+    public Map<Integer, Integer> accountIdTime = new HashMap<>();
+    public List<FlipV2> flips = new ArrayList<>();
+
+    public void encodeProto(CodedOutputStream out) throws IOException {
+        out.writeInt32(1, VERSION);
+        out.writeInt32(2, userId);
+        ProtoUtils.writeMap(out, 3, accountIdTime, CodedOutputStream::writeInt32, CodedOutputStream::writeInt32);
+        for (FlipV2 f : flips) {
+            ProtoUtils.writeDelimitedMessageField(out, 4, ProtoUtils.encodeMessage(f::encodeProto));
+        }
+    }
+
+    /**
+     * Decodes a snapshot, returns null if it was written with a different {@link #VERSION}.
+     */
+    public static FlipsSnapshot decodeProto(CodedInputStream input) throws IOException {
+        FlipsSnapshot snapshot = new FlipsSnapshot();
+        int version = 0;
+        while (!input.isAtEnd()) {
+            int tag = input.readTag();
+            if (tag == 0) {
+                break;
+            }
+            int fieldNumber = WireFormat.getTagFieldNumber(tag);
+            switch (fieldNumber) {
+                case 1:
+                    version = input.readInt32();
+                    if (version != VERSION) {
+                        return null;
+                    }
+                    break;
+                case 2:
+                    snapshot.userId = input.readInt32();
+                    break;
+                case 3:
+                    decodeAccountTime(input, snapshot.accountIdTime);
+                    break;
+                case 4:
+                    int length = input.readRawVarint32();
+                    int limit = input.pushLimit(length);
+                    FlipV2 f = FlipV2.decodeProto(input);
+                    input.popLimit(limit);
+                    snapshot.flips.add(f);
+                    break;
+                default:
+                    input.skipField(tag);
+            }
+        }
+        return version == VERSION ? snapshot : null;
+    }
+
+    private static void decodeAccountTime(CodedInputStream input, Map<Integer, Integer> accountIdTime) throws IOException {
+        int length = input.readRawVarint32();
+        int limit = input.pushLimit(length);
+        int accountId = 0;
+        int time = 0;
+        while (!input.isAtEnd()) {
+            int tag = input.readTag();
+            if (tag == 0) {
+                break;
+            }
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case 1:
+                    accountId = input.readInt32();
+                    break;
+                case 2:
+                    time = input.readInt32();
+                    break;
+                default:
+                    input.skipField(tag);
+            }
+        }
+        input.popLimit(limit);
+        accountIdTime.put(accountId, time);
+    }
+}
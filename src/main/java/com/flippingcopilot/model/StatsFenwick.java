@@ -0,0 +1,79 @@
+package com.flippingcopilot.model;
+
+/**
+ * Fenwick (binary indexed) tree of {@link Stats}, supporting point updates and range sums in O(log n).
+ */
+class StatsFenwick {
+
+    private final long[] profit;
+    private final long[] gross;
+    private final long[] taxPaid;
+    private final int[] flipsMade;
+
+    StatsFenwick(int size) {
+        profit = new long[size + 1];
+        gross = new long[size + 1];
+        taxPaid = new long[size + 1];
+        flipsMade = new int[size + 1];
+    }
+
+    int size() {
+        return flipsMade.length - 1;
+    }
+
+    /**
+     * Builds a tree over the given stats in O(n), null elements are treated as empty.
+     */
+    static StatsFenwick of(Stats[] stats) {
+        StatsFenwick f = new StatsFenwick(stats.length);
+        for (int i = 1; i <= stats.length; i++) {
+            Stats s = stats[i - 1];
+            if (s != null) {
+                f.profit[i] += s.profit;
+                f.gross[i] += s.gross;
+                f.taxPaid[i] += s.taxPaid;
+                f.flipsMade[i] += s.flipsMade;
+            }
+            int parent = i + (i & -i);
+            if (parent <= stats.length) {
+                f.profit[parent] += f.profit[i];
+                f.gross[parent] += f.gross[i];
+                f.taxPaid[parent] += f.taxPaid[i];
+                f.flipsMade[parent] += f.flipsMade[i];
+            }
+        }
+        return f;
+    }
+
+    void addFlip(int pos, FlipV2 flip, int sign) {
+        if (!PortfolioId.isInPortfolio(flip.getPortfolioId())) {
+            return;
+        }
+        for (int i = pos + 1; i < flipsMade.length; i += i & -i) {
+            profit[i] += sign * flip.getProfit();
+            gross[i] += sign * flip.getSpent();
+            taxPaid[i] += sign * flip.getTaxPaid();
+            flipsMade[i] += sign;
+        }
+    }
+
+    /**
+     * Adds the sum of positions [from, to) to the stats.
+     */
+    void addRange(Stats stats, int from, int to) {
+        if (to <= from) {
+            return;
+        }
+        addPrefix(stats, to, 1);
+        addPrefix(stats, from, -1);
+    }
+
+    private void addPrefix(Stats stats, int n, int sign) {
+        for (int i = n; i > 0; i -= i & -i) {
+            stats.profit += sign * profit[i];
+            stats.gross += sign * gross[i];
+            stats.taxPaid += sign * taxPaid[i];
+            stats.flipsMade += sign * flipsMade[i];
+        }
+    }
+}
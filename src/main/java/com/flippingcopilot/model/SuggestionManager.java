@@ -5,6 +5,7 @@ import lombok.Setter;
 
 import javax.inject.Singleton;
 import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Singleton
 @Getter
@@ -15,6 +16,10 @@ public class SuggestionManager {
     private volatile boolean suggestionRequestInProgress;
     private volatile boolean graphDataReadingInProgress;
     private volatile boolean suggestionRefreshPending;
+    // set when the next request must be sent even if the account status didn't change (e.g. server side changes)
+    private volatile boolean suggestionRefreshForced;
+    // number of times a suggestion was asked for since the last request, for the request scheduler counters
+    private final AtomicInteger suggestionTriggers = new AtomicInteger();
     private Instant lastFailureAt;
     private HttpResponseException suggestionError;
     private Suggestion suggestion;
@@ -31,6 +36,31 @@ public class SuggestionManager {
 
     public volatile int suggestionsDelayedUntil = 0;
 
+    public void setSuggestionNeeded(boolean suggestionNeeded) {
+        if (suggestionNeeded) {
+            suggestionTriggers.incrementAndGet();
+        }
+        this.suggestionNeeded = suggestionNeeded;
+    }
+
+    /**
+     * Requests a suggestion even if the account status is unchanged since the last one, for changes the status doesn't
+     * include such as the server side portfolio.
+     */
+    public void forceSuggestionRefresh() {
+        suggestionRefreshForced = true;
+        setSuggestionNeeded(true);
+    }
+
+    /**
+     * Clears the suggestion needed flag, returning the number of times it was set since last cleared.
+     */
+    public int takeSuggestionTriggers() {
+        suggestionNeeded = false;
+        suggestionRefreshForced = false;
+        return suggestionTriggers.getAndSet(0);
+    }
+
     public void setSuggestion(Suggestion suggestion) {
         this.suggestion = suggestion;
         suggestionReceivedAt = Instant.now();
@@ -45,6 +75,8 @@ public class SuggestionManager {
     public void reset() {
         suggestionNeeded = false;
         suggestionRefreshPending = false;
+        suggestionRefreshForced = false;
+        suggestionTriggers.set(0);
         suggestion = null;
         suggestionReceivedAt = null;
         lastFailureAt = null;
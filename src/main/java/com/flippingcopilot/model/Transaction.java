@@ -6,6 +6,7 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.nio.ByteBuffer;
 import java.time.Instant;
 import java.util.UUID;
 
@@ -16,6 +17,8 @@ import java.util.UUID;
 @Setter
 public class Transaction {
 
+    public static final int RAW_SIZE = 58;
+
     private UUID id;
     private OfferStatus type;
     private int itemId;
@@ -54,6 +57,56 @@ public class Transaction {
         return jsonObject;
     }
 
+    public void writeRaw(ByteBuffer b) {
+        b.putLong(id.getMostSignificantBits());
+        b.putLong(id.getLeastSignificantBits());
+        b.put((byte) (type == null ? 0 : type.protoInt()));
+        b.putInt(itemId);
+        b.putLong(price);
+        b.putInt(quantity);
+        b.putInt(boxId);
+        b.putLong(amountSpent);
+        b.putLong(timestamp == null ? Long.MIN_VALUE : timestamp.getEpochSecond());
+        b.putInt(timestamp == null ? 0 : timestamp.getNano());
+        b.put((byte) ((copilotPriceUsed ? 1 : 0)
+                | (wasCopilotSuggestion ? 2 : 0)
+                | (login ? 4 : 0)
+                | (consistent ? 8 : 0)));
+    }
+
+    /**
+     * Reads a transaction written by {@link #writeRaw}.
+     */
+    public static Transaction readRaw(ByteBuffer b) {
+        Transaction t = new Transaction();
+        t.id = new UUID(b.getLong(), b.getLong());
+        switch (b.get()) {
+            case 1:
+                t.type = OfferStatus.BUY;
+                break;
+            case 2:
+                t.type = OfferStatus.SELL;
+                break;
+            case 3:
+                t.type = OfferStatus.EMPTY;
+                break;
+        }
+        t.itemId = b.getInt();
+        t.price = b.getLong();
+        t.quantity = b.getInt();
+        t.boxId = b.getInt();
+        t.amountSpent = b.getLong();
+        long epochSecond = b.getLong();
+        int nano = b.getInt();
+        t.timestamp = epochSecond == Long.MIN_VALUE ? null : Instant.ofEpochSecond(epochSecond, nano);
+        byte flags = b.get();
+        t.copilotPriceUsed = (flags & 1) != 0;
+        t.wasCopilotSuggestion = (flags & 2) != 0;
+        t.login = (flags & 4) != 0;
+        t.consistent = (flags & 8) != 0;
+        return t;
+    }
+
     @Override
     public String toString() {
         return String.format("%s %d %d on slot %d", type, quantity, itemId, boxId);
@@ -2,6 +2,7 @@ package com.flippingcopilot.model;
 
 import com.flippingcopilot.controller.ApiRequestHandler;
 import com.flippingcopilot.controller.Persistance;
+import com.flippingcopilot.controller.UnAckedTransactionLog;
 import com.flippingcopilot.rs.CopilotLoginRS;
 import com.flippingcopilot.util.MutableReference;
 import lombok.RequiredArgsConstructor;
@@ -31,19 +32,23 @@ public class TransactionManager {
     private final OsrsLoginManager osrsLoginManager;
 
     // state
-    private final ConcurrentMap<String, List<Transaction>> cachedUnAckedTransactions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, UnAckedTransactionLog> unAckedTransactionLogs = new ConcurrentHashMap<>();
     private final ConcurrentMap<String, AtomicBoolean> transactionSyncScheduled = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, TransactionUploadPolicy> uploadPolicies = new ConcurrentHashMap<>();
 
     public void syncUnAckedTransactions(String displayName) {
 
         long s = System.nanoTime();
+        TransactionUploadPolicy policy = uploadPolicies.computeIfAbsent(displayName, k -> new TransactionUploadPolicy());
         List<Transaction> toSend;
         synchronized (this) {
-            toSend = new ArrayList<>(getUnAckedTransactions(displayName));
-            if(toSend.isEmpty()) {
+            List<Transaction> unAckedTransactions = getUnAckedTransactions(displayName);
+            if(unAckedTransactions.isEmpty()) {
                 transactionSyncScheduled.get(displayName).set(false);
                 return;
             }
+            // oldest first, each batch is acked on its own so a large backlog doesn't need one huge request
+            toSend = new ArrayList<>(unAckedTransactions.subList(0, Math.min(policy.batchSize(), unAckedTransactions.size())));
         }
 
         BiConsumer<Integer, List<FlipV2>> onSuccess = (userId, flips) -> {
@@ -51,25 +56,28 @@ public class TransactionManager {
                 copilotLoginRS.addAccountIfMissing(flips.get(0).getAccountId(), displayName, userId);
             }
             flipManager.mergeFlips(flips, userId);
-            log.info("sending {} transactions took {}ms", toSend.size(), (System.nanoTime() - s) / 1000_000);
+            long latencyMs = (System.nanoTime() - s) / 1000_000;
+            policy.onSuccess(toSend.size(), latencyMs);
+            log.info("sending {} transactions took {}ms", toSend.size(), latencyMs);
             synchronized (this) {
-                List<Transaction> unAckedTransactions  = getUnAckedTransactions(displayName);
+                UnAckedTransactionLog unAckedTransactions = unAckedTransactionLog(displayName);
                 transactionSyncScheduled.get(displayName).set(false);
-                toSend.forEach(unAckedTransactions::remove);
-                if(!unAckedTransactions.isEmpty()) {
+                unAckedTransactions.ack(toSend);
+                if(!unAckedTransactions.transactions().isEmpty()) {
                     scheduleSyncIn(0, displayName);
                 }
             }
         };
 
         Consumer<HttpResponseException> onFailure = (e) -> {
+            long backoffMs = policy.onFailure();
             synchronized (this) {
                 transactionSyncScheduled.get(displayName).set(false);
             }
             String currentDisplayName = osrsLoginManager.getPlayerDisplayName();
             if (copilotLoginRS.get().isLoggedIn() && (currentDisplayName == null || currentDisplayName.equals(displayName))) {
-                log.warn("failed to send transactions to copilot server {}", e.getMessage(), e);
-                scheduleSyncIn(10, displayName);
+                log.warn("failed to send {} transactions to copilot server {}, retrying in {}ms", toSend.size(), e.getMessage(), backoffMs, e);
+                scheduleSyncInMs(backoffMs, displayName);
             }
         };
         api.sendTransactionsAsync(toSend, displayName, onSuccess, onFailure);
@@ -81,9 +89,7 @@ public class TransactionManager {
             return 0;
         }
         synchronized (this) {
-            List<Transaction> unAckedTransactions = getUnAckedTransactions(displayName);
-            unAckedTransactions.add(transaction);
-            Persistance.storeUnAckedTransactions(unAckedTransactions, displayName);
+            unAckedTransactionLog(displayName).append(transaction);
         }
         MutableReference<Long> profit = new MutableReference<>(0L);
         if (OfferStatus.SELL.equals(transaction.getType())) {
@@ -102,16 +108,32 @@ public class TransactionManager {
     }
 
     public List<Transaction> getUnAckedTransactions(String displayName) {
-        return cachedUnAckedTransactions.computeIfAbsent(displayName, (k) -> Persistance.loadUnAckedTransactions(displayName));
+        return unAckedTransactionLog(displayName).transactions();
+    }
+
+    /**
+     * Closes the un acked transaction logs, for when the plugin shuts down. A log is reopened if it's used again.
+     */
+    public synchronized void closeLogs() {
+        unAckedTransactionLogs.values().forEach(UnAckedTransactionLog::close);
+        unAckedTransactionLogs.clear();
+    }
+
+    private UnAckedTransactionLog unAckedTransactionLog(String displayName) {
+        return unAckedTransactionLogs.computeIfAbsent(displayName, Persistance::openUnAckedTransactionLog);
+    }
+
+    public void scheduleSyncIn(int seconds, String displayName) {
+        scheduleSyncInMs(seconds * 1000L, displayName);
     }
 
-    public synchronized void scheduleSyncIn(int seconds, String displayName) {
+    private synchronized void scheduleSyncInMs(long ms, String displayName) {
         AtomicBoolean scheduled = transactionSyncScheduled.computeIfAbsent(displayName, k -> new AtomicBoolean(false));
         if(scheduled.compareAndSet(false, true)) {
-            log.info("scheduling {} attempt to sync {} transactions in {}s", displayName, getUnAckedTransactions(displayName).size(), seconds);
+            log.info("scheduling {} attempt to sync {} transactions in {}ms", displayName, getUnAckedTransactions(displayName).size(), ms);
             executorService.schedule(() ->  {
                 this.syncUnAckedTransactions(displayName);
-            }, seconds, TimeUnit.SECONDS);
+            }, ms, TimeUnit.MILLISECONDS);
         } else {
             log.debug("skipping scheduling sync as already scheduled");
         }
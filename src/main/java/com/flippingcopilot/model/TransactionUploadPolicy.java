@@ -0,0 +1,45 @@
+package com.flippingcopilot.model;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sizes an account's un acked transaction upload batches and the delay before retrying a failed one. The batch size
+ * doubles while full batches are acked within {@link #TARGET_LATENCY_MS} and halves when a batch is slow or fails,
+ * retries back off exponentially with jitter.
+ */
+class TransactionUploadPolicy {
+
+    static final int INITIAL_BATCH_SIZE = 100;
+    static final int MIN_BATCH_SIZE = 10;
+    static final int MAX_BATCH_SIZE = 2000;
+    static final long TARGET_LATENCY_MS = 2000;
+    static final long BASE_BACKOFF_MS = 2000;
+    static final long MAX_BACKOFF_MS = 5 * 60_000;
+
+    private int batchSize = INITIAL_BATCH_SIZE;
+    private int failures;
+
+    synchronized int batchSize() {
+        return batchSize;
+    }
+
+    synchronized void onSuccess(int sent, long latencyMs) {
+        failures = 0;
+        if (latencyMs > TARGET_LATENCY_MS) {
+            batchSize = Math.max(MIN_BATCH_SIZE, batchSize / 2);
+        } else if (sent >= batchSize) {
+            batchSize = Math.min(MAX_BATCH_SIZE, batchSize * 2);
+        }
+    }
+
+    /**
+     * Records a failed batch and returns the milliseconds to wait before retrying, a random time between half and
+     * all of the exponential backoff so that many clients failing together don't retry together.
+     */
+    synchronized long onFailure() {
+        batchSize = Math.max(MIN_BATCH_SIZE, batchSize / 2);
+        failures++;
+        long backoff = Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << Math.min(failures - 1, 20));
+        return backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+    }
+}
@@ -198,7 +198,7 @@ public class PremiumInstancePanel extends JPanel {
                         this.showError(s.getLoadingError());
                     } else {
                         this.showManagementView(s);
-                        suggestionManager.setSuggestionNeeded(true);
+                        suggestionManager.forceSuggestionRefresh();
                     }
                 });
             };
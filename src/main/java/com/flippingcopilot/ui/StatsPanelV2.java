@@ -143,7 +143,12 @@ public class StatsPanelV2 extends JPanel {
 
         add(bottomPanel, BorderLayout.SOUTH);
 
-        flipManager.setFlipsChangedCallback(() -> refresh(true, copilotLoginRS.get().isLoggedIn() && osrsLoginManager.isValidLoginState()));
+        flipManager.addFlipsChangedListener(change -> {
+            // flips closed before the interval (or of another account) don't change the stats or the listed flips
+            if (change.isIntervalChanged() || change.affects(flipManager.getIntervalStartTime(), flipManager.getIntervalAccount())) {
+                refresh(true, copilotLoginRS.get().isLoggedIn() && osrsLoginManager.isValidLoginState());
+            }
+        });
     }
 
     private void setupFlipsDialogButton() {
@@ -2,7 +2,6 @@ package com.flippingcopilot.ui.flipsdialog;
 
 import com.flippingcopilot.model.*;
 import com.flippingcopilot.rs.CopilotLoginRS;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import javax.inject.Named;
@@ -15,6 +14,7 @@ public class AccountsAggregateFilterSort {
 
     // dependencies
     private final FlipManager flipManager;
+    private final Consumer<FlipsChange> flipsChangedListener;
     private final CopilotLoginRS copilotLoginRS;
     private final Consumer<List<AccountAggregate>> aggregatesCallback;
     private final Consumer<Boolean> slowLoadingCallback;
@@ -35,6 +35,15 @@ public class AccountsAggregateFilterSort {
         this.aggregatesCallback = aggregatesCallback;
         this.slowLoadingCallback = slowLoadingCallback;
         this.executorService = executorService;
+        flipsChangedListener = change -> executorService.submit(() -> applyFlipsChange(change));
+        flipManager.addFlipsChangedListener(flipsChangedListener);
+    }
+
+    /**
+     * Stops listening for flips changes, for when the dialog the panel belongs to is rebuilt or closed.
+     */
+    public void dispose() {
+        flipManager.removeFlipsChangedListener(flipsChangedListener);
     }
 
     public synchronized void setInterval(IntervalTimeUnit timeUnit, Integer value) {
@@ -53,13 +62,13 @@ public class AccountsAggregateFilterSort {
             if(forceReload || cachedIntervalStartTime != intervalStartTime) {
                 log.debug("loading account aggregates");
                 cachedAggregates.clear();
-                Aggregator a = new Aggregator();
-                copilotLoginRS.get().accountIdToDisplayName.forEach(
-                        (accountId, displayName)  -> a.accounts.put(accountId, new AccountAggregator(accountId))
-                );
-                flipManager.aggregateFlips(intervalStartTime, null, false, a);
+                Set<Integer> knownAccountIds = copilotLoginRS.get().accountIdToDisplayName.keySet();
+                Set<Integer> accountIds = new HashSet<>(knownAccountIds);
+                accountIds.addAll(flipManager.getAccountIds());
+                for (Integer accountId : accountIds) {
+                    addAggregate(intervalStartTime, accountId, knownAccountIds);
+                }
                 cachedIntervalStartTime = intervalStartTime;
-                a.accounts.forEach((k, v) -> cachedAggregates.add(v.toAccountAggregate(copilotLoginRS.get().getDisplayName(k))));
                 log.debug("loaded {} account aggregates", cachedAggregates.size());
             }
             // Final callback to indicate completion
@@ -71,41 +80,30 @@ public class AccountsAggregateFilterSort {
         }
     }
 
-    static class Aggregator implements Consumer<FlipV2> {
-        final Map<Integer, AccountAggregator> accounts = new HashMap<>();
-
-        public void accept(FlipV2 flip) {
-            {
-                AccountAggregator a = accounts.computeIfAbsent(flip.getAccountId(), AccountAggregator::new);
-                long profit = flip.getProfit();
-                a.totalProfit += profit;
-                a.numberOfFlips++;
-                if (profit < 0) {
-                    a.biggestLoss = Math.min(a.biggestLoss, profit);
-                } else {
-                    a.biggestWin = Math.max(a.biggestWin, profit);
-                }
+    private synchronized void applyFlipsChange(FlipsChange change) {
+        try {
+            if (cachedIntervalStartTime == Integer.MIN_VALUE || !change.affects(cachedIntervalStartTime, null)) {
+                return;
+            }
+            // only the aggregates of the changed accounts are recalculated
+            Set<Integer> knownAccountIds = copilotLoginRS.get().accountIdToDisplayName.keySet();
+            cachedAggregates.removeIf(a -> change.getAccountIds().contains(a.getAccountId()));
+            for (Integer accountId : change.getAccountIds()) {
+                addAggregate(cachedIntervalStartTime, accountId, knownAccountIds);
             }
+            aggregatesCallback.accept(cachedAggregates);
+        } catch (Exception e) {
+            log.warn("error applying flips change to account aggregates", e);
         }
     }
 
-    @RequiredArgsConstructor
-    static class AccountAggregator {
-        final int accountId;
-        long totalProfit = 0;
-        long biggestLoss = Long.MAX_VALUE;
-        long biggestWin = Long.MIN_VALUE;
-        int numberOfFlips = 0;
-
-        public AccountAggregate toAccountAggregate(String accountName) {
-            return AccountAggregate.builder()
-                    .accountId(accountId)
-                    .accountName(accountName == null ? "Unknown" : accountName)
-                    .numberOfFlips(numberOfFlips)
-                    .biggestLoss(biggestLoss == Long.MAX_VALUE ? 0 : biggestLoss)
-                    .biggestWin(biggestWin == Long.MIN_VALUE ? 0 : biggestWin)
-                    .totalProfit(totalProfit)
-                    .build();
+    private void addAggregate(int startTime, int accountId, Set<Integer> knownAccountIds) {
+        AccountAggregate a = flipManager.calculateAccountAggregate(startTime, Integer.MAX_VALUE, accountId);
+        if (a.getNumberOfFlips() == 0 && !knownAccountIds.contains(accountId)) {
+            return;
         }
+        String accountName = copilotLoginRS.get().getDisplayName(accountId);
+        a.setAccountName(accountName == null ? "Unknown" : accountName);
+        cachedAggregates.add(a);
     }
 }
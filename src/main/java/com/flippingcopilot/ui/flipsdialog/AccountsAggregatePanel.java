@@ -117,4 +117,8 @@ public class AccountsAggregatePanel extends JPanel {
     public void onTabShown() {
         sortAndFilter.reloadAggregates(true);
     }
+
+    public void dispose() {
+        sortAndFilter.dispose();
+    }
 }
@@ -32,18 +32,25 @@ final class FilterSortUtil {
                          Map<String, Comparator<T>> comparators,
                          String sortColumn,
                          SortDirection sortDirection) {
-        Comparator<T> comparator = comparators.get(sortColumn);
+        Comparator<T> comparator = comparator(comparators, sortColumn, sortDirection);
         if (comparator == null) {
             return;
         }
-        if (sortDirection == SortDirection.ASC) {
-            comparator = comparator.reversed();
-        }
 
         // Apply sorting
         rows.sort(comparator);
     }
 
+    static <T> Comparator<T> comparator(Map<String, Comparator<T>> comparators,
+                                        String sortColumn,
+                                        SortDirection sortDirection) {
+        Comparator<T> comparator = comparators.get(sortColumn);
+        if (comparator != null && sortDirection == SortDirection.ASC) {
+            comparator = comparator.reversed();
+        }
+        return comparator;
+    }
+
     static <T> List<T> page(List<T> rows, int page, int pageSize) {
         int startIndex = (page - 1) * pageSize;
         int endIndex = Math.min(startIndex + pageSize, rows.size());
@@ -4,6 +4,7 @@ import com.flippingcopilot.controller.ItemController;
 import com.flippingcopilot.model.FlipManager;
 import com.flippingcopilot.model.FlipStatus;
 import com.flippingcopilot.model.FlipV2;
+import com.flippingcopilot.model.FlipsChange;
 import com.flippingcopilot.model.IntervalTimeUnit;
 import com.flippingcopilot.model.SortDirection;
 import com.flippingcopilot.rs.CopilotLoginRS;
@@ -28,6 +29,7 @@ public class FlipFilterAndSort {
 
     // dependencies
     private final FlipManager flipManager;
+    private final Consumer<FlipsChange> flipsChangedListener;
     private final Consumer<List<FlipV2>> flipsCallback;
     private final Consumer<Integer> totalPagesChangedCallback;
     private final Consumer<Boolean> slowLoadingCallback;
@@ -71,6 +73,15 @@ public class FlipFilterAndSort {
         this.executorService = executorService;
         this.copilotLoginRS = copilotLoginRS;
         this.itemController = itemController;
+        flipsChangedListener = change -> executorService.submit(() -> applyFlipsChange(change));
+        flipManager.addFlipsChangedListener(flipsChangedListener);
+    }
+
+    /**
+     * Stops listening for flips changes, for when the dialog the panel belongs to is rebuilt or closed.
+     */
+    public void dispose() {
+        flipManager.removeFlipsChangedListener(flipsChangedListener);
     }
 
     public synchronized void setIncludedStatuses(Set<FlipStatus> statuses) {
@@ -140,11 +151,17 @@ public class FlipFilterAndSort {
     private synchronized void _reloadFlips(boolean totalPagesMaybeChanged, boolean forceReload) {
         try {
             if (canUseFlipsManager()) {
+                if (totalPagesMaybeChanged || forceReload) {
+                    totalFlips = flipManager.calculateStats(intervalStartTime, accountId, filteredItems).flipsMade;
+                    totalPagesChangedCallback.accept(FilterSortUtil.totalPages(totalFlips, pageSize));
+                }
+                flipsCallback.accept(flipManager.getPageFlips(page, pageSize, intervalStartTime, accountId, filteredItems));
+            } else if (canUseOrderIndex()) {
                 if (totalPagesMaybeChanged || forceReload) {
                     totalFlips = flipManager.calculateStats(intervalStartTime, accountId).flipsMade;
                     totalPagesChangedCallback.accept(FilterSortUtil.totalPages(totalFlips, pageSize));
                 }
-                flipsCallback.accept(flipManager.getPageFlips(page, pageSize, intervalStartTime, accountId));
+                flipsCallback.accept(sortedPageFlips(page, pageSize));
             } else {
                 slowLoadingCallback.accept(true);
                 boolean cachedFlipsOutOfDate = !Objects.equals(cachedAccountId, accountId)
@@ -163,10 +180,9 @@ public class FlipFilterAndSort {
                             ? EnumSet.noneOf(FlipStatus.class)
                             : EnumSet.copyOf(includedStatuses);
                     cachedFlips.clear();
-                    Predicate<FlipV2> itemFilter = filteredItems.isEmpty() ? f -> true : f -> filteredItems.contains(f.getItemId());
-                    Predicate<FlipV2> statusFilter = f -> includedStatuses.contains(f.getStatus());
+                    Predicate<FlipV2> filter = cachedFlipsFilter();
                     flipManager.aggregateFlips(intervalStartTime, accountId, includedStatuses.contains(FlipStatus.BUYING), (f) -> {
-                        if(itemFilter.test(f) && statusFilter.test(f)) {
+                        if(filter.test(f)) {
                             f.setCachedItemName(itemController.getItemName(f.getItemId()));
                             cachedFlips.add(f);
                         }
@@ -197,13 +213,82 @@ public class FlipFilterAndSort {
         }
     }
 
+    private synchronized void applyFlipsChange(FlipsChange change) {
+        try {
+            boolean buyingFlipsChanged = includedStatuses.contains(FlipStatus.BUYING) && change.getWeekStarts().contains(0);
+            if (!buyingFlipsChanged && !change.affects(intervalStartTime, accountId)) {
+                return;
+            }
+            if (canUseFlipsManager() || canUseOrderIndex()) {
+                _reloadFlips(true, false);
+                return;
+            }
+            if (cachedIntervalStartTime == Integer.MIN_VALUE) {
+                // nothing cached yet
+                return;
+            }
+            if (change.isAllWeeks()) {
+                _reloadFlips(true, true);
+                return;
+            }
+            // patch the cached flips in place rather than reloading and re-sorting all of them
+            Set<UUID> changedIds = change.changedIds();
+            cachedFlips.removeIf(f -> changedIds.contains(f.getId()));
+            Predicate<FlipV2> filter = cachedFlipsFilter();
+            Comparator<FlipV2> comparator = FilterSortUtil.comparator(FlipTableUtil.COMPARATORS, cachedSortColumn, cachedSortDirection);
+            for (UUID id : changedIds) {
+                FlipV2 f = change.getRemovedIds().contains(id) ? null : flipManager.getFlip(id);
+                if (f == null || !filter.test(f) || !isCachedInterval(f)) {
+                    continue;
+                }
+                int i = comparator == null ? -1 : Collections.binarySearch(cachedFlips, f, comparator);
+                cachedFlips.add(i < 0 ? -i - 1 : i, f);
+            }
+            log.debug("patched cached flips with {} changed flips", changedIds.size());
+            totalPagesChangedCallback.accept(FilterSortUtil.totalPages(cachedFlips.size(), pageSize));
+            flipsCallback.accept(FilterSortUtil.page(cachedFlips, page, pageSize));
+        } catch (Exception e) {
+            log.warn("error applying flips change", e);
+        }
+    }
+
+    private Predicate<FlipV2> cachedFlipsFilter() {
+        Predicate<FlipV2> itemFilter = filteredItems.isEmpty() ? f -> true : f -> filteredItems.contains(f.getItemId());
+        Predicate<FlipV2> statusFilter = f -> includedStatuses.contains(f.getStatus());
+        return itemFilter.and(statusFilter);
+    }
+
+    private boolean isCachedInterval(FlipV2 f) {
+        // the same flips FlipManager.aggregateFlips passes for the cached interval and account
+        if (accountId != null && f.getAccountId() != accountId) {
+            return false;
+        }
+        return f.getClosedTime() >= intervalStartTime
+                || (f.getClosedTime() == 0 && includedStatuses.contains(FlipStatus.BUYING) && f.getOpenedTime() > intervalStartTime);
+    }
+
     private boolean canUseFlipsManager() {
+        return closedFlipsOnly()
+                && sortDirection == SortDirection.DESC
+                && sortColumn.equals("Last sell time");
+    }
+
+    private boolean canUseOrderIndex() {
+        return closedFlipsOnly()
+                && filteredItems.isEmpty()
+                && FlipTableUtil.SORT_KEYS.containsKey(sortColumn);
+    }
+
+    private boolean closedFlipsOnly() {
         return !includedStatuses.contains(FlipStatus.BUYING)
                 && includedStatuses.contains(FlipStatus.FINISHED)
-                && includedStatuses.contains(FlipStatus.SELLING)
-                && sortDirection == SortDirection.DESC
-                && sortColumn.equals("Last sell time")
-                && filteredItems.isEmpty();
+                && includedStatuses.contains(FlipStatus.SELLING);
+    }
+
+    private List<FlipV2> sortedPageFlips(int page, int pageSize) {
+        // like FilterSortUtil.sort the ASC direction is the reverse of the comparator order
+        return flipManager.getSortedPageFlips(page, pageSize, intervalStartTime, accountId,
+                FlipTableUtil.SORT_KEYS.get(sortColumn), sortDirection == SortDirection.ASC);
     }
 
     public synchronized void writeCsvRecords(FileWriter writer) {
@@ -220,8 +305,12 @@ public class FlipFilterAndSort {
                 throw new RuntimeException("writing flips CSV row", e);
             }
         };
-        if (canUseFlipsManager()) {
+        if (canUseFlipsManager() && !filteredItems.isEmpty()) {
+            flipManager.getPageFlips(1, Integer.MAX_VALUE, intervalStartTime, accountId, filteredItems).forEach(c);
+        } else if (canUseFlipsManager()) {
             flipManager.aggregateFlips(intervalStartTime, accountId, false, c);
+        } else if (canUseOrderIndex()) {
+            sortedPageFlips(1, Integer.MAX_VALUE).forEach(c);
         } else {
             cachedFlips.forEach(c);
         }
@@ -1,5 +1,6 @@
 package com.flippingcopilot.ui.flipsdialog;
 
+import com.flippingcopilot.model.FlipSortKey;
 import com.flippingcopilot.model.FlipV2;
 
 import java.util.Comparator;
@@ -26,6 +27,18 @@ final class FlipTableUtil {
         COMPARATORS.put("Profit ea.", Comparator.comparing(FlipTableUtil::profitEach));
     }
 
+    // Sort columns the FlipManager keeps an order index for, in the same order as their comparator
+    static final Map<String, FlipSortKey> SORT_KEYS = new HashMap<>();
+
+    static {
+        SORT_KEYS.put("First buy time", FlipSortKey.OPENED_TIME);
+        SORT_KEYS.put("Item", FlipSortKey.ITEM_NAME);
+        SORT_KEYS.put("Bought", FlipSortKey.OPENED_QUANTITY);
+        SORT_KEYS.put("Sold", FlipSortKey.CLOSED_QUANTITY);
+        SORT_KEYS.put("Profit", FlipSortKey.PROFIT);
+        SORT_KEYS.put("Profit ea.", FlipSortKey.PROFIT_EACH);
+    }
+
     private FlipTableUtil() {
     }
 
@@ -50,6 +50,10 @@ public class FlipsDialogController {
     private FlipsPanel flipsPanel;
     private MissedFlipsPanel missedFlipsPanel;
     private VisualizeFlipPanel visualizeFlipPanel;
+    private ItemAggregatePanel itemsPanel;
+    private AccountsAggregatePanel accountsPanel;
+    private ProfitPanel profitPanel;
+    private TransactionsPanel transactionsPanel;
 
     @Inject
     public FlipsDialogController(
@@ -87,6 +91,8 @@ public class FlipsDialogController {
 
     public void initDialog(Window windowAncestor) {
         SwingUtilities.invokeLater(() -> {
+            // the plugin can be restarted without a shutdown of the controller, drop the previous dialog's panels
+            disposePanels();
             tabbedPane = new JTabbedPane();
             tabbedPane.setBackground(ColorScheme.DARK_GRAY_COLOR);
 
@@ -102,11 +108,11 @@ public class FlipsDialogController {
             });
             missedFlipsPanel = new MissedFlipsPanel(osrsLoginRS, flipsManager, itemController, copilotLoginRS,
                     executorService, config, apiRequestHandler, geHistoryStateRS);
-            ItemAggregatePanel itemsPanel = new ItemAggregatePanel(flipsManager, itemController,
+            itemsPanel = new ItemAggregatePanel(flipsManager, itemController,
                     copilotLoginRS, executorService, config);
-            AccountsAggregatePanel accountsPanel = new AccountsAggregatePanel(flipsManager, copilotLoginRS,
+            accountsPanel = new AccountsAggregatePanel(flipsManager, copilotLoginRS,
                     executorService, config, apiRequestHandler, flipsManager);
-            ProfitPanel profitPanel = new ProfitPanel(flipsManager, executorService, sessionManager,
+            profitPanel = new ProfitPanel(flipsManager, executorService, sessionManager,
                     copilotLoginRS, config);
             PortfolioPanel portfolioPanel = new PortfolioPanel(
                     itemController,
@@ -120,7 +126,7 @@ public class FlipsDialogController {
                     clientThread,
                     itemId -> showPriceGraphTab(itemId, false, null)
             );
-            TransactionsPanel transactionsPanel = new TransactionsPanel(copilotLoginRS, itemController,
+            transactionsPanel = new TransactionsPanel(copilotLoginRS, itemController,
                     executorService, apiRequestHandler, osrsLoginManager, config, flipsManager);
             priceGraphPanel = new PriceGraphPanel(
                     itemController,
@@ -191,6 +197,35 @@ public class FlipsDialogController {
         });
     }
 
+    /**
+     * Closes the dialog, stops its panels listening for flips changes and closes the transactions store, for when the
+     * plugin shuts down.
+     */
+    public void disposeDialog() {
+        SwingUtilities.invokeLater(this::disposePanels);
+    }
+
+    private void disposePanels() {
+        if (flipsPanel != null) {
+            flipsPanel.dispose();
+        }
+        if (itemsPanel != null) {
+            itemsPanel.dispose();
+        }
+        if (accountsPanel != null) {
+            accountsPanel.dispose();
+        }
+        if (profitPanel != null) {
+            profitPanel.dispose();
+        }
+        if (transactionsPanel != null) {
+            transactionsPanel.dispose();
+        }
+        if (dialog != null) {
+            dialog.dispose();
+        }
+    }
+
     public void showPriceGraphTab(Integer openOnPriceGraphItemId, boolean suggestionPriceGraph, PriceLine priceLine) {
         tabbedPane.setSelectedIndex(6);
         if(openOnPriceGraphItemId != null) {
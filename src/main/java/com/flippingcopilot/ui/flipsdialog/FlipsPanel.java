@@ -263,4 +263,8 @@ public class FlipsPanel extends JPanel {
     private static void addGap(JPanel panel, int width) {
         panel.add(Box.createRigidArea(new Dimension(width, 0)));
     }
+
+    public void dispose() {
+        sortAndFilter.dispose();
+    }
 }
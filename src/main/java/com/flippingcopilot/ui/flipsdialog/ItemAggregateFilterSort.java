@@ -16,6 +16,8 @@ import java.util.function.Predicate;
 public class ItemAggregateFilterSort {
 
     public static final int DEFAULT_PAGE_SIZE = 50;
+    // flips changes touching more items than this reload all the aggregates
+    static final int MAX_PATCHED_ITEMS = 32;
 
     private static final Map<String, Comparator<ItemAggregate>> SORT_COMPARATORS = new HashMap<>();
     static {
@@ -31,6 +33,7 @@ public class ItemAggregateFilterSort {
 
     // dependencies
     private final FlipManager flipManager;
+    private final Consumer<FlipsChange> flipsChangedListener;
     private final ItemController itemController;
     private final Consumer<List<ItemAggregate>> aggregatesCallback;
     private final Consumer<Integer> totalPagesChangedCallback;
@@ -68,6 +71,15 @@ public class ItemAggregateFilterSort {
         this.totalPagesChangedCallback = totalPagesChangedCallback;
         this.slowLoadingCallback = slowLoadingCallback;
         this.executorService = executorService;
+        flipsChangedListener = change -> executorService.submit(() -> applyFlipsChange(change));
+        flipManager.addFlipsChangedListener(flipsChangedListener);
+    }
+
+    /**
+     * Stops listening for flips changes, for when the dialog the panel belongs to is rebuilt or closed.
+     */
+    public void dispose() {
+        flipManager.removeFlipsChangedListener(flipsChangedListener);
     }
 
     public synchronized void setInterval(IntervalTimeUnit timeUnit, Integer value) {
@@ -149,7 +161,7 @@ public class ItemAggregateFilterSort {
                 Aggregator a = new Aggregator(flipFilter);
                 flipManager.aggregateFlips(intervalStartTime, cachedAccountId, false, a);
                 cachedIntervalStartTime = intervalStartTime;
-                a.items.forEach((k, v) -> cachedAggregates.add(v.toItemAggregate(itemController.getItemName(k))));
+                a.items.forEach((k, v) -> cachedAggregates.add(v.toItemAggregate(k, itemController.getItemName(k))));
                 log.debug("loaded {} cached item aggregates", cachedAggregates.size());
             }
 
@@ -177,6 +189,43 @@ public class ItemAggregateFilterSort {
         }
     }
 
+    private synchronized void applyFlipsChange(FlipsChange change) {
+        try {
+            if (cachedIntervalStartTime == Integer.MIN_VALUE || !change.affects(cachedIntervalStartTime, cachedAccountId)) {
+                return;
+            }
+            if (change.isAllWeeks()) {
+                cachedIntervalStartTime = Integer.MIN_VALUE;
+                _reloadAggregates(true);
+                return;
+            }
+            Set<Integer> itemIds = new HashSet<>(change.getItemIds());
+            if (!cachedFilteredItems.isEmpty()) {
+                itemIds.retainAll(cachedFilteredItems);
+            }
+            if (itemIds.isEmpty()) {
+                return;
+            }
+            if (itemIds.size() > MAX_PATCHED_ITEMS) {
+                // a sync batch touching many items, a full reload is a single pass too
+                cachedIntervalStartTime = Integer.MIN_VALUE;
+                _reloadAggregates(true);
+                return;
+            }
+            // only the aggregates of the changed items are recalculated, in one pass over the interval flips
+            cachedAggregates.removeIf(a -> itemIds.contains(a.getItemId()));
+            Aggregator a = new Aggregator(f -> itemIds.contains(f.getItemId()));
+            flipManager.aggregateFlips(cachedIntervalStartTime, cachedAccountId, false, a);
+            a.items.forEach((k, v) -> cachedAggregates.add(v.toItemAggregate(k, itemController.getItemName(k))));
+            FilterSortUtil.sort(cachedAggregates, SORT_COMPARATORS, cachedSortColumn, cachedSortDirection);
+            log.debug("patched item aggregates of {} items", itemIds.size());
+            totalPagesChangedCallback.accept(FilterSortUtil.totalPages(cachedAggregates.size(), pageSize));
+            aggregatesCallback.accept(FilterSortUtil.page(cachedAggregates, page, pageSize));
+        } catch (Exception e) {
+            log.warn("error applying flips change to item aggregates", e);
+        }
+    }
+
     @AllArgsConstructor
     static class Aggregator implements Consumer<FlipV2> {
         final Predicate<FlipV2> p;
@@ -209,8 +258,9 @@ public class ItemAggregateFilterSort {
         private int quantityFlipped = 0;
 
 
-        public ItemAggregate toItemAggregate(String itemName) {
+        public ItemAggregate toItemAggregate(int itemId, String itemName) {
             return ItemAggregate.builder()
+                    .itemId(itemId)
                     .itemName(itemName)
                     .numberOfFlips(numberOfFlips)
                     .totalQuantityFlipped(quantityFlipped)
@@ -122,4 +122,8 @@ public class ItemAggregatePanel extends JPanel {
         sortAndFilter.reloadAggregates(true);
         accountDropdown.refresh();
     }
+
+    public void dispose() {
+        sortAndFilter.dispose();
+    }
 }
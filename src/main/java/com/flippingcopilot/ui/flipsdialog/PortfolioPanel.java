@@ -299,7 +299,7 @@ public class PortfolioPanel extends JPanel {
                             result == null ? null : result.getPortfolioItems(),
                             result == null ? null : result.getTime()
                     );
-                    suggestionManager.setSuggestionNeeded(true);
+                    suggestionManager.forceSuggestionRefresh();
                     clearPortfolioButton.setEnabled(true);
                 }),
                 error -> SwingUtilities.invokeLater(() -> {
@@ -450,7 +450,7 @@ public class PortfolioPanel extends JPanel {
                                 result == null ? null : result.getPortfolioItems(),
                                 result == null ? null : result.getTime()
                         );
-                        suggestionManager.setSuggestionNeeded(true);
+                        suggestionManager.forceSuggestionRefresh();
                     },
                     error -> {
                     }
@@ -1,5 +1,6 @@
 package com.flippingcopilot.ui.flipsdialog;
 
+import com.flippingcopilot.ui.graph.LayerCache;
 import com.flippingcopilot.ui.graph.model.Bounds;
 import lombok.extern.slf4j.Slf4j;
 
@@ -52,6 +53,7 @@ public class ProfitGraphPanel extends JPanel {
     private Rectangle lowerPa;
     private Bounds lowerPlotBounds;
     private Bounds upperPlotBounds;
+    private final LayerCache staticLayer = new LayerCache();
     
 
     public void setData(List<Datapoint> newData) {
@@ -146,7 +148,12 @@ public class ProfitGraphPanel extends JPanel {
         g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
         g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
 
-        
+        // the plots only change with the data, only the hovered point is drawn on each repaint
+        staticLayer.draw(g2, this, Arrays.asList(data, minYValue, maxYValue, minY2Value, maxY2Value, minXValue, maxXValue), this::paintPlots);
+        drawHovered(g2);
+    }
+
+    private void paintPlots(Graphics2D g2) {
         int width = getWidth();
         int height = getHeight();
         int paWidth = width - PADDING_LEFT - PADDING_RIGHT;
@@ -192,6 +199,29 @@ public class ProfitGraphPanel extends JPanel {
         }
     }
 
+    private void drawHovered(Graphics2D g2) {
+        if (upperPa == null || lowerPa == null || upperPlotBounds == null || lowerPlotBounds == null) {
+            return;
+        }
+        g2.setStroke(AXIS_STROKE);
+        for (Datapoint dp : data) {
+            if (dp.isCumulativeProfitHovered && data.size() > 1) {
+                int x = upperPlotBounds.toX(upperPa, dp.timestamp());
+                int y = upperPlotBounds.toY(upperPa, dp.cumulativeProfit);
+                g2.setColor(Color.WHITE);
+                g2.drawOval(x - POINT_RADIUS, y - POINT_RADIUS, POINT_RADIUS * 2, POINT_RADIUS * 2);
+                drawToolTip(dp.t, dp.cumulativeProfit, g2, new Point(x, y));
+            }
+            if (dp.isDailyProfitHovered) {
+                Rectangle bar = profitBarRect(dp, lowerPlotBounds);
+                g2.setColor(Color.WHITE);
+                g2.drawRect(bar.x, bar.y, bar.width, bar.height);
+                Point p = new Point(lowerPlotBounds.toX(lowerPa, dp.timestamp()), lowerPlotBounds.toY(lowerPa, dp.dailyProfit));
+                drawToolTip(dp.t, dp.dailyProfit, g2, p);
+            }
+        }
+    }
+
     private void drawTitle(Graphics2D g2, Rectangle pa, String text) {
         // Use a slightly larger font for the title
         g2.setFont(Font.getFont(Font.MONOSPACED));
@@ -269,7 +299,6 @@ public class ProfitGraphPanel extends JPanel {
         }
 
         // Draw points
-        Runnable drawToolTip = () -> {};
         g2.setStroke(AXIS_STROKE);
         for (Datapoint dp : data) {
             int x = bounds.toX(pa, dp.timestamp());
@@ -277,16 +306,7 @@ public class ProfitGraphPanel extends JPanel {
 
             g2.setColor(dp.cumulativeProfit >= 0 ? profitColor : lossColor);
             g2.fillOval(x - POINT_RADIUS, y - POINT_RADIUS, POINT_RADIUS * 2, POINT_RADIUS * 2);
-            if(dp.isCumulativeProfitHovered) {
-                drawToolTip = () -> {
-                    g2.setColor(Color.WHITE);
-                    g2.drawOval(x - POINT_RADIUS, y - POINT_RADIUS, POINT_RADIUS * 2, POINT_RADIUS * 2);
-                    Point p = new Point(bounds.toX(upperPa, dp.timestamp()), bounds.toY(upperPa, dp.cumulativeProfit));
-                    drawToolTip(dp.t, dp.cumulativeProfit, g2, p);
-                };
-            }
         }
-        drawToolTip.run(); // draw tool tip after so it's on top
     }
 
 
@@ -315,7 +335,6 @@ public class ProfitGraphPanel extends JPanel {
         if (data.isEmpty()) {
             return;
         }
-        Runnable drawToolTip = () -> {};
         for (Datapoint dp : data) {
             Color barColor = dp.dailyProfit >= 0 ? profitColor : lossColor;
             g2.setColor(new Color(barColor.getRed(), barColor.getGreen(), barColor.getBlue(), 180)); // 70% opacity
@@ -323,16 +342,7 @@ public class ProfitGraphPanel extends JPanel {
             g2.fillRect(bar.x, bar.y, bar.width, bar.height);
             g2.setColor(new Color(barColor.getRed(), barColor.getGreen(), barColor.getBlue()));
             g2.drawRect(bar.x, bar.y, bar.width, bar.height);
-            if(dp.isDailyProfitHovered) {
-                drawToolTip = () -> {
-                    g2.setColor(Color.WHITE);
-                    g2.drawRect(bar.x, bar.y, bar.width, bar.height);
-                    Point p = new Point(bounds.toX(lowerPa, dp.timestamp()), bounds.toY(lowerPa, dp.dailyProfit));
-                    drawToolTip(dp.t, dp.dailyProfit, g2, p);
-                };
-            }
         }
-        drawToolTip.run(); // draw tool tip after so it's on top
     }
 
     private Rectangle profitBarRect(Datapoint dp,  Bounds bounds) {
@@ -2,12 +2,12 @@ package com.flippingcopilot.ui.flipsdialog;
 
 import com.flippingcopilot.config.FlippingCopilotConfig;
 import com.flippingcopilot.model.FlipManager;
-import com.flippingcopilot.model.FlipV2;
+import com.flippingcopilot.model.FlipsChange;
 import com.flippingcopilot.model.SessionManager;
+import com.flippingcopilot.model.Stats;
 import com.flippingcopilot.rs.CopilotLoginRS;
 import com.flippingcopilot.ui.components.AccountDropdown;
 import com.flippingcopilot.ui.components.IntervalDropdown;
-import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.client.ui.ColorScheme;
 
@@ -25,6 +25,7 @@ public class ProfitPanel extends JPanel {
 
     // dependencies
     private final FlipManager flipManager;
+    private final Consumer<FlipsChange> flipsChangedListener = this::onFlipsChanged;
     private final ExecutorService executorService;
 
     private final ProfitGraphPanel graphPanel;
@@ -93,6 +94,38 @@ public class ProfitPanel extends JPanel {
         scrollPane.getViewport().setBackground(ColorScheme.DARKER_GRAY_COLOR);
 
         add(scrollPane, BorderLayout.CENTER);
+
+        flipManager.addFlipsChangedListener(flipsChangedListener);
+    }
+
+    /**
+     * Stops listening for flips changes, for when the dialog is rebuilt or closed.
+     */
+    public void dispose() {
+        flipManager.removeFlipsChangedListener(flipsChangedListener);
+    }
+
+    private void onFlipsChanged(FlipsChange change) {
+        if (!isShowing()) {
+            // the graph is recalculated when the tab is shown
+            return;
+        }
+        executorService.submit(() -> {
+            try {
+                if (cachedDatapoints.isEmpty() || !change.affects(cachedIntervalStartTime, cachedAccountId)) {
+                    return;
+                }
+                int from = change.isAllWeeks() ? cachedIntervalStartTime : Collections.min(change.getWeekStarts());
+                cachedDatapoints = patchProfitDataPoints(cachedDatapoints, Math.max(from, cachedIntervalStartTime), cachedIntervalStartTime, cachedAccountId);
+                List<Datapoint> datapoints = cachedDatapoints;
+                SwingUtilities.invokeLater(() -> {
+                    graphPanel.setData(datapoints);
+                    graphPanel.repaint();
+                });
+            } catch (Exception e) {
+                log.error("Error patching profit graph", e);
+            }
+        });
     }
 
     public void refreshGraph(boolean forceRecalculate) {
@@ -112,11 +145,9 @@ public class ProfitPanel extends JPanel {
 
                 if (needsRegeneration) {
                     log.debug("Regenerating profit data points");
-                    ProfitAggregator aggregator = new ProfitAggregator();
                     cachedIntervalStartTime = startTime;
                     cachedAccountId = accountId;
-                    flipManager.aggregateFlips(cachedIntervalStartTime, cachedAccountId, false, aggregator);
-                    cachedDatapoints = aggregator.generateProfitDataPoints();
+                    cachedDatapoints = generateProfitDataPoints(cachedIntervalStartTime, cachedAccountId);
                     log.debug("Generated {} profit data points and {} daily profits", cachedDatapoints.size(), cachedDatapoints.size());
                 }
 
@@ -130,31 +161,45 @@ public class ProfitPanel extends JPanel {
         });
     }
 
-    @NoArgsConstructor
-    private static class ProfitAggregator implements Consumer<FlipV2> {
-        private final Map<LocalDate, Long> dailyProfits = new TreeMap<>();
-        private final ZoneId zoneId = ZoneId.systemDefault();
+    private List<Datapoint> generateProfitDataPoints(int startTime, Integer accountId) {
+        return patchProfitDataPoints(Collections.emptyList(), startTime, startTime, accountId);
+    }
 
-        @Override
-        public void accept(FlipV2 flip) {
-            if (flip.getClosedQuantity() > 0) {
-                LocalDate flipDate = LocalDate.ofInstant(Instant.ofEpochSecond(flip.getClosedTime()), zoneId);
-                dailyProfits.merge(flipDate, flip.getProfit(), Long::sum);
+    /**
+     * Keeps the data points of the days before the one containing fromTime and recalculates the rest.
+     */
+    private List<Datapoint> patchProfitDataPoints(List<Datapoint> existing, int fromTime, int startTime, Integer accountId) {
+        // one range stats query per day rather than aggregating every flip in the interval
+        ZoneId zoneId = ZoneId.systemDefault();
+        LocalDate fromDay = LocalDate.ofInstant(Instant.ofEpochSecond(fromTime), zoneId);
+        List<Datapoint> dataPoints = new ArrayList<>();
+        long cumulativeProfit = 0;
+        for (Datapoint d : existing) {
+            if (!d.t.isBefore(fromDay)) {
+                break;
             }
+            dataPoints.add(d);
+            cumulativeProfit = d.cumulativeProfit;
         }
-
-        public List<Datapoint> generateProfitDataPoints() {
-            List<Datapoint> dataPoints = new ArrayList<>();
-            if (dailyProfits.isEmpty()) {
-                dataPoints.add(new Datapoint(LocalDate.now(zoneId), 0L, 0L));
-            }
-            long cumulativeProfit = 0;
-            for (Map.Entry<LocalDate, Long> entry : dailyProfits.entrySet()) {
-                long dailyProfit = entry.getValue();
-                cumulativeProfit += dailyProfit;
-                dataPoints.add(new Datapoint(entry.getKey(), cumulativeProfit, dailyProfit));
+        int firstClosedTime = flipManager.firstClosedTime(dataPoints.isEmpty() ? startTime : Math.max(startTime, (int) fromDay.atStartOfDay(zoneId).toEpochSecond()));
+        if (firstClosedTime >= 0) {
+            LocalDate today = LocalDate.now(zoneId);
+            LocalDate day = LocalDate.ofInstant(Instant.ofEpochSecond(firstClosedTime), zoneId);
+            while (!day.isAfter(today)) {
+                LocalDate nextDay = day.plusDays(1);
+                int dayStart = Math.max(startTime, (int) day.atStartOfDay(zoneId).toEpochSecond());
+                int dayEnd = (int) nextDay.atStartOfDay(zoneId).toEpochSecond();
+                Stats stats = flipManager.calculateStats(dayStart, dayEnd, accountId);
+                if (stats.flipsMade > 0) {
+                    cumulativeProfit += stats.profit;
+                    dataPoints.add(new Datapoint(day, cumulativeProfit, stats.profit));
+                }
+                day = nextDay;
             }
-            return dataPoints;
         }
+        if (dataPoints.isEmpty()) {
+            dataPoints.add(new Datapoint(LocalDate.now(zoneId), 0L, 0L));
+        }
+        return dataPoints;
     }
 }
\ No newline at end of file
@@ -1,102 +1,389 @@
 package com.flippingcopilot.ui.flipsdialog;
 
 import com.flippingcopilot.model.AckedTransaction;
-import lombok.AllArgsConstructor;
+import com.flippingcopilot.util.UuidIntMap;
+import lombok.EqualsAndHashCode;
+import lombok.extern.slf4j.Slf4j;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
-import java.util.function.Predicate;
+import java.util.UUID;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
-@AllArgsConstructor
+/**
+ * The transaction history of an account as {@link AckedTransaction#RAW_SIZE} byte records in the
+ * {@link AckedTransaction#toRaw} layout. The records are either held in a heap buffer or in a memory mapped file
+ * (see {@link #open}), in which case they cost no heap and updates and deletes are written through to the file.
+ * Deleted records are left in place as tombstones with a zero id and dropped the next time the file is opened.
+ */
+@Slf4j
 public class TransactionDataWrapper {
 
-    // 1 million transactions would be ~64MB in memory. Average transactions per user as of Aug 2025 is ~5000
-    private volatile byte[] data;
+    // file layout: magic, version, record count, deleted record count, then the records
+    static final int HEADER_SIZE = 16;
+    private static final int MAGIC = 0x46435458;
+    private static final int VERSION = 1;
+    private static final int COUNT_OFFSET = 8;
+    private static final int DELETED_OFFSET = 12;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int ACCOUNT_ID_OFFSET = 32;
+    private static final int ITEM_ID_OFFSET = 40;
+    private static final int MAX_CACHED_COUNTS = 32;
 
-    public List<AckedTransaction> getPage(Set<Integer> filteredItems, Integer selectedAccount, int page, int pageSize) {
+    // null when the records are held on the heap
+    private final FileChannel channel;
+    // offset of the first record in the buffer
+    private final int base;
+    // 1 million transactions would be ~64MB. Average transactions per user as of Aug 2025 is ~5000
+    private ByteBuffer buf;
+    // number of records including tombstones
+    private int size;
+    private int deleted;
+    // record counts of recently used filters, kept current by update and delete
+    private final Map<Filter, Integer> counts = new LinkedHashMap<Filter, Integer>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Filter, Integer> eldest) {
+            return size() > MAX_CACHED_COUNTS;
+        }
+    };
+    // built on the first filtered query, kept current by update and delete
+    private TransactionOffsetIndex index;
+    // id to record position, built on the first update or delete
+    private UuidIntMap ids;
+
+    public TransactionDataWrapper(byte[] data) {
+        this.channel = null;
+        this.base = 0;
+        this.buf = ByteBuffer.wrap(data);
+        this.size = data.length / AckedTransaction.RAW_SIZE;
+    }
+
+    private TransactionDataWrapper(FileChannel channel, MappedByteBuffer buf) {
+        this.channel = channel;
+        this.base = HEADER_SIZE;
+        this.buf = buf;
+        if (buf.getInt(0) != MAGIC || buf.getInt(4) != VERSION || !validCount(buf)) {
+            writeHeader(0, 0);
+        } else {
+            size = buf.getInt(COUNT_OFFSET);
+            deleted = buf.getInt(DELETED_OFFSET);
+        }
+        if (deleted > 0) {
+            compact();
+        }
+    }
+
+    /**
+     * Opens (or creates) the memory mapped transaction store at file.
+     */
+    public static TransactionDataWrapper open(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long length = Math.max(channel.size(), HEADER_SIZE + (long) INITIAL_CAPACITY * AckedTransaction.RAW_SIZE);
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("transactions file " + file + " too large: " + length);
+            }
+            return new TransactionDataWrapper(channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, length));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Replaces all records with the given raw transactions.
+     */
+    public synchronized void replaceAll(byte[] data) throws IOException {
         int n = data.length / AckedTransaction.RAW_SIZE;
+        if (channel == null) {
+            counts.clear();
+            index = null;
+            ids = null;
+            buf = ByteBuffer.wrap(data);
+            size = n;
+            deleted = 0;
+            return;
+        }
+        // zero the count first so that a partially written file reads as empty
+        writeHeader(0, 0);
+        ensureCapacity(n);
+        ByteBuffer b = buf.duplicate();
+        b.position(base);
+        b.put(data, 0, n * AckedTransaction.RAW_SIZE);
+        writeHeader(n, 0);
+    }
+
+    /**
+     * Returns the number of records that aren't deleted.
+     */
+    public synchronized int size() {
+        return size - deleted;
+    }
+
+    public synchronized List<AckedTransaction> getPage(Set<Integer> filteredItems, Integer selectedAccount, int page, int pageSize) {
+        Filter filter = new Filter(filteredItems, selectedAccount);
         int toSkip = pageSize*(page-1);
-        int found = 0;
         List<AckedTransaction> pageTransactions = new ArrayList<>();
-        for(int i = 0; i < n; i++) {
-            AckedTransaction t = atIndex(i);
-            if((filteredItems.isEmpty() || filteredItems.contains(t.getItemId())) && (selectedAccount == null || selectedAccount.equals(t.getAccountId()))){
-                if(found < toSkip) {
-                    toSkip--;
-                    found++;
-                } else {
-                    pageTransactions.add(t);
-                    found++;
-                    if (found == pageSize) {
-                        return pageTransactions;
-                    }
+        if (!filter.matchesAll()) {
+            for (int i : index().page(filter.items, filter.accountId, i -> filter.matches(buf, offset(i)), toSkip, pageSize)) {
+                pageTransactions.add(atIndex(i));
+            }
+            return pageTransactions;
+        }
+        if (deleted == 0) {
+            for (int i = toSkip; i < size && pageTransactions.size() < pageSize; i++) {
+                pageTransactions.add(atIndex(i));
+            }
+            return pageTransactions;
+        }
+        for(int i = 0; i < size; i++) {
+            // only the records on the page are materialized
+            if (!filter.matches(buf, offset(i))) {
+                continue;
+            }
+            if(toSkip > 0) {
+                toSkip--;
+            } else {
+                pageTransactions.add(atIndex(i));
+                if (pageTransactions.size() == pageSize) {
+                    return pageTransactions;
                 }
             }
         }
         return pageTransactions;
     }
 
-    public int totalRecords(Set<Integer> filteredItems, Integer selectedAccount) {
-        int found =0;
-        int n = data.length / AckedTransaction.RAW_SIZE;
-        for(int i = 0; i < n; i++) {
-            AckedTransaction t = atIndex(i);
-            if((filteredItems.isEmpty() || filteredItems.contains(t.getItemId())) && (selectedAccount == null || selectedAccount.equals(t.getAccountId()))){
-                found++;
-            }
+    public synchronized int totalRecords(Set<Integer> filteredItems, Integer selectedAccount) {
+        Filter filter = new Filter(filteredItems, selectedAccount);
+        if (filter.matchesAll()) {
+            return size - deleted;
+        }
+        Integer cached = counts.get(filter);
+        if (cached != null) {
+            return cached;
         }
+        int found = index().count(filter.items, filter.accountId, i -> filter.matches(buf, offset(i)));
+        counts.put(filter, found);
         return found;
     }
 
     private AckedTransaction atIndex(int n) {
-        byte[] record = new byte[AckedTransaction.RAW_SIZE];
-        System.arraycopy(data, AckedTransaction.RAW_SIZE*n, record, 0, AckedTransaction.RAW_SIZE);
-        return AckedTransaction.fromRaw(record);
+        int o = offset(n);
+        AckedTransaction t = new AckedTransaction();
+        t.setId(new UUID(buf.getLong(o), buf.getLong(o + 8)));
+        t.setClientFlipId(new UUID(buf.getLong(o + 16), buf.getLong(o + 24)));
+        t.setAccountId(buf.getInt(o + ACCOUNT_ID_OFFSET));
+        t.setTime(buf.getInt(o + 36));
+        t.setItemId(buf.getInt(o + ITEM_ID_OFFSET));
+        t.setQuantity(buf.getInt(o + 44));
+        t.setPrice(buf.getLong(o + 48));
+        t.setAmountSpent(buf.getLong(o + 56));
+        return t;
     }
 
     public Stream<AckedTransaction> stream(Set<Integer> filteredItems, Integer selectedAccount) {
-        int totalTransactions = (data.length) / AckedTransaction.RAW_SIZE;
+        Filter filter = new Filter(filteredItems, selectedAccount);
+        int totalTransactions;
+        synchronized (this) {
+            totalTransactions = size;
+        }
         return IntStream.range(0, totalTransactions)
-                .mapToObj(this::atIndex)
-                .filter(t -> (filteredItems.isEmpty() || filteredItems.contains(t.getItemId()))
-                        && (selectedAccount == null || selectedAccount.equals(t.getAccountId())));
-    }
-
-
-    public void deleteOne(Predicate<AckedTransaction> predicate) {
-        int totalTransactions = (data.length) / AckedTransaction.RAW_SIZE;
-        for (int i = 0; i < totalTransactions; i++) {
-            AckedTransaction transaction = atIndex(i);
-            if (predicate.test(transaction)) {
-                byte[] newData = new byte[data.length - AckedTransaction.RAW_SIZE];
-                System.arraycopy(data, 0, newData, 0, i * AckedTransaction.RAW_SIZE);
-                int rightSide = (totalTransactions - i - 1) * AckedTransaction.RAW_SIZE;
-                if (rightSide > 0) {
-                    System.arraycopy(data, (i + 1) * AckedTransaction.RAW_SIZE, newData, i * AckedTransaction.RAW_SIZE, rightSide);
+                .mapToObj(i -> atIndexIfMatches(i, filter))
+                .filter(Objects::nonNull);
+    }
+
+    private synchronized AckedTransaction atIndexIfMatches(int n, Filter filter) {
+        return n < size && filter.matches(buf, offset(n)) ? atIndex(n) : null;
+    }
+
+    /**
+     * Deletes the transaction with the id, if present.
+     */
+    public synchronized void delete(UUID id) {
+        int i = ids().get(id, -1);
+        if (i < 0) {
+            return;
+        }
+        // leave a tombstone rather than shifting all the following records down
+        int o = offset(i);
+        countChanged(o, -1);
+        if (index != null) {
+            index.remove(i, buf.getInt(o + ITEM_ID_OFFSET), buf.getInt(o + ACCOUNT_ID_OFFSET));
+        }
+        ids.remove(id);
+        buf.putLong(o, 0L);
+        buf.putLong(o + 8, 0L);
+        deleted++;
+        if (channel != null) {
+            buf.putInt(DELETED_OFFSET, deleted);
+        }
+    }
+
+    public synchronized void update(AckedTransaction t) {
+        int i = ids().get(t.getId(), -1);
+        if (i < 0) {
+            return;
+        }
+        // overwrite the entire transaction in place
+        int o = offset(i);
+        countChanged(o, -1);
+        if (index != null) {
+            index.remove(i, buf.getInt(o + ITEM_ID_OFFSET), buf.getInt(o + ACCOUNT_ID_OFFSET));
+            index.add(i, t.getItemId(), t.getAccountId());
+        }
+        ByteBuffer b = buf.duplicate();
+        b.position(o);
+        b.put(t.toRaw());
+        countChanged(o, 1);
+    }
+
+    /**
+     * Closes the backing file, the mapped records stay readable until the buffer is garbage collected.
+     */
+    public void close() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("error closing transactions file", e);
+            }
+        }
+    }
+
+    private boolean isDeleted(int i) {
+        return isDeleted(buf, offset(i));
+    }
+
+    private static boolean isDeleted(ByteBuffer buf, int o) {
+        return buf.getLong(o) == 0L && buf.getLong(o + 8) == 0L;
+    }
+
+    private void countChanged(int o, int delta) {
+        for (Map.Entry<Filter, Integer> e : counts.entrySet()) {
+            if (e.getKey().matches(buf, o)) {
+                e.setValue(e.getValue() + delta);
+            }
+        }
+    }
+
+    private UuidIntMap ids() {
+        if (ids == null) {
+            ids = new UuidIntMap(size - deleted);
+            for (int i = 0; i < size; i++) {
+                int o = offset(i);
+                if (!isDeleted(buf, o)) {
+                    ids.put(buf.getLong(o), buf.getLong(o + 8), i);
                 }
-                data = newData;
-                break;
             }
         }
+        return ids;
+    }
+
+    private TransactionOffsetIndex index() {
+        if (index == null) {
+            index = new TransactionOffsetIndex();
+            for (int i = 0; i < size; i++) {
+                int o = offset(i);
+                if (!isDeleted(buf, o)) {
+                    index.append(i, buf.getInt(o + ITEM_ID_OFFSET), buf.getInt(o + ACCOUNT_ID_OFFSET));
+                }
+            }
+        }
+        return index;
+    }
+
+    private int offset(int i) {
+        return base + i * AckedTransaction.RAW_SIZE;
+    }
+
+    private void compact() {
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            if (isDeleted(i)) {
+                continue;
+            }
+            if (n != i) {
+                ByteBuffer src = buf.duplicate();
+                src.position(offset(i)).limit(offset(i + 1));
+                ByteBuffer dst = buf.duplicate();
+                dst.position(offset(n));
+                dst.put(src);
+            }
+            n++;
+        }
+        writeHeader(n, 0);
     }
 
-    public void update(AckedTransaction t) {
-        byte[] newRaw = t.toRaw();
-        int totalTransactions = (data.length) / AckedTransaction.RAW_SIZE;
-        for (int i = 0; i < totalTransactions; i++) {
-            int o = i * AckedTransaction.RAW_SIZE;
-            // Compare first 16 bytes to match by ID
-            if (data[o] == newRaw[0] && data[o + 1] == newRaw[1] && data[o + 2] == newRaw[2] && data[o + 3] == newRaw[3] &&
-                    data[o + 4] == newRaw[4] && data[o + 5] == newRaw[5] && data[o + 6] == newRaw[6] && data[o + 7] == newRaw[7] &&
-                    data[o + 8] == newRaw[8] && data[o + 9] == newRaw[9] && data[o + 10] == newRaw[10] && data[o + 11] == newRaw[11] &&
-                    data[o + 12] == newRaw[12] && data[o + 13] == newRaw[13] && data[o + 14] == newRaw[14] && data[o + 15] == newRaw[15]) {
-                // Overwrite the entire transaction with new raw data
-                System.arraycopy(newRaw, 0, data, o, AckedTransaction.RAW_SIZE);
-                break;
+    private void ensureCapacity(int n) throws IOException {
+        long needed = base + (long) n * AckedTransaction.RAW_SIZE;
+        if (needed <= buf.capacity()) {
+            return;
+        }
+        long capacity = Math.max(needed, buf.capacity() + (buf.capacity() >> 1));
+        if (capacity > Integer.MAX_VALUE) {
+            throw new IOException("too many transactions: " + n);
+        }
+        // mapping past the end of the file grows it, the file is never truncated so it can't fail while mapped
+        buf = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+    private void writeHeader(int size, int deleted) {
+        counts.clear();
+        index = null;
+        ids = null;
+        this.size = size;
+        this.deleted = deleted;
+        buf.putInt(0, MAGIC);
+        buf.putInt(4, VERSION);
+        buf.putInt(COUNT_OFFSET, size);
+        buf.putInt(DELETED_OFFSET, deleted);
+    }
+
+    private static boolean validCount(ByteBuffer b) {
+        int size = b.getInt(COUNT_OFFSET);
+        int deleted = b.getInt(DELETED_OFFSET);
+        return size >= 0 && deleted >= 0 && deleted <= size
+                && HEADER_SIZE + (long) size * AckedTransaction.RAW_SIZE <= b.capacity();
+    }
+
+    /**
+     * Item and account filter that is matched against the raw record fields, so scanning doesn't decode records.
+     */
+    @EqualsAndHashCode
+    private static final class Filter {
+        // sorted item ids, empty matches all items
+        private final int[] items;
+        private final Integer accountId;
+
+        Filter(Set<Integer> filteredItems, Integer accountId) {
+            this.items = filteredItems.stream().mapToInt(Integer::intValue).sorted().toArray();
+            this.accountId = accountId;
+        }
+
+        boolean matchesAll() {
+            return items.length == 0 && accountId == null;
+        }
+
+        boolean matches(ByteBuffer buf, int o) {
+            if (isDeleted(buf, o)) {
+                return false;
+            }
+            if (accountId != null && buf.getInt(o + ACCOUNT_ID_OFFSET) != accountId) {
+                return false;
             }
+            return items.length == 0 || Arrays.binarySearch(items, buf.getInt(o + ITEM_ID_OFFSET)) >= 0;
         }
     }
 }
@@ -0,0 +1,157 @@
+package com.flippingcopilot.ui.flipsdialog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * Item id and account id to the ascending positions of their records in a {@link TransactionDataWrapper}, so the
+ * records of a filtered page can be sliced out rather than found by scanning every record.
+ */
+class TransactionOffsetIndex {
+
+    private final Map<Integer, Positions> byItem = new HashMap<>();
+    private final Map<Integer, Positions> byAccount = new HashMap<>();
+
+    /**
+     * Adds a record, positions must be appended in ascending order.
+     */
+    void append(int position, int itemId, int accountId) {
+        byItem.computeIfAbsent(itemId, k -> new Positions()).append(position);
+        byAccount.computeIfAbsent(accountId, k -> new Positions()).append(position);
+    }
+
+    void add(int position, int itemId, int accountId) {
+        byItem.computeIfAbsent(itemId, k -> new Positions()).insert(position);
+        byAccount.computeIfAbsent(accountId, k -> new Positions()).insert(position);
+    }
+
+    void remove(int position, int itemId, int accountId) {
+        remove(byItem, itemId, position);
+        remove(byAccount, accountId, position);
+    }
+
+    /**
+     * Returns the number of records of the items (all items if empty) and account (all accounts if null). Records of an
+     * item must also pass matches when both an item and account filter are set.
+     */
+    int count(int[] items, Integer accountId, IntPredicate matches) {
+        int n = 0;
+        for (Positions p : lists(items, accountId)) {
+            if (needsCheck(items, accountId)) {
+                for (int i = 0; i < p.size; i++) {
+                    if (matches.test(p.positions[i])) {
+                        n++;
+                    }
+                }
+            } else {
+                n += p.size;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Returns the ascending positions of a page of the records of the items and account, see {@link #count}.
+     */
+    int[] page(int[] items, Integer accountId, IntPredicate matches, int toSkip, int pageSize) {
+        List<Positions> lists = lists(items, accountId);
+        boolean check = needsCheck(items, accountId);
+        if (lists.size() == 1 && !check) {
+            Positions p = lists.get(0);
+            int from = Math.min(toSkip, p.size);
+            return Arrays.copyOfRange(p.positions, from, Math.min(p.size, from + pageSize));
+        }
+        // merge the item lists back into record order, there are only as many lists as filtered items
+        int[] heads = new int[lists.size()];
+        int[] page = new int[pageSize];
+        int n = 0;
+        while (n < pageSize) {
+            int min = -1;
+            for (int l = 0; l < heads.length; l++) {
+                Positions p = lists.get(l);
+                if (heads[l] < p.size && (min < 0 || p.positions[heads[l]] < lists.get(min).positions[heads[min]])) {
+                    min = l;
+                }
+            }
+            if (min < 0) {
+                break;
+            }
+            int position = lists.get(min).positions[heads[min]++];
+            if (check && !matches.test(position)) {
+                continue;
+            }
+            if (toSkip > 0) {
+                toSkip--;
+            } else {
+                page[n++] = position;
+            }
+        }
+        return Arrays.copyOf(page, n);
+    }
+
+    private List<Positions> lists(int[] items, Integer accountId) {
+        List<Positions> lists = new ArrayList<>();
+        if (items.length == 0) {
+            Positions p = byAccount.get(accountId);
+            if (p != null) {
+                lists.add(p);
+            }
+            return lists;
+        }
+        for (int itemId : items) {
+            Positions p = byItem.get(itemId);
+            if (p != null) {
+                lists.add(p);
+            }
+        }
+        return lists;
+    }
+
+    private static boolean needsCheck(int[] items, Integer accountId) {
+        return items.length > 0 && accountId != null;
+    }
+
+    private static void remove(Map<Integer, Positions> index, int key, int position) {
+        Positions p = index.get(key);
+        if (p != null && p.remove(position) && p.size == 0) {
+            index.remove(key);
+        }
+    }
+
+    private static final class Positions {
+        private int[] positions = new int[4];
+        private int size;
+
+        void append(int position) {
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size + (size >> 1) + 1);
+            }
+            positions[size++] = position;
+        }
+
+        void insert(int position) {
+            int i = Arrays.binarySearch(positions, 0, size, position);
+            if (i >= 0) {
+                return;
+            }
+            i = -i - 1;
+            append(0);
+            System.arraycopy(positions, i, positions, i + 1, size - 1 - i);
+            positions[i] = position;
+        }
+
+        boolean remove(int position) {
+            int i = Arrays.binarySearch(positions, 0, size, position);
+            if (i < 0) {
+                return false;
+            }
+            System.arraycopy(positions, i + 1, positions, i, size - 1 - i);
+            size--;
+            return true;
+        }
+    }
+}
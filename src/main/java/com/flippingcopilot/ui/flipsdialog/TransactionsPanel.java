@@ -3,6 +3,7 @@ package com.flippingcopilot.ui.flipsdialog;
 import com.flippingcopilot.config.FlippingCopilotConfig;
 import com.flippingcopilot.controller.ApiRequestHandler;
 import com.flippingcopilot.controller.ItemController;
+import com.flippingcopilot.controller.Persistance;
 import com.flippingcopilot.model.*;
 import com.flippingcopilot.rs.CopilotLoginRS;
 import com.flippingcopilot.ui.Paginator;
@@ -64,7 +65,8 @@ public class TransactionsPanel extends JPanel {
     private JLabel errorLabel;
 
     // state
-    private TransactionDataWrapper transactionDataWrapper;
+    private volatile TransactionDataWrapper transactionDataWrapper;
+    private String transactionsDisplayName;
     private volatile Set<Integer> filteredItems = new HashSet<>();
     private volatile int pageSize = DEFAULT_PAGE_SIZE;
     private volatile int currentPage = 1;
@@ -242,19 +244,77 @@ public class TransactionsPanel extends JPanel {
 
         setSpinnerVisible(true);
         errorLabel.setVisible(false);
-        apiRequestHandler.asyncLoadTransactionsData(
-                displayName,
-                transactionsData -> SwingUtilities.invokeLater(() -> {
-                    setSpinnerVisible(false);
-                    transactionDataWrapper = new TransactionDataWrapper(transactionsData);
-                    applyFilters(true);
-                }),
-                error -> SwingUtilities.invokeLater(() -> {
-                    setSpinnerVisible(false);
-                    errorLabel.setVisible(true);
-                    log.error("Failed to load transactions: {}", error);
-                })
-        );
+        executorService.submit(() -> {
+            // show the locally stored transactions straight away while the latest ones are downloaded
+            TransactionDataWrapper store = openStore(displayName);
+            if (store.size() > 0) {
+                SwingUtilities.invokeLater(() -> setSpinnerVisible(false));
+                applyFilters(true);
+            }
+            apiRequestHandler.asyncLoadTransactionsData(
+                    displayName,
+                    transactionsData -> executorService.submit(() -> {
+                        if (!storeDownloaded(store, transactionsData)) {
+                            return;
+                        }
+                        SwingUtilities.invokeLater(() -> setSpinnerVisible(false));
+                        applyFilters(true);
+                    }),
+                    error -> SwingUtilities.invokeLater(() -> {
+                        setSpinnerVisible(false);
+                        if (store.size() == 0) {
+                            errorLabel.setVisible(true);
+                        }
+                        log.error("Failed to load transactions: {}", error);
+                    })
+            );
+        });
+    }
+
+    private synchronized TransactionDataWrapper openStore(String displayName) {
+        if (transactionDataWrapper != null && displayName.equals(transactionsDisplayName)) {
+            return transactionDataWrapper;
+        }
+        if (transactionDataWrapper != null) {
+            transactionDataWrapper.close();
+        }
+        try {
+            transactionDataWrapper = TransactionDataWrapper.open(Persistance.transactionsFile(displayName));
+        } catch (IOException e) {
+            log.warn("error opening transactions file for {}, keeping transactions in memory", displayName, e);
+            transactionDataWrapper = new TransactionDataWrapper(new byte[0]);
+        }
+        transactionsDisplayName = displayName;
+        return transactionDataWrapper;
+    }
+
+    /**
+     * Writes downloaded transactions into the store they were requested for. Returns false, dropping them, if the
+     * store has been closed or replaced by another account's since the request was made.
+     */
+    private synchronized boolean storeDownloaded(TransactionDataWrapper store, byte[] transactionsData) {
+        if (store != transactionDataWrapper) {
+            return false;
+        }
+        try {
+            store.replaceAll(transactionsData);
+        } catch (IOException e) {
+            log.warn("error storing transactions, keeping them in memory", e);
+            store.close();
+            transactionDataWrapper = new TransactionDataWrapper(transactionsData);
+        }
+        return true;
+    }
+
+    /**
+     * Closes the transactions store, for when the dialog the panel belongs to is rebuilt or closed.
+     */
+    public synchronized void dispose() {
+        if (transactionDataWrapper != null) {
+            transactionDataWrapper.close();
+            transactionDataWrapper = null;
+            transactionsDisplayName = null;
+        }
     }
 
     private boolean canLoadForCurrentPlayer() {
@@ -268,6 +328,9 @@ public class TransactionsPanel extends JPanel {
     private void applyFilters(boolean updateTotalPages) {
         executorService.submit(() -> {
             synchronized (this) {
+                if (transactionDataWrapper == null) {
+                    return;
+                }
                 try {
                     if (updateTotalPages) {
                         int n = transactionDataWrapper.totalRecords(filteredItems, selectedAccountId);
@@ -341,7 +404,7 @@ public class TransactionsPanel extends JPanel {
                 "Failed to delete transaction. Please try again.",
                 "deleting",
                 apiRequestHandler::asyncDeleteTransaction,
-                tx -> transactionDataWrapper.deleteOne(i -> tx.getId().equals(i.getId()))));
+                tx -> transactionDataWrapper.delete(tx.getId())));
         menu.show(e.getComponent(), e.getX(), e.getY());
     }
 
@@ -3,6 +3,7 @@ package com.flippingcopilot.ui.graph;
 import com.flippingcopilot.model.VisualizeFlipResponse;
 import com.flippingcopilot.ui.graph.model.*;
 import com.flippingcopilot.util.ProfitCalculator;
+import lombok.AccessLevel;
 import lombok.Getter;
 
 import java.awt.*;
@@ -12,23 +13,34 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
 
 
 @Getter
 public class DataManager {
 
-    public final List<Datapoint> highDatapoints = new ArrayList<>();
-    public final List<Datapoint> lowDatapoints = new ArrayList<>();
+    // the low and high series, with the datapoints the renderers draw built from them
+    public PriceSeries lowSeries;
+    public PriceSeries highSeries;
+    public final ArrayList<Datapoint> highDatapoints = new ArrayList<>();
+    public final ArrayList<Datapoint> lowDatapoints = new ArrayList<>();
     public final List<Datapoint> predictionLowDatapoints = new ArrayList<>();
     public final List<Datapoint> predictionHighDatapoints = new ArrayList<>();
-    public final List<Datapoint> volumes = new ArrayList<>();
+    public final ArrayList<Datapoint> volumes = new ArrayList<>();
 
     public final List<Datapoint> flipEntryDatapoints = new ArrayList<>();
     public final List<Datapoint> flipCloseDatapoints = new ArrayList<>();
     public int minEntryTime;
     public int maxCloseTime;
     public Bounds maxBounds = new Bounds();
+    // the price datapoints by hover position, rebuilt when the bounds change
+    @Getter(AccessLevel.NONE)
+    private final HoverIndex hoverIndex = new HoverIndex();
+    // min / max tables over the price datapoints and volumes for the zoom bounds
+    @Getter(AccessLevel.NONE)
+    private List<RangeTable> priceRangeTables = Collections.emptyList();
+    @Getter(AccessLevel.NONE)
+    private RangeTable volumeRangeTable = RangeTable.of(Collections.emptyList(), d -> 0, d -> 0, d -> 0);
 
     public final Data data;
     private final VisualizeFlipResponse fpr;
@@ -70,19 +82,7 @@ public class DataManager {
             return closest;
         }
 
-        minDistance = hoverRadius;
-
-        for(List<Datapoint> datapoints : Arrays.asList(highDatapoints, lowDatapoints, predictionLowDatapoints, predictionHighDatapoints)) {
-            for (Datapoint d : datapoints) {
-                Point hoverPosition = d.getHoverPosition(pa, bounds);
-                double distance = mousePos.distance(hoverPosition);
-                if (distance < minDistance) {
-                    minDistance = distance;
-                    closest = d;
-                }
-            }
-        }
-        return closest;
+        return hoverIndex.closest(Arrays.asList(highDatapoints, lowDatapoints, predictionLowDatapoints, predictionHighDatapoints), mousePos, hoverRadius, pa, bounds);
     }
 
 
@@ -97,30 +97,32 @@ public class DataManager {
             xMax += Math.max(range / 10, Constants.DAY_SECONDS);
             xMax = Math.min(xMax, maxBounds.xMax);
         }
-        int finalXMax = xMax;
-        int finalXMin = xMin;
-        Bounds b = calculateBounds((p) -> p.time > finalXMin && p.time < finalXMax);
+        Bounds b = calculateBounds((long) xMin + 1, (long) xMax - 1);
         b.xMax = xMax;
         b.xMin = xMin;
         return b;
     }
 
     public Bounds calculateWeekBounds() {
-        Bounds b = calculateBounds((p) -> p.time > maxBounds.xMax - 7 * Constants.DAY_SECONDS);
+        Bounds b = calculateBounds(maxBounds.xMax - 7 * Constants.DAY_SECONDS + 1, Long.MAX_VALUE);
         b.xMin= ((b.xMin) / Constants.HOUR_SECONDS) * Constants.HOUR_SECONDS;
         b.xMax = ((b.xMax) / Constants.HOUR_SECONDS) * Constants.HOUR_SECONDS + Constants.HOUR_SECONDS;
         return b;
     }
 
     public Bounds calculateMonthBounds() {
-        Bounds b = calculateBounds((p) -> p.time > maxBounds.xMax - 30 * Constants.DAY_SECONDS);
+        Bounds b = calculateBounds(maxBounds.xMax - 30 * Constants.DAY_SECONDS + 1, Long.MAX_VALUE);
         b.xMin= ((b.xMin) / Constants.HOUR_SECONDS) * Constants.HOUR_SECONDS;
         b.xMax = ((b.xMax) / Constants.HOUR_SECONDS) * Constants.HOUR_SECONDS + Constants.HOUR_SECONDS;
         return b;
     }
 
 
-    public Bounds calculateBounds(Predicate<Datapoint> p) {
+    /**
+     * The bounds fitting the datapoints with times from fromTime to toTime inclusive, and the volume bars overlapping
+     * that range.
+     */
+    public Bounds calculateBounds(long fromTime, long toTime) {
         Bounds b = new Bounds();
 
         b.xMin = Integer.MAX_VALUE;
@@ -130,45 +132,33 @@ public class DataManager {
         b.y2Min = 0;
         b.y2Max = 10;
 
-        long yMean = 0;
+        long sum = 0;
         long n = 0;
 
-        for(List<Datapoint> datapoints : Arrays.asList(highDatapoints, lowDatapoints, predictionLowDatapoints, predictionHighDatapoints, flipEntryDatapoints, flipCloseDatapoints)) {
-            for (Datapoint d : datapoints) {
-                if (p.test(d)) {
-                    n += 1;
-                    yMean += (d.price - yMean) / n;
-
-                    b.xMin = Math.min(b.xMin, d.time);
-                    b.xMax = Math.max(b.xMax, d.time);
-
-                    // Update price bounds
-                    b.yMin = Math.min(b.yMin, d.price);
-                    b.yMax = Math.max(b.yMax, d.price);
-
-                    // Check IQR bounds for prediction points
-                    if (d.type == Datapoint.Type.PREDICTION) {
-                        if (d.iqrLower != null) {
-                            b.yMin = Math.min(b.yMin, d.iqrLower);
-                        }
-                        if (d.iqrUpper != null) {
-                            b.yMax = Math.max(b.yMax, d.iqrUpper);
-                        }
-                    }
-                }
+        for (RangeTable t : priceRangeTables) {
+            int i = t.from(fromTime);
+            int j = t.to(toTime);
+            if (i >= j) {
+                continue;
             }
+            n += j - i;
+            sum += t.sum(i, j);
+            b.xMin = Math.min(b.xMin, t.time(i));
+            b.xMax = Math.max(b.xMax, t.time(j - 1));
+            // the table mins and maxes include the IQR bounds of prediction points
+            b.yMin = Math.min(b.yMin, t.min(i, j));
+            b.yMax = Math.max(b.yMax, t.max(i, j));
         }
-        for (Datapoint d : volumes) {
-            if (p.test(d)) {
-                b.y2Max = Math.max(b.y2Max, d.highVolume + d.lowVolume);
-            }
-            d.time += Constants.HOUR_SECONDS;
-            if (p.test(d)) {
-                b.y2Max = Math.max(b.y2Max, d.highVolume + d.lowVolume);
+        // a bar is in range if its start or end is
+        for (long shift : new long[]{0, Constants.HOUR_SECONDS}) {
+            int i = volumeRangeTable.from(fromTime == Long.MIN_VALUE ? fromTime : fromTime - shift);
+            int j = volumeRangeTable.to(toTime == Long.MAX_VALUE ? toTime : toTime - shift);
+            if (i < j) {
+                b.y2Max = Math.max(b.y2Max, volumeRangeTable.max(i, j));
             }
-            d.time -= Constants.HOUR_SECONDS;
         }
         b.y2Max += b.y2Max / 10;
+        long yMean = n == 0 ? 0 : sum / n;
         long pricePadding = Math.max(1L, (yMean / 100) * 3 + ((yMean % 100) * 3) / 100);
 
         b.yMin = Math.max(0L, b.yMin - Math.min(b.yMin, pricePadding));
@@ -177,44 +167,16 @@ public class DataManager {
         return b;
     }
 
-    private void addPriceDatapoints(List<Datapoint> target,
-                                    int[] latestTimes,
-                                    long[] latestPrices,
-                                    int[] fiveMinTimes,
-                                    long[] fiveMinPrices,
-                                    int[] hourTimes,
-                                    long[] hourPrices,
-                                    boolean isLow) {
-        for (int i = 0; i < latestTimes.length; i++) {
-            target.add(new Datapoint(latestTimes[i], latestPrices[i], isLow, Datapoint.Type.INSTA_SELL_BUY));
-        }
-        int fiveMinCut = removeBeforeNextBucket(target, Constants.FIVE_MIN_SECONDS);
-        addHistoricalPoints(target, fiveMinTimes, fiveMinPrices, fiveMinCut, isLow, Datapoint.Type.FIVE_MIN_AVERAGE);
-
-        int hourCut = removeBeforeNextBucket(target, Constants.HOUR_SECONDS);
-        addHistoricalPoints(target, hourTimes, hourPrices, hourCut, isLow, Datapoint.Type.HOUR_AVERAGE);
-    }
-
-    private int removeBeforeNextBucket(List<Datapoint> target, int bucketSeconds) {
-        if (target.isEmpty()) {
-            return Integer.MAX_VALUE;
-        }
-        int cut = bucketSeconds * (target.get(0).time / bucketSeconds) + bucketSeconds;
-        target.removeIf(i -> i.time < cut);
-        return cut;
-    }
-
-    private void addHistoricalPoints(List<Datapoint> target,
-                                     int[] times,
-                                     long[] prices,
-                                     int cut,
-                                     boolean isLow,
-                                     Datapoint.Type type) {
-        for (int i = times.length - 1; i >= 0; i--) {
-            if (times[i] < cut) {
-                target.add(0, new Datapoint(times[i], prices[i], isLow, type));
-            }
+    private void buildRangeTables() {
+        priceRangeTables = new ArrayList<>();
+        for (List<Datapoint> datapoints : Arrays.asList(highDatapoints, lowDatapoints, predictionLowDatapoints, predictionHighDatapoints, flipEntryDatapoints, flipCloseDatapoints)) {
+            priceRangeTables.add(RangeTable.of(datapoints,
+                    d -> d.type == Datapoint.Type.PREDICTION && d.iqrLower != null ? Math.min(d.price, d.iqrLower) : d.price,
+                    d -> d.type == Datapoint.Type.PREDICTION && d.iqrUpper != null ? Math.max(d.price, d.iqrUpper) : d.price,
+                    d -> d.price));
         }
+        ToLongFunction<Datapoint> volume = d -> d.highVolume + d.lowVolume;
+        volumeRangeTable = RangeTable.of(volumes, volume, volume, volume);
     }
 
     private void processDatapoints() {
@@ -234,10 +196,14 @@ public class DataManager {
             return;
         }
 
-        addPriceDatapoints(lowDatapoints, data.lowLatestTimes, data.lowLatestPrices,
+        lowSeries = PriceSeries.assemble(data.lowLatestTimes, data.lowLatestPrices,
                 data.low5mTimes, data.low5mPrices, data.low1hTimes, data.low1hPrices, true);
-        addPriceDatapoints(highDatapoints, data.highLatestTimes, data.highLatestPrices,
+        highSeries = PriceSeries.assemble(data.highLatestTimes, data.highLatestPrices,
                 data.high5mTimes, data.high5mPrices, data.high1hTimes, data.high1hPrices, false);
+        lowDatapoints.ensureCapacity(lowSeries.size);
+        lowSeries.addDatapointsTo(lowDatapoints);
+        highDatapoints.ensureCapacity(highSeries.size);
+        highSeries.addDatapointsTo(highDatapoints);
 
 
         if(data.predictionTimes != null) {
@@ -259,8 +225,9 @@ public class DataManager {
             }
         }
 
-        for (int i = data.volume1hLows.length-1; i >= 0; i--) {
-            volumes.add(0, Datapoint.newVolumeDatapoint(data.volume1hTimes[i], data.volume1hLows[i], data.volume1hHighs[i]));
+        volumes.ensureCapacity(data.volume1hLows.length + 1);
+        for (int i = 0; i < data.volume1hLows.length; i++) {
+            volumes.add(Datapoint.newVolumeDatapoint(data.volume1hTimes[i], data.volume1hLows[i], data.volume1hHighs[i]));
         }
         int current1hTime = data.volume1hTimes[data.volume1hTimes.length-1] + Constants.HOUR_SECONDS;
         int currentHourLowVolume = 0;
@@ -298,7 +265,8 @@ public class DataManager {
             }
         }
 
-        maxBounds = calculateBounds((p) -> true);
+        buildRangeTables();
+        maxBounds = calculateBounds(Long.MIN_VALUE, Long.MAX_VALUE);
         maxBounds.xMin= ((maxBounds.xMin) / Constants.HOUR_SECONDS) * Constants.HOUR_SECONDS;
         maxBounds.xMax = ((maxBounds.xMax) / Constants.HOUR_SECONDS) * Constants.HOUR_SECONDS + Constants.HOUR_SECONDS;
     }
@@ -6,6 +6,9 @@ import com.flippingcopilot.ui.graph.model.*;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 public class GraphPanel extends JPanel {
 
@@ -14,6 +17,9 @@ public class GraphPanel extends JPanel {
     private final RenderV2 renderer;
     public final ZoomHandler zoomHandler;
     private final DatapointTooltip tooltip;
+    private final SeriesDecimator lowDecimator = new SeriesDecimator();
+    private final SeriesDecimator highDecimator = new SeriesDecimator();
+    private final LayerCache staticLayer = new LayerCache();
     private PriceLine priceLine;
 
     public Bounds bounds;
@@ -192,6 +198,31 @@ public class GraphPanel extends JPanel {
         g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
         g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
 
+        // everything but the hover and zoom overlays only changes with the data, bounds and config
+        List<Object> key = Arrays.asList(dataManager, priceLine, bounds.xMin, bounds.xMax, bounds.yMin, bounds.yMax,
+                bounds.y2Min, bounds.y2Max, config.connectPoints, config.showSuggestedPriceLines, config.lowColor,
+                config.highColor, config.lowShadeColor, config.highShadeColor, config.plotAreaColor, config.textColor,
+                config.axisColor, config.gridColor);
+        staticLayer.draw(g2d, this, key, (g2) -> paintStaticLayer(g2, data, config));
+
+        zoomHandler.drawButtons(g2d, pricePa, mousePosition);
+        zoomHandler.drawSelectionRectangle(g2d, pricePa);
+
+        // Draw tooltip for hovered point
+        if (hoveredPoint != null) {
+            if (hoveredPoint.type == Datapoint.Type.VOLUME_1H) {
+                renderer.drawHoveredVolumeBar(g2d, volumePa, bounds, hoveredPoint);
+                tooltip.drawVolume(g2d, config, volumePa, bounds, hoveredPoint);
+            } else {
+                if (hoveredPoint.type == Datapoint.Type.FLIP_TRANSACTION) {
+                    renderer.drawTxsDatapoints(g2d, pricePa, bounds, Collections.singletonList(hoveredPoint), hoveredPoint, config);
+                }
+                tooltip.draw(g2d, config, pricePa, bounds, hoveredPoint);
+            }
+        }
+    }
+
+    private void paintStaticLayer(Graphics2D g2d, Data data, Config config) {
         // First draw the legend above the plot area
         renderer.drawLegend(g2d, config, pricePa, data.predictionTimes != null);
 
@@ -214,11 +245,11 @@ public class GraphPanel extends JPanel {
 
 
         int pointSize = dynamicPointSize(Config.BASE_POINT_SIZE, bounds);
-        renderer.drawPoints(g2d, pricePa, bounds, dataManager.lowDatapoints, config.lowColor, pointSize);
-        renderer.drawPoints(g2d, pricePa, bounds, dataManager.highDatapoints, config.highColor, pointSize);
+        renderer.drawPoints(g2d, pricePa, bounds, lowDecimator.points(dataManager.lowDatapoints, pricePa, bounds), config.lowColor, pointSize);
+        renderer.drawPoints(g2d, pricePa, bounds, highDecimator.points(dataManager.highDatapoints, pricePa, bounds), config.highColor, pointSize);
         if (config.connectPoints) {
-            renderer.drawLines(g2d, pricePa, bounds, dataManager.lowDatapoints, config.lowColor, Config.NORMAL_STROKE);
-            renderer.drawLines(g2d, pricePa, bounds, dataManager.highDatapoints, config.highColor, Config.NORMAL_STROKE);
+            renderer.drawLines(g2d, pricePa, bounds, lowDecimator.line(dataManager.lowDatapoints, pricePa, bounds), config.lowColor, Config.NORMAL_STROKE);
+            renderer.drawLines(g2d, pricePa, bounds, highDecimator.line(dataManager.highDatapoints, pricePa, bounds), config.highColor, Config.NORMAL_STROKE);
         }
         renderer.drawStartPoints(g2d, pricePa, bounds, dataManager.buyPriceDataPoint(), Color.WHITE, pointSize);
         renderer.drawStartPoints(g2d, pricePa, bounds, dataManager.sellPriceDataPoint(), Color.WHITE, pointSize);
@@ -232,27 +263,16 @@ public class GraphPanel extends JPanel {
             renderer.drawPredictionIQR(g2d, config, pricePa, bounds, data.predictionTimes, data.predictionLowIQRLower, data.predictionLowIQRUpper, true);
             renderer.drawPredictionIQR(g2d, config, pricePa, bounds, data.predictionTimes, data.predictionHighIQRLower, data.predictionHighIQRUpper, false);
         }
-        zoomHandler.drawButtons(g2d, pricePa, mousePosition);
-        zoomHandler.drawSelectionRectangle(g2d, pricePa);
 
-        renderer.drawVolumeBars(g2d, config, volumePa, bounds, dataManager.volumes, hoveredPoint);
+        renderer.drawVolumeBars(g2d, config, volumePa, bounds, dataManager.volumes, null);
 
 
         if(!this.dataManager.flipEntryDatapoints.isEmpty()) {
-            renderer.drawTxsDatapoints(g2d, pricePa, bounds, this.dataManager.flipEntryDatapoints, hoveredPoint, config);
+            renderer.drawTxsDatapoints(g2d, pricePa, bounds, this.dataManager.flipEntryDatapoints, null, config);
         }
 
         if(!this.dataManager.flipCloseDatapoints.isEmpty()) {
-            renderer.drawTxsDatapoints(g2d, pricePa, bounds, this.dataManager.flipCloseDatapoints, hoveredPoint, config);
-        }
-
-        // Draw tooltip for hovered point
-        if (hoveredPoint != null) {
-            if (hoveredPoint.type == Datapoint.Type.VOLUME_1H) {
-                tooltip.drawVolume(g2d, config, volumePa, bounds, hoveredPoint);
-            } else {
-                tooltip.draw(g2d, config, pricePa, bounds, hoveredPoint);
-            }
+            renderer.drawTxsDatapoints(g2d, pricePa, bounds, this.dataManager.flipCloseDatapoints, null, config);
         }
     }
 
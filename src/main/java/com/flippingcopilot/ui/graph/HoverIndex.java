@@ -0,0 +1,144 @@
+package com.flippingcopilot.ui.graph;
+
+import com.flippingcopilot.ui.graph.model.Bounds;
+import com.flippingcopilot.ui.graph.model.Constants;
+import com.flippingcopilot.ui.graph.model.Datapoint;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The hover positions of the price datapoints near the plot area sorted by x, so finding the point under the mouse
+ * only looks at the points within the hover radius of its x rather than every point. Rebuilt when the series, bounds
+ * or plot area change.
+ */
+class HoverIndex {
+
+    private List<List<Datapoint>> source = new ArrayList<>();
+    private int xMin, xMax, paX, paY, paWidth, paHeight, radius;
+    private long yMin, yMax;
+
+    private int size;
+    // hover x in the high 32 bits and the point's index in the low 32 so sorting orders the points by x
+    private long[] keys = new long[0];
+    private int[] ys = new int[0];
+    private Datapoint[] datapoints = new Datapoint[0];
+
+    /**
+     * The point whose hover position is closest to the mouse and less than hoverRadius from it. Where points are
+     * equally close the first in the order of the lists wins.
+     */
+    Datapoint closest(List<List<Datapoint>> lists, Point mousePos, int hoverRadius, Rectangle pa, Bounds bounds) {
+        update(lists, hoverRadius, pa, bounds);
+        int from = firstAtOrAfter((long) (mousePos.x - hoverRadius) << 32);
+        long end = (long) (mousePos.x + hoverRadius + 1) << 32;
+        Datapoint closest = null;
+        int closestIndex = Integer.MAX_VALUE;
+        double minDistance = hoverRadius;
+        for (int i = from; i < size && keys[i] < end; i++) {
+            int x = (int) (keys[i] >> 32);
+            int index = (int) keys[i];
+            double distance = mousePos.distance(x, ys[index]);
+            if (distance < minDistance || (distance == minDistance && closest != null && index < closestIndex)) {
+                minDistance = distance;
+                closest = datapoints[index];
+                closestIndex = index;
+            }
+        }
+        return closest;
+    }
+
+    private void update(List<List<Datapoint>> lists, int hoverRadius, Rectangle pa, Bounds bounds) {
+        if (sameLists(lists) && hoverRadius == radius && bounds.xMin == xMin && bounds.xMax == xMax && bounds.yMin == yMin
+                && bounds.yMax == yMax && pa.x == paX && pa.y == paY && pa.width == paWidth && pa.height == paHeight) {
+            return;
+        }
+        source = new ArrayList<>(lists);
+        radius = hoverRadius;
+        xMin = bounds.xMin;
+        xMax = bounds.xMax;
+        yMin = bounds.yMin;
+        yMax = bounds.yMax;
+        paX = pa.x;
+        paY = pa.y;
+        paWidth = pa.width;
+        paHeight = pa.height;
+        build(lists, hoverRadius, pa, bounds);
+    }
+
+    private boolean sameLists(List<List<Datapoint>> lists) {
+        if (lists.size() != source.size()) {
+            return false;
+        }
+        for (int i = 0; i < lists.size(); i++) {
+            if (lists.get(i) != source.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void build(List<List<Datapoint>> lists, int hoverRadius, Rectangle pa, Bounds bounds) {
+        // the mouse is over the plot area so only points hovered within the radius of it can be found
+        int minX = pa.x - hoverRadius;
+        int maxX = pa.x + pa.width + hoverRadius;
+        // a time range that's sure to hold all of those, hover positions are up to half an hour right of the point
+        long margin = pa.width == 0 ? 0 : (long) (hoverRadius + 1) * bounds.xDelta() / pa.width + 1;
+        long fromTime = bounds.xMin - margin - Constants.HOUR_SECONDS;
+        long toTime = bounds.xMax + margin;
+
+        int capacity = 0;
+        for (List<Datapoint> l : lists) {
+            capacity += l.size();
+        }
+        if (keys.length < capacity) {
+            keys = new long[capacity];
+            ys = new int[capacity];
+            datapoints = new Datapoint[capacity];
+        }
+        size = 0;
+        for (List<Datapoint> l : lists) {
+            for (int i = firstAtOrAfter(l, fromTime); i < l.size() && l.get(i).time <= toTime; i++) {
+                Datapoint d = l.get(i);
+                Point p = d.getHoverPosition(pa, bounds);
+                if (p.x < minX || p.x > maxX) {
+                    continue;
+                }
+                keys[size] = ((long) p.x << 32) | size;
+                ys[size] = p.y;
+                datapoints[size] = d;
+                size++;
+            }
+        }
+        Arrays.fill(datapoints, size, datapoints.length, null);
+        Arrays.sort(keys, 0, size);
+    }
+
+    private int firstAtOrAfter(long key) {
+        int lo = 0, hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static int firstAtOrAfter(List<Datapoint> l, long time) {
+        int lo = 0, hi = l.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (l.get(mid).time < time) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,63 @@
+package com.flippingcopilot.ui.graph;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A layer of a panel that only changes with a few inputs, such as the axes and series of a graph. It's painted into an
+ * image once and the image is drawn on later repaints until the panel size or the key of those inputs changes, so a
+ * repaint for a hover only has to draw what's over it.
+ */
+public class LayerCache {
+
+    private BufferedImage image;
+    private int width, height;
+    private List<Object> key;
+
+    public void draw(Graphics2D g, Component c, List<Object> key, Consumer<Graphics2D> painter) {
+        int w = c.getWidth();
+        int h = c.getHeight();
+        if (w <= 0 || h <= 0) {
+            return;
+        }
+        // paint at the device resolution so the layer isn't blurry on scaled displays
+        AffineTransform t = g.getTransform();
+        int iw = (int) Math.ceil(w * t.getScaleX());
+        int ih = (int) Math.ceil(h * t.getScaleY());
+        if (image == null || w != width || h != height || image.getWidth() != iw || image.getHeight() != ih) {
+            GraphicsConfiguration gc = c.getGraphicsConfiguration();
+            image = gc != null
+                    ? gc.createCompatibleImage(iw, ih, Transparency.TRANSLUCENT)
+                    : new BufferedImage(iw, ih, BufferedImage.TYPE_INT_ARGB);
+            width = w;
+            height = h;
+            this.key = null;
+        }
+        if (!key.equals(this.key)) {
+            Graphics2D ig = image.createGraphics();
+            try {
+                ig.setComposite(AlphaComposite.Clear);
+                ig.fillRect(0, 0, iw, ih);
+                ig.setComposite(AlphaComposite.SrcOver);
+                ig.setRenderingHints(g.getRenderingHints());
+                ig.setFont(g.getFont());
+                ig.scale((double) iw / w, (double) ih / h);
+                painter.accept(ig);
+            } finally {
+                ig.dispose();
+            }
+            this.key = key;
+        }
+        g.drawImage(image, 0, 0, w, h, null);
+    }
+
+    /**
+     * Repaints the layer on the next draw, for when something outside the key has changed.
+     */
+    public void invalidate() {
+        key = null;
+    }
+}
@@ -0,0 +1,113 @@
+package com.flippingcopilot.ui.graph;
+
+import com.flippingcopilot.ui.graph.model.Datapoint;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Sparse tables over a series sorted by time, answering the min, max and sum of its values over any time range in
+ * constant time after a binary search for the range's ends, so zoom bounds don't need a scan of the series.
+ */
+class RangeTable {
+
+    private final int[] times;
+    // level k holds the min / max of the 2^k values starting at each index
+    private final long[][] mins;
+    private final long[][] maxes;
+    // prefix sums, sums[i] is the sum of the first i values
+    private final long[] sums;
+
+    private RangeTable(int[] times, long[] lows, long[] highs, long[] values) {
+        int n = times.length;
+        this.times = times;
+        int levels = n == 0 ? 0 : 32 - Integer.numberOfLeadingZeros(n);
+        mins = new long[levels][];
+        maxes = new long[levels][];
+        if (levels > 0) {
+            mins[0] = lows;
+            maxes[0] = highs;
+        }
+        for (int k = 1; k < levels; k++) {
+            int half = 1 << (k - 1);
+            int size = n - (1 << k) + 1;
+            mins[k] = new long[size];
+            maxes[k] = new long[size];
+            for (int i = 0; i < size; i++) {
+                mins[k][i] = Math.min(mins[k - 1][i], mins[k - 1][i + half]);
+                maxes[k][i] = Math.max(maxes[k - 1][i], maxes[k - 1][i + half]);
+            }
+        }
+        sums = new long[n + 1];
+        for (int i = 0; i < n; i++) {
+            sums[i + 1] = sums[i] + values[i];
+        }
+    }
+
+    /**
+     * A table over the datapoints, which don't need to be in time order. Each point counts as low towards the min, high
+     * towards the max and value towards the sum.
+     */
+    static RangeTable of(List<Datapoint> datapoints, ToLongFunction<Datapoint> low, ToLongFunction<Datapoint> high, ToLongFunction<Datapoint> value) {
+        Datapoint[] sorted = datapoints.toArray(new Datapoint[0]);
+        Arrays.sort(sorted, Comparator.comparingInt((Datapoint d) -> d.time));
+        int n = sorted.length;
+        int[] times = new int[n];
+        long[] lows = new long[n];
+        long[] highs = new long[n];
+        long[] values = new long[n];
+        for (int i = 0; i < n; i++) {
+            times[i] = sorted[i].time;
+            lows[i] = low.applyAsLong(sorted[i]);
+            highs[i] = high.applyAsLong(sorted[i]);
+            values[i] = value.applyAsLong(sorted[i]);
+        }
+        return new RangeTable(times, lows, highs, values);
+    }
+
+    /**
+     * The index of the first point at or after the time.
+     */
+    int from(long time) {
+        int lo = 0, hi = times.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (times[mid] < time) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * The index after the last point at or before the time.
+     */
+    int to(long time) {
+        return time == Long.MAX_VALUE ? times.length : from(time + 1);
+    }
+
+    int time(int i) {
+        return times[i];
+    }
+
+    /**
+     * The min of the points from index i up to but not including j, i must be less than j.
+     */
+    long min(int i, int j) {
+        int k = 31 - Integer.numberOfLeadingZeros(j - i);
+        return Math.min(mins[k][i], mins[k][j - (1 << k)]);
+    }
+
+    long max(int i, int j) {
+        int k = 31 - Integer.numberOfLeadingZeros(j - i);
+        return Math.max(maxes[k][i], maxes[k][j - (1 << k)]);
+    }
+
+    long sum(int i, int j) {
+        return sums[j] - sums[i];
+    }
+}
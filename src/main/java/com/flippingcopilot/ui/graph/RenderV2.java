@@ -149,15 +149,23 @@ public class RenderV2 {
 
         java.awt.geom.Path2D.Float path = new java.awt.geom.Path2D.Float();
 
-        // Start the path at the first point
-        int x = bounds.toX(pa,datapoints.get(0).time);
-        int y = bounds.toY(pa,datapoints.get(0).price);
+        // only the segments that cross the bounds are added, the datapoints are in time order
+        int start = 0;
+        while (start < datapoints.size() - 1 && datapoints.get(start + 1).time < bounds.xMin) {
+            start++;
+        }
+        int x = bounds.toX(pa,datapoints.get(start).time);
+        int y = bounds.toY(pa,datapoints.get(start).price);
         path.moveTo(x, y);
 
-        for (Datapoint d : datapoints.subList(1, datapoints.size())) {
+        for (int i = start + 1; i < datapoints.size(); i++) {
+            Datapoint d = datapoints.get(i);
             x = bounds.toX(pa,d.time);
             y = bounds.toY(pa,d.price);
             path.lineTo(x, y);
+            if (d.time > bounds.xMax) {
+                break;
+            }
         }
 
         g2d.draw(path);
@@ -363,6 +371,19 @@ public class RenderV2 {
         g2d.setClip(originalClip); // restore original clip
     }
 
+    public void drawHoveredVolumeBar(Graphics2D g2d, Rectangle pa, Bounds bounds, Datapoint v) {
+        java.awt.Shape originalClip = g2d.getClip();
+        g2d.setClip(pa.x, pa.y, pa.width, pa.height);
+        int x1 = bounds.toX(pa, v.time);
+        int x2 = bounds.toX(pa, v.time + Constants.HOUR_SECONDS);
+        int y1 = bounds.toY2(pa, v.highVolume + v.lowVolume);
+        int y3 = bounds.toY2(pa, 0);
+        g2d.setColor(Color.WHITE);
+        g2d.setStroke(Config.THICK_STROKE);
+        g2d.drawRect(x1, y1, x2 - x1, y3 - y1);
+        g2d.setClip(originalClip); // restore original clip
+    }
+
     public void drawTxsDatapoints(Graphics2D g2d,
                                   Rectangle pa,
                                   Bounds bounds,
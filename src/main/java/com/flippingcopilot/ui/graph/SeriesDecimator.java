@@ -0,0 +1,139 @@
+package com.flippingcopilot.ui.graph;
+
+import com.flippingcopilot.ui.graph.model.Bounds;
+import com.flippingcopilot.ui.graph.model.Datapoint;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Thins a time sorted price series down to what can actually be seen at the current zoom, so a repaint draws at most
+ * a few shapes per pixel column rather than every point. The points keep one point per pixel they land on and the line
+ * keeps the first, min, max and last point of each pixel column, both draw the same pixels as the full series. The
+ * result is cached until the series, bounds or plot area change.
+ */
+class SeriesDecimator {
+
+    // points further than this outside the plot area can't reach into it so they share a cell
+    private static final int OFF_AREA_MARGIN = 16;
+    private static final int TYPES = Datapoint.Type.values().length;
+
+    private List<Datapoint> source;
+    private int xMin, xMax, paX, paY, paWidth, paHeight;
+    private long yMin, yMax;
+
+    private final List<Datapoint> points = new ArrayList<>();
+    private final List<Datapoint> line = new ArrayList<>();
+    private final BitSet seen = new BitSet();
+
+    /**
+     * The points to draw as markers, only those inside the bounds.
+     */
+    List<Datapoint> points(List<Datapoint> series, Rectangle pa, Bounds bounds) {
+        update(series, pa, bounds);
+        return points;
+    }
+
+    /**
+     * The points to draw as a connected line, including the nearest point either side of the bounds so the line runs
+     * off the edges of the plot area.
+     */
+    List<Datapoint> line(List<Datapoint> series, Rectangle pa, Bounds bounds) {
+        update(series, pa, bounds);
+        return line;
+    }
+
+    private void update(List<Datapoint> series, Rectangle pa, Bounds bounds) {
+        if (series == source && bounds.xMin == xMin && bounds.xMax == xMax && bounds.yMin == yMin && bounds.yMax == yMax
+                && pa.x == paX && pa.y == paY && pa.width == paWidth && pa.height == paHeight) {
+            return;
+        }
+        source = series;
+        xMin = bounds.xMin;
+        xMax = bounds.xMax;
+        yMin = bounds.yMin;
+        yMax = bounds.yMax;
+        paX = pa.x;
+        paY = pa.y;
+        paWidth = pa.width;
+        paHeight = pa.height;
+        decimate(series, pa, bounds);
+    }
+
+    private void decimate(List<Datapoint> series, Rectangle pa, Bounds bounds) {
+        points.clear();
+        line.clear();
+        int from = firstAtOrAfter(series, bounds.xMin);
+        int to = firstAtOrAfter(series, bounds.xMax + 1);
+
+        if (from > 0) {
+            line.add(series.get(from - 1));
+        }
+        int column = Integer.MIN_VALUE;
+        Datapoint first = null, min = null, max = null, last = null;
+        for (int i = from; i < to; i++) {
+            Datapoint d = series.get(i);
+            int x = bounds.toX(pa, d.time);
+            if (x != column) {
+                addColumn(first, min, max, last);
+                column = x;
+                first = min = max = d;
+                seen.clear();
+            } else {
+                if (d.price < min.price) {
+                    min = d;
+                }
+                if (d.price > max.price) {
+                    max = d;
+                }
+            }
+            last = d;
+
+            // points of the same type landing on the same pixel draw the same shape
+            int y = Math.max(-OFF_AREA_MARGIN, Math.min(pa.height + OFF_AREA_MARGIN, bounds.toY(pa, d.price) - pa.y));
+            int cell = (y + OFF_AREA_MARGIN) * TYPES + d.type.ordinal();
+            if (!seen.get(cell)) {
+                seen.set(cell);
+                points.add(d);
+            }
+        }
+        addColumn(first, min, max, last);
+        if (to < series.size()) {
+            line.add(series.get(to));
+        }
+    }
+
+    private void addColumn(Datapoint first, Datapoint min, Datapoint max, Datapoint last) {
+        if (first == null) {
+            return;
+        }
+        // keep the column's points in time order so the line is drawn through them as it would be unthinned
+        line.add(first);
+        Datapoint a = min.time <= max.time ? min : max;
+        Datapoint b = a == min ? max : min;
+        if (a != first && a != last) {
+            line.add(a);
+        }
+        if (b != first && b != last && b != a) {
+            line.add(b);
+        }
+        if (last != first) {
+            line.add(last);
+        }
+    }
+
+    private static int firstAtOrAfter(List<Datapoint> series, int time) {
+        int lo = 0, hi = series.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (series.get(mid).time < time) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
@@ -72,6 +72,11 @@ public class Data {
     public long sellPrice;
     public long buyPrice;
 
+    // version of the price history series, 0 if the server doesn't version them (see GraphDataCache)
+    public long graphDataVersion;
+    // if set the price history series only hold the points added since this version of them
+    public Long graphDataBaseVersion;
+
 
     public static Data fromMsgPack(ByteBuffer b) {
         Data d = new Data();
@@ -118,6 +123,43 @@ public class Data {
                 case "hlp64":
                     d.highLatestPrices = MsgPackUtil.decodeLongArray(b);
                     break;
+                // delta encoded series, sent instead of the above when the request asks for them
+                case "l1htd":
+                    d.low1hTimes = MsgPackUtil.decodeDelta2Int32Array(b);
+                    break;
+                case "l1hpd":
+                    d.low1hPrices = MsgPackUtil.decodeDeltaLongArray(b);
+                    break;
+                case "h1htd":
+                    d.high1hTimes = MsgPackUtil.decodeDelta2Int32Array(b);
+                    break;
+                case "h1hpd":
+                    d.high1hPrices = MsgPackUtil.decodeDeltaLongArray(b);
+                    break;
+                case "l5mtd":
+                    d.low5mTimes = MsgPackUtil.decodeDelta2Int32Array(b);
+                    break;
+                case "l5mpd":
+                    d.low5mPrices = MsgPackUtil.decodeDeltaLongArray(b);
+                    break;
+                case "h5mtd":
+                    d.high5mTimes = MsgPackUtil.decodeDelta2Int32Array(b);
+                    break;
+                case "h5mpd":
+                    d.high5mPrices = MsgPackUtil.decodeDeltaLongArray(b);
+                    break;
+                case "lltd":
+                    d.lowLatestTimes = MsgPackUtil.decodeDelta2Int32Array(b);
+                    break;
+                case "llpd":
+                    d.lowLatestPrices = MsgPackUtil.decodeDeltaLongArray(b);
+                    break;
+                case "hltd":
+                    d.highLatestTimes = MsgPackUtil.decodeDelta2Int32Array(b);
+                    break;
+                case "hlpd":
+                    d.highLatestPrices = MsgPackUtil.decodeDeltaLongArray(b);
+                    break;
                 case "pt":
                     d.predictionTimes = MsgPackUtil.decodeInt32Array(b);
                     break;
@@ -140,7 +182,7 @@ public class Data {
                     d.predictionHighIQRLower = MsgPackUtil.decodeLongArray(b);
                     break;
                 case "id":
-                    d.itemId =  (int) (long)MsgPackUtil.decodePrimitive(b);
+                    d.itemId = (int) MsgPackUtil.decodeLong(b);
                     break;
                 case "n":
                     d.name = (String) MsgPackUtil.decodePrimitive(b);
@@ -149,10 +191,16 @@ public class Data {
                     d.dailyVolume = (double) MsgPackUtil.decodePrimitive(b);
                     break;
                 case "sp":
-                    d.sellPrice = (long) (long) MsgPackUtil.decodePrimitive(b);
+                    d.sellPrice = MsgPackUtil.decodeLong(b);
                     break;
                 case "bp":
-                    d.buyPrice = (long) MsgPackUtil.decodePrimitive(b);
+                    d.buyPrice = MsgPackUtil.decodeLong(b);
+                    break;
+                case "gdv":
+                    d.graphDataVersion = MsgPackUtil.decodeLong(b);
+                    break;
+                case "gdb":
+                    d.graphDataBaseVersion = MsgPackUtil.decodeLong(b);
                     break;
                 case "v1ht":
                     d.volume1hTimes = MsgPackUtil.decodeInt32Array(b);
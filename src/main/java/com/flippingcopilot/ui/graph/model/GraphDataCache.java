@@ -0,0 +1,180 @@
+package com.flippingcopilot.ui.graph.model;
+
+import com.google.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * The price history series of the graph data of recently shown items, by item id. Requests advertise the cached
+ * versions so the server can send only the points added since (or none if unmodified) rather than the whole history.
+ */
+@Slf4j
+@Singleton
+public class GraphDataCache {
+
+    private static final int MAX_ITEMS = 16;
+    // how far back from its newest point each series is kept, at least as far as the server sends it
+    private static final int WINDOW_1H = 186 * Constants.DAY_SECONDS;
+    private static final int WINDOW_5M = 31 * Constants.DAY_SECONDS;
+    private static final int WINDOW_LATEST = 7 * Constants.DAY_SECONDS;
+
+    private final Map<Integer, Data> cache = new LinkedHashMap<Integer, Data>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Data> eldest) {
+            return size() > MAX_ITEMS;
+        }
+    };
+
+    /**
+     * Returns the "itemId:version" list of the cached graph data of the item (or all items if null), null if none.
+     */
+    public synchronized String versions(Integer itemId) {
+        StringJoiner versions = new StringJoiner(",");
+        for (Map.Entry<Integer, Data> e : cache.entrySet()) {
+            if (itemId == null || itemId.equals(e.getKey())) {
+                versions.add(e.getKey() + ":" + e.getValue().graphDataVersion);
+            }
+        }
+        return versions.length() == 0 ? null : versions.toString();
+    }
+
+    /**
+     * Prepends the cached points to the price history series of data if it only holds the points since a cached
+     * version, then caches the result. Returns false if that cached version is no longer held.
+     */
+    public synchronized boolean merge(Data d) {
+        if (d.graphDataVersion == 0) {
+            // the server doesn't version graph data
+            return true;
+        }
+        if (d.graphDataBaseVersion != null) {
+            Data c = cache.get(d.itemId);
+            if (c == null || c.graphDataVersion != d.graphDataBaseVersion) {
+                log.warn("graph data of item {} is relative to version {} which isn't cached", d.itemId, d.graphDataBaseVersion);
+                cache.remove(d.itemId);
+                return false;
+            }
+            int n = keep(c.low1hTimes, d.low1hTimes);
+            d.low1hTimes = concat(c.low1hTimes, n, d.low1hTimes);
+            d.low1hPrices = concat(c.low1hPrices, n, d.low1hPrices);
+            n = keep(c.high1hTimes, d.high1hTimes);
+            d.high1hTimes = concat(c.high1hTimes, n, d.high1hTimes);
+            d.high1hPrices = concat(c.high1hPrices, n, d.high1hPrices);
+            n = keep(c.low5mTimes, d.low5mTimes);
+            d.low5mTimes = concat(c.low5mTimes, n, d.low5mTimes);
+            d.low5mPrices = concat(c.low5mPrices, n, d.low5mPrices);
+            n = keep(c.high5mTimes, d.high5mTimes);
+            d.high5mTimes = concat(c.high5mTimes, n, d.high5mTimes);
+            d.high5mPrices = concat(c.high5mPrices, n, d.high5mPrices);
+            n = keep(c.lowLatestTimes, d.lowLatestTimes);
+            d.lowLatestTimes = concat(c.lowLatestTimes, n, d.lowLatestTimes);
+            d.lowLatestPrices = concat(c.lowLatestPrices, n, d.lowLatestPrices);
+            n = keep(c.highLatestTimes, d.highLatestTimes);
+            d.highLatestTimes = concat(c.highLatestTimes, n, d.highLatestTimes);
+            d.highLatestPrices = concat(c.highLatestPrices, n, d.highLatestPrices);
+            trim(d);
+            d.graphDataBaseVersion = null;
+        }
+        Data c = new Data();
+        c.itemId = d.itemId;
+        c.graphDataVersion = d.graphDataVersion;
+        c.low1hTimes = d.low1hTimes;
+        c.low1hPrices = d.low1hPrices;
+        c.high1hTimes = d.high1hTimes;
+        c.high1hPrices = d.high1hPrices;
+        c.low5mTimes = d.low5mTimes;
+        c.low5mPrices = d.low5mPrices;
+        c.high5mTimes = d.high5mTimes;
+        c.high5mPrices = d.high5mPrices;
+        c.lowLatestTimes = d.lowLatestTimes;
+        c.lowLatestPrices = d.lowLatestPrices;
+        c.highLatestTimes = d.highLatestTimes;
+        c.highLatestPrices = d.highLatestPrices;
+        cache.put(d.itemId, c);
+        return true;
+    }
+
+    public synchronized void clear() {
+        cache.clear();
+    }
+
+    /**
+     * Drops the points that have fallen out of each series' window, so the merged series don't grow with every update.
+     */
+    private static void trim(Data d) {
+        int from = windowStart(d.low1hTimes, WINDOW_1H);
+        d.low1hTimes = from(d.low1hTimes, from);
+        d.low1hPrices = from(d.low1hPrices, from);
+        from = windowStart(d.high1hTimes, WINDOW_1H);
+        d.high1hTimes = from(d.high1hTimes, from);
+        d.high1hPrices = from(d.high1hPrices, from);
+        from = windowStart(d.low5mTimes, WINDOW_5M);
+        d.low5mTimes = from(d.low5mTimes, from);
+        d.low5mPrices = from(d.low5mPrices, from);
+        from = windowStart(d.high5mTimes, WINDOW_5M);
+        d.high5mTimes = from(d.high5mTimes, from);
+        d.high5mPrices = from(d.high5mPrices, from);
+        from = windowStart(d.lowLatestTimes, WINDOW_LATEST);
+        d.lowLatestTimes = from(d.lowLatestTimes, from);
+        d.lowLatestPrices = from(d.lowLatestPrices, from);
+        from = windowStart(d.highLatestTimes, WINDOW_LATEST);
+        d.highLatestTimes = from(d.highLatestTimes, from);
+        d.highLatestPrices = from(d.highLatestPrices, from);
+    }
+
+    private static int windowStart(int[] times, int window) {
+        if (times == null || times.length == 0) {
+            return 0;
+        }
+        int i = Arrays.binarySearch(times, times[times.length - 1] - window);
+        return i >= 0 ? i : -i - 1;
+    }
+
+    private static int[] from(int[] points, int from) {
+        return points == null || from == 0 ? points : Arrays.copyOfRange(points, from, points.length);
+    }
+
+    private static long[] from(long[] points, int from) {
+        return points == null || from == 0 ? points : Arrays.copyOfRange(points, from, points.length);
+    }
+
+    private static int keep(int[] cachedTimes, int[] newTimes) {
+        // the cached points before the first new one are kept, the new points replace any from the same time on
+        if (cachedTimes == null) {
+            return 0;
+        }
+        if (newTimes == null || newTimes.length == 0) {
+            return cachedTimes.length;
+        }
+        int i = Arrays.binarySearch(cachedTimes, newTimes[0]);
+        return i >= 0 ? i : -i - 1;
+    }
+
+    private static int[] concat(int[] cached, int n, int[] points) {
+        if (cached == null) {
+            return points;
+        }
+        int m = points == null ? 0 : points.length;
+        int[] result = Arrays.copyOf(cached, n + m);
+        if (m > 0) {
+            System.arraycopy(points, 0, result, n, m);
+        }
+        return result;
+    }
+
+    private static long[] concat(long[] cached, int n, long[] points) {
+        if (cached == null) {
+            return points;
+        }
+        int m = points == null ? 0 : points.length;
+        long[] result = Arrays.copyOf(cached, n + m);
+        if (m > 0) {
+            System.arraycopy(points, 0, result, n, m);
+        }
+        return result;
+    }
+}
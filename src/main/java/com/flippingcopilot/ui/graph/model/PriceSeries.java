@@ -0,0 +1,121 @@
+package com.flippingcopilot.ui.graph.model;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A low or high price series as parallel primitive arrays. The hour, 5 minute and latest wiki prices are combined into
+ * one series that gets finer towards the present, each coarser series is cut at the start of the bucket after the
+ * first point of the finer one so the series don't overlap.
+ */
+public class PriceSeries {
+
+    private static final Datapoint.Type[] TYPES = Datapoint.Type.values();
+
+    public final boolean isLow;
+    public final int size;
+    public final int[] times;
+    public final long[] prices;
+    // Datapoint.Type ordinal of each point
+    private final byte[] types;
+
+    private PriceSeries(boolean isLow, int size, int[] times, long[] prices, byte[] types) {
+        this.isLow = isLow;
+        this.size = size;
+        this.times = times;
+        this.prices = prices;
+        this.types = types;
+    }
+
+    public Datapoint.Type type(int i) {
+        return TYPES[types[i]];
+    }
+
+    public Datapoint datapoint(int i) {
+        return new Datapoint(times[i], prices[i], isLow, type(i));
+    }
+
+    /**
+     * Adds a datapoint for each point, for the renderers that draw datapoints.
+     */
+    public void addDatapointsTo(List<Datapoint> target) {
+        for (int i = 0; i < size; i++) {
+            target.add(datapoint(i));
+        }
+    }
+
+    public static PriceSeries assemble(int[] latestTimes,
+                                       long[] latestPrices,
+                                       int[] fiveMinTimes,
+                                       long[] fiveMinPrices,
+                                       int[] hourTimes,
+                                       long[] hourPrices,
+                                       boolean isLow) {
+        // the 5 minute points are cut at the bucket after the first latest point
+        int fiveMinCut = latestTimes.length == 0 ? Integer.MAX_VALUE : nextBucket(latestTimes[0], Constants.FIVE_MIN_SECONDS);
+        // and the hour points at the bucket after the first point left of the 5 minute or latest points
+        int first = firstBefore(fiveMinTimes, fiveMinCut);
+        if (first == Integer.MAX_VALUE) {
+            first = firstAtOrAfter(latestTimes, fiveMinCut);
+        }
+        int hourCut = first == Integer.MAX_VALUE ? Integer.MAX_VALUE : nextBucket(first, Constants.HOUR_SECONDS);
+
+        int capacity = latestTimes.length + fiveMinTimes.length + hourTimes.length;
+        int[] times = new int[capacity];
+        long[] prices = new long[capacity];
+        byte[] types = new byte[capacity];
+        int n = 0;
+        byte type = (byte) Datapoint.Type.HOUR_AVERAGE.ordinal();
+        for (int i = 0; i < hourTimes.length; i++) {
+            if (hourTimes[i] < hourCut) {
+                times[n] = hourTimes[i];
+                prices[n] = hourPrices[i];
+                types[n++] = type;
+            }
+        }
+        type = (byte) Datapoint.Type.FIVE_MIN_AVERAGE.ordinal();
+        for (int i = 0; i < fiveMinTimes.length; i++) {
+            if (fiveMinTimes[i] < fiveMinCut && fiveMinTimes[i] >= hourCut) {
+                times[n] = fiveMinTimes[i];
+                prices[n] = fiveMinPrices[i];
+                types[n++] = type;
+            }
+        }
+        type = (byte) Datapoint.Type.INSTA_SELL_BUY.ordinal();
+        for (int i = 0; i < latestTimes.length; i++) {
+            if (latestTimes[i] >= fiveMinCut && latestTimes[i] >= hourCut) {
+                times[n] = latestTimes[i];
+                prices[n] = latestPrices[i];
+                types[n++] = type;
+            }
+        }
+        if (n < capacity) {
+            times = Arrays.copyOf(times, n);
+            prices = Arrays.copyOf(prices, n);
+            types = Arrays.copyOf(types, n);
+        }
+        return new PriceSeries(isLow, n, times, prices, types);
+    }
+
+    private static int nextBucket(int time, int bucketSeconds) {
+        return bucketSeconds * (time / bucketSeconds) + bucketSeconds;
+    }
+
+    private static int firstBefore(int[] times, int cut) {
+        for (int t : times) {
+            if (t < cut) {
+                return t;
+            }
+        }
+        return Integer.MAX_VALUE;
+    }
+
+    private static int firstAtOrAfter(int[] times, int cut) {
+        for (int t : times) {
+            if (t >= cut) {
+                return t;
+            }
+        }
+        return Integer.MAX_VALUE;
+    }
+}
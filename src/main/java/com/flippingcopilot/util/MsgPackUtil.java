@@ -1,11 +1,16 @@
 package com.flippingcopilot.util;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
 
 public class MsgPackUtil {
 
     private static final int EXT_INT32 = 41;
+    // zigzag varint delta of delta encoded int32 array, for regularly spaced times
+    private static final int EXT_DELTA2_INT32 = 42;
+    // zigzag varint delta encoded int64 array, for slowly changing prices
+    private static final int EXT_DELTA_INT64 = 43;
 
     public static Object decodePrimitive(ByteBuffer b) {
         int format = b.get() & 0xFF;
@@ -107,10 +112,9 @@ public class MsgPackUtil {
             }
             int arrayLength = byteLength / 4;
             int[] result = new int[arrayLength];
-            for (int i = 0; i < arrayLength; i++) {
-                result[i] = (b.get() & 0xff) | ((b.get() & 0xff) << 8) |
-                        ((b.get() & 0xff) << 16) | ((b.get() & 0xff) << 24);
-            }
+            // bulk copy the little endian ints through an int view rather than assembling them byte by byte
+            b.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(result);
+            b.position(b.position() + byteLength);
             return result;
         } else {
             throw new IllegalArgumentException("Expected extension format 0xC9 or nil 0xC0, got: " + format);
@@ -136,11 +140,133 @@ public class MsgPackUtil {
 
         long[] result = new long[arrayLength];
         for (int i = 0; i < arrayLength; i++) {
-            result[i] = (long) decodePrimitive(b);
+            result[i] = decodeLong(b);
+        }
+        return result;
+    }
+
+    /**
+     * Decodes an int or uint value as a primitive long, without boxing it like {@link #decodePrimitive}.
+     */
+    public static long decodeLong(ByteBuffer b) {
+        int format = b.get() & 0xFF;
+        if (format <= 0x7F) {
+            // positive fixint
+            return format;
+        } else if ((format & 0xE0) == 0xE0) {
+            // negative fixint
+            return format - 256;
+        }
+        switch (format) {
+            case 0xCC:
+                return b.get() & 0xFF;
+            case 0xCD:
+                return b.getShort() & 0xFFFF;
+            case 0xCE:
+                return b.getInt() & 0xFFFFFFFFL;
+            case 0xCF:
+            case 0xD3:
+                return b.getLong();
+            case 0xD0:
+                return b.get();
+            case 0xD1:
+                return b.getShort();
+            case 0xD2:
+                return b.getInt();
+            default:
+                throw new IllegalArgumentException("Invalid integer format: " + format);
+        }
+    }
+
+    /**
+     * Decodes a delta of delta encoded int32 array: the element count, first value and first delta followed by the
+     * change of each subsequent delta, all as zigzag varints.
+     */
+    public static int[] decodeDelta2Int32Array(ByteBuffer b) {
+        ByteBuffer payload = decodeExt(b, EXT_DELTA2_INT32);
+        if (payload == null) {
+            return null;
+        }
+        int[] result = new int[(int) readVarint(payload)];
+        long value = 0;
+        long delta = 0;
+        for (int i = 0; i < result.length; i++) {
+            if (i == 0) {
+                value = readZigZag(payload);
+            } else {
+                delta = i == 1 ? readZigZag(payload) : delta + readZigZag(payload);
+                value += delta;
+            }
+            result[i] = (int) value;
+        }
+        return result;
+    }
+
+    /**
+     * Decodes a delta encoded int64 array: the element count and first value followed by the difference of each
+     * subsequent value from the previous one, all as zigzag varints.
+     */
+    public static long[] decodeDeltaLongArray(ByteBuffer b) {
+        ByteBuffer payload = decodeExt(b, EXT_DELTA_INT64);
+        if (payload == null) {
+            return null;
+        }
+        long[] result = new long[(int) readVarint(payload)];
+        long value = 0;
+        for (int i = 0; i < result.length; i++) {
+            value += readZigZag(payload);
+            result[i] = value;
         }
         return result;
     }
 
+    private static ByteBuffer decodeExt(ByteBuffer b, int expectedType) {
+        int format = b.get() & 0xFF;
+        int byteLength;
+        if (format == 0xC0) {
+            return null;
+        } else if (format >= 0xD4 && format <= 0xD8) {
+            // fixext 1, 2, 4, 8 and 16, used for short payloads such as empty or one point series
+            byteLength = 1 << (format - 0xD4);
+        } else if (format == 0xC7) {
+            // ext 8
+            byteLength = b.get() & 0xFF;
+        } else if (format == 0xC8) {
+            // ext 16
+            byteLength = b.getShort() & 0xFFFF;
+        } else if (format == 0xC9) {
+            // ext 32
+            byteLength = b.getInt();
+        } else {
+            throw new IllegalArgumentException("Expected extension format or nil 0xC0, got: " + format);
+        }
+        int extType = b.get() & 0xFF;
+        if (extType != expectedType) {
+            throw new IllegalArgumentException("Expected extension type " + expectedType + ", got: " + extType);
+        }
+        ByteBuffer payload = b.slice();
+        payload.limit(byteLength);
+        b.position(b.position() + byteLength);
+        return payload;
+    }
+
+    private static long readVarint(ByteBuffer b) {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte x = b.get();
+            result |= (long) (x & 0x7F) << shift;
+            if (x >= 0) {
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    private static long readZigZag(ByteBuffer b) {
+        long n = readVarint(b);
+        return (n >>> 1) ^ -(n & 1);
+    }
+
     public static Integer decodeMapSize(ByteBuffer b) {
         int format = b.get() & 0xFF;
         if (format == 0xC0) {
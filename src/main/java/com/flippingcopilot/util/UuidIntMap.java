@@ -0,0 +1,141 @@
+package com.flippingcopilot.util;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Open addressing (linear probing) hash map from UUID to int. Keys are stored unboxed as two longs so an entry
+ * costs ~21 bytes of table space rather than a HashMap node, UUID and Integer (~100 bytes).
+ */
+public class UuidIntMap {
+
+    private static final float MAX_LOAD = 0.6f;
+
+    private long[] msbs;
+    private long[] lsbs;
+    private int[] values;
+    private boolean[] used;
+    private int size;
+
+    public UuidIntMap() {
+        this(16);
+    }
+
+    public UuidIntMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / MAX_LOAD)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean containsKey(UUID key) {
+        return indexOf(key.getMostSignificantBits(), key.getLeastSignificantBits()) >= 0;
+    }
+
+    public int get(UUID key, int defaultValue) {
+        int i = indexOf(key.getMostSignificantBits(), key.getLeastSignificantBits());
+        return i >= 0 ? values[i] : defaultValue;
+    }
+
+    public void put(UUID key, int value) {
+        put(key.getMostSignificantBits(), key.getLeastSignificantBits(), value);
+    }
+
+    public void remove(UUID key) {
+        int i = indexOf(key.getMostSignificantBits(), key.getLeastSignificantBits());
+        if (i < 0) {
+            return;
+        }
+        // backward shift deletion keeps probe sequences intact without tombstones
+        int mask = values.length - 1;
+        int hole = i;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (!used[j]) {
+                break;
+            }
+            int home = slot(msbs[j], lsbs[j]);
+            // move j into the hole if its home slot is not cyclically within (hole, j]
+            if (hole <= j ? (home <= hole || home > j) : (home <= hole && home > j)) {
+                msbs[hole] = msbs[j];
+                lsbs[hole] = lsbs[j];
+                values[hole] = values[j];
+                hole = j;
+            }
+        }
+        used[hole] = false;
+        size--;
+    }
+
+    public void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    /**
+     * Puts the UUID with the given most and least significant bits, without needing a UUID instance.
+     */
+    public void put(long msb, long lsb, int value) {
+        int mask = values.length - 1;
+        int i = slot(msb, lsb);
+        while (used[i]) {
+            if (msbs[i] == msb && lsbs[i] == lsb) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        used[i] = true;
+        msbs[i] = msb;
+        lsbs[i] = lsb;
+        values[i] = value;
+        size++;
+        if (size > values.length * MAX_LOAD) {
+            rehash(values.length << 1);
+        }
+    }
+
+    private int indexOf(long msb, long lsb) {
+        int mask = values.length - 1;
+        int i = slot(msb, lsb);
+        while (used[i]) {
+            if (msbs[i] == msb && lsbs[i] == lsb) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int slot(long msb, long lsb) {
+        long h = msb * 0x9E3779B97F4A7C15L ^ lsb;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h & (values.length - 1);
+    }
+
+    private void rehash(int capacity) {
+        long[] oldMsbs = msbs;
+        long[] oldLsbs = lsbs;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(capacity);
+        size = 0;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldUsed[i]) {
+                put(oldMsbs[i], oldLsbs[i], oldValues[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        msbs = new long[capacity];
+        lsbs = new long[capacity];
+        values = new int[capacity];
+        used = new boolean[capacity];
+    }
+}
@@ -0,0 +1,79 @@
+package com.flippingcopilot.controller;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static com.flippingcopilot.controller.SuggestionLatencyTracer.Stage;
+import static com.flippingcopilot.controller.SuggestionLatencyTracer.WINDOW_SIZE;
+
+public class SuggestionLatencyTracerTest {
+
+    private static final long MS = 1_000_000;
+
+    @Test
+    public void percentilesAreNearestRankOverTheWindow() {
+        SuggestionLatencyTracer tracer = new SuggestionLatencyTracer(new DoesNothingExecutorService());
+        // the first 100 requests fall out of the window
+        for (int i = 0; i < 100; i++) {
+            tracer.finish(trace(Stage.ENCODE, 1_000 * MS));
+        }
+        for (int i = 1; i <= WINDOW_SIZE; i++) {
+            tracer.finish(trace(Stage.ENCODE, i * MS));
+        }
+
+        Map<String, Double> encode = stage(tracer, Stage.ENCODE);
+        Assert.assertEquals(250.0, encode.get("p50"), 0);
+        Assert.assertEquals(475.0, encode.get("p95"), 0);
+        Assert.assertEquals(495.0, encode.get("p99"), 0);
+        Assert.assertEquals((long) WINDOW_SIZE + 100, tracer.summary().get("requests"));
+    }
+
+    @Test
+    public void requestAndReadCountAsServerTime() {
+        SuggestionLatencyTracer tracer = new SuggestionLatencyTracer(new DoesNothingExecutorService());
+        SuggestionLatencyTracer.Trace t = new SuggestionLatencyTracer.Trace();
+        t.nanos[Stage.ENCODE.ordinal()] = 2 * MS;
+        t.nanos[Stage.SEND.ordinal()] = 3 * MS;
+        t.nanos[Stage.REQUEST.ordinal()] = 40 * MS;
+        t.nanos[Stage.READ.ordinal()] = 5 * MS;
+        t.nanos[Stage.RENDER.ordinal()] = 7 * MS;
+        tracer.finish(t);
+
+        Map<String, Object> summary = tracer.summary();
+        Assert.assertEquals(45.0, percentiles(summary, "server").get("p50"), 0);
+        Assert.assertEquals(12.0, percentiles(summary, "client").get("p50"), 0);
+        Assert.assertEquals(57.0, percentiles(summary, "total").get("p50"), 0);
+    }
+
+    @Test
+    public void untriggeredRequestsHaveNoQueuedSample() {
+        SuggestionLatencyTracer tracer = new SuggestionLatencyTracer(new DoesNothingExecutorService());
+        tracer.finish(trace(Stage.QUEUED, 0));
+        SuggestionLatencyTracer.Trace triggered = trace(Stage.QUEUED, 8 * MS);
+        triggered.triggered = true;
+        tracer.finish(triggered);
+        tracer.finish(trace(Stage.QUEUED, 0));
+
+        Assert.assertEquals(8.0, stage(tracer, Stage.QUEUED).get("p50"), 0);
+        Assert.assertEquals(0.0, stage(tracer, Stage.ENCODE).get("p50"), 0);
+    }
+
+    private static SuggestionLatencyTracer.Trace trace(Stage stage, long nanos) {
+        SuggestionLatencyTracer.Trace t = new SuggestionLatencyTracer.Trace();
+        t.nanos[stage.ordinal()] = nanos;
+        return t;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Double> stage(SuggestionLatencyTracer tracer, Stage stage) {
+        Map<String, Object> stages = (Map<String, Object>) tracer.summary().get("stages");
+        return (Map<String, Double>) stages.get(stage.name().toLowerCase());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Double> percentiles(Map<String, Object> summary, String key) {
+        return (Map<String, Double>) summary.get(key);
+    }
+}
@@ -0,0 +1,69 @@
+package com.flippingcopilot.controller;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import static com.flippingcopilot.controller.SuggestionRequestScheduler.COALESCE_WINDOW_MS;
+import static com.flippingcopilot.controller.SuggestionRequestScheduler.Decision;
+
+public class SuggestionRequestSchedulerTest {
+
+    private static final byte[] STATUS_A = {1, 2, 3};
+    private static final byte[] STATUS_B = {1, 2, 4};
+
+    @Test
+    public void identicalStatusIsSkippedWhileFresh() {
+        SuggestionRequestScheduler scheduler = new SuggestionRequestScheduler();
+        Assert.assertEquals(Decision.SEND, scheduler.decide(STATUS_A, false, 10_000));
+        long id = scheduler.begin(STATUS_A, 1, 10_000);
+        scheduler.completed(id);
+
+        long later = 10_000 + COALESCE_WINDOW_MS;
+        Assert.assertEquals(Decision.SKIP, scheduler.decide(STATUS_A.clone(), true, later));
+        scheduler.skip(3);
+        // a stale suggestion is refreshed even if the status didn't change
+        Assert.assertEquals(Decision.SEND, scheduler.decide(STATUS_A, false, later));
+        Assert.assertEquals(Decision.SEND, scheduler.decide(STATUS_B, true, later));
+
+        Assert.assertEquals(1, scheduler.getSent());
+        Assert.assertEquals(1, scheduler.getSkipped());
+        Assert.assertEquals(2, scheduler.getCoalesced());
+    }
+
+    @Test
+    public void triggersWithinWindowWait() {
+        SuggestionRequestScheduler scheduler = new SuggestionRequestScheduler();
+        long id = scheduler.begin(STATUS_A, 1, 10_000);
+        scheduler.completed(id);
+
+        Assert.assertEquals(Decision.WAIT, scheduler.decide(STATUS_B, false, 10_000 + COALESCE_WINDOW_MS - 1));
+        Assert.assertEquals(Decision.SEND, scheduler.decide(STATUS_B, false, 10_000 + COALESCE_WINDOW_MS));
+        scheduler.begin(STATUS_B, 4, 10_000 + COALESCE_WINDOW_MS);
+
+        Assert.assertEquals(2, scheduler.getSent());
+        Assert.assertEquals(3, scheduler.getCoalesced());
+    }
+
+    @Test
+    public void changedStatusSupersedesInFlightRequest() {
+        SuggestionRequestScheduler scheduler = new SuggestionRequestScheduler();
+        long first = scheduler.begin(STATUS_A, 1, 10_000);
+
+        // an in flight request for the same status absorbs the trigger
+        Assert.assertEquals(Decision.SKIP, scheduler.decide(STATUS_A, false, 10_000 + COALESCE_WINDOW_MS));
+        scheduler.skip(2);
+        Assert.assertEquals(Decision.SEND, scheduler.decide(STATUS_B, false, 10_000 + COALESCE_WINDOW_MS));
+        long second = scheduler.begin(STATUS_B, 1, 10_000 + COALESCE_WINDOW_MS);
+
+        Assert.assertFalse(scheduler.isCurrent(first));
+        Assert.assertTrue(scheduler.isCurrent(second));
+        // completing the superseded request doesn't end the current one
+        scheduler.completed(first);
+        Assert.assertEquals(Decision.SKIP, scheduler.decide(STATUS_B, false, 20_000));
+
+        Assert.assertEquals(2, scheduler.getSent());
+        Assert.assertEquals(1, scheduler.getSuperseded());
+        Assert.assertEquals(2, scheduler.getCoalesced());
+        Assert.assertEquals(0, scheduler.getSkipped());
+    }
+}
@@ -0,0 +1,130 @@
+package com.flippingcopilot.controller;
+
+import com.flippingcopilot.model.OfferStatus;
+import com.flippingcopilot.model.Transaction;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+public class UnAckedTransactionLogTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void appendsAndAcksSurviveReopen() throws Exception {
+        File file = folder.newFile("log.wal");
+        UnAckedTransactionLog log = UnAckedTransactionLog.open(file);
+        List<Transaction> added = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Transaction t = transaction(i);
+            added.add(t);
+            log.append(t);
+        }
+        // duplicate ids are ignored
+        log.append(added.get(0));
+        log.ack(added.subList(1, 3));
+
+        List<Transaction> reopened = UnAckedTransactionLog.open(file).transactions();
+        Assert.assertEquals(3, reopened.size());
+        assertSame(added.get(0), reopened.get(0));
+        assertSame(added.get(3), reopened.get(1));
+        assertSame(added.get(4), reopened.get(2));
+    }
+
+    @Test
+    public void tornRecordIsCutOff() throws Exception {
+        File file = folder.newFile("log.wal");
+        UnAckedTransactionLog log = UnAckedTransactionLog.open(file);
+        log.append(transaction(1));
+        log.append(transaction(2));
+        long intactLength = file.length();
+        log.append(transaction(3));
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(file.length() - 7);
+        }
+
+        UnAckedTransactionLog reopened = UnAckedTransactionLog.open(file);
+        Assert.assertEquals(2, reopened.transactions().size());
+        Assert.assertEquals(intactLength, file.length());
+        // appends continue after the intact records
+        reopened.append(transaction(4));
+        Assert.assertEquals(3, UnAckedTransactionLog.open(file).transactions().size());
+    }
+
+    @Test
+    public void closedLogKeepsChangesInMemory() throws Exception {
+        File file = folder.newFile("log.wal");
+        UnAckedTransactionLog log = UnAckedTransactionLog.open(file);
+        log.append(transaction(1));
+        List<Transaction> before = log.transactions();
+        log.close();
+        log.append(transaction(2));
+
+        // the returned list is a copy
+        Assert.assertEquals(1, before.size());
+        Assert.assertEquals(2, log.transactions().size());
+        Assert.assertEquals(1, UnAckedTransactionLog.open(file).transactions().size());
+    }
+
+    @Test
+    public void corruptRecordIsCutOff() throws Exception {
+        File file = folder.newFile("log.wal");
+        UnAckedTransactionLog log = UnAckedTransactionLog.open(file);
+        log.append(transaction(1));
+        log.append(transaction(2));
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(file.length() - 3);
+            raf.write(0x7f);
+        }
+        Assert.assertEquals(1, UnAckedTransactionLog.open(file).transactions().size());
+    }
+
+    @Test
+    public void acksAreCompacted() throws Exception {
+        File file = folder.newFile("log.wal");
+        UnAckedTransactionLog log = UnAckedTransactionLog.open(file);
+        List<Transaction> added = new ArrayList<>();
+        for (int i = 0; i < UnAckedTransactionLog.COMPACT_MIN_DEAD; i++) {
+            Transaction t = transaction(i);
+            added.add(t);
+            log.append(t);
+        }
+        long fullLength = file.length();
+        log.ack(added.subList(0, added.size() - 1));
+        Assert.assertTrue(file.length() < fullLength / 10);
+
+        log.append(transaction(-1));
+        List<Transaction> reopened = UnAckedTransactionLog.open(file).transactions();
+        Assert.assertEquals(2, reopened.size());
+        assertSame(added.get(added.size() - 1), reopened.get(0));
+    }
+
+    private static Transaction transaction(int i) {
+        return new Transaction(UUID.randomUUID(), i % 2 == 0 ? OfferStatus.BUY : OfferStatus.SELL, 560 + i, 1_000_000_000L + i,
+                i + 1, i % 8, 123L * i, Instant.ofEpochSecond(1_700_000_000L + i, i), i % 2 == 0, i % 3 == 0, i % 5 == 0, true);
+    }
+
+    private static void assertSame(Transaction expected, Transaction actual) {
+        Assert.assertEquals(expected.getId(), actual.getId());
+        Assert.assertEquals(expected.getType(), actual.getType());
+        Assert.assertEquals(expected.getItemId(), actual.getItemId());
+        Assert.assertEquals(expected.getPrice(), actual.getPrice());
+        Assert.assertEquals(expected.getQuantity(), actual.getQuantity());
+        Assert.assertEquals(expected.getBoxId(), actual.getBoxId());
+        Assert.assertEquals(expected.getAmountSpent(), actual.getAmountSpent());
+        Assert.assertEquals(expected.getTimestamp(), actual.getTimestamp());
+        Assert.assertEquals(expected.isCopilotPriceUsed(), actual.isCopilotPriceUsed());
+        Assert.assertEquals(expected.isWasCopilotSuggestion(), actual.isWasCopilotSuggestion());
+        Assert.assertEquals(expected.isLogin(), actual.isLogin());
+        Assert.assertEquals(expected.isConsistent(), actual.isConsistent());
+    }
+}
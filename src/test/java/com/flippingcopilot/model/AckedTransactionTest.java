@@ -0,0 +1,53 @@
+package com.flippingcopilot.model;
+
+import com.google.protobuf.CodedOutputStream;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+import static org.junit.Assert.assertArrayEquals;
+
+public class AckedTransactionTest {
+
+    @Test
+    public void listDecodeProtoWritesRawRecords() throws Exception {
+        AckedTransaction sell = new AckedTransaction(UUID.randomUUID(), UUID.randomUUID(), 3, 1_700_000_000, 13190, -25, 4_500_000L, -112_500_000L);
+        // a transaction without a client flip id decodes with a zero one
+        AckedTransaction buy = new AckedTransaction(UUID.randomUUID(), new UUID(0L, 0L), 4, 1_700_000_100, 560, 1000, 210L, 210_000L);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CodedOutputStream out = CodedOutputStream.newInstance(bytes);
+        out.writeByteArray(1, encode(sell, true));
+        out.writeByteArray(1, encode(buy, false));
+        out.flush();
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        expected.write(sell.toRaw());
+        expected.write(buy.toRaw());
+        assertArrayEquals(expected.toByteArray(), AckedTransaction.listDecodeProto(new ByteArrayInputStream(bytes.toByteArray()), -1));
+    }
+
+    private static byte[] encode(AckedTransaction t, boolean withClientFlipId) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CodedOutputStream out = CodedOutputStream.newInstance(bytes);
+        out.writeByteArray(1, uuidBytes(t.getId()));
+        if (withClientFlipId) {
+            out.writeByteArray(2, uuidBytes(t.getClientFlipId()));
+        }
+        out.writeInt32(3, t.getAccountId());
+        out.writeInt32(4, t.getTime());
+        out.writeInt32(5, t.getItemId());
+        out.writeInt32(6, t.getQuantity());
+        out.writeInt64(11, t.getPrice());
+        out.writeInt64(12, t.getAmountSpent());
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static byte[] uuidBytes(UUID id) {
+        return ByteBuffer.allocate(16).putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits()).array();
+    }
+}
@@ -14,9 +14,29 @@ public class FlipPriceGraphControllerTest {
     private static final Integer ACCOUNT_ID_1 = 1;
     private static final Integer ACCOUNT_ID_2 = 2;
     private static final Integer ACCOUNT_ID_3 = 3;
+    private static final int WEEK = 7 * 24 * 60 * 60;
 
     @Test
     public void testOneAccount() {
+        testOneAccount(false);
+    }
+
+    @Test
+    public void testOneAccountColumnar() {
+        testOneAccount(true);
+    }
+
+    @Test
+    public void testMultipleAccounts() {
+        testMultipleAccounts(false);
+    }
+
+    @Test
+    public void testMultipleAccountsColumnar() {
+        testMultipleAccounts(true);
+    }
+
+    private void testOneAccount(boolean columnarStore) {
 
         // generate 6 months or random flips
         int now = (int) Instant.now().getEpochSecond();
@@ -24,8 +44,8 @@ public class FlipPriceGraphControllerTest {
         List<FlipV2> flips = generateFlipsBetween(sixMonthsAgo, now, 10_000, List.of(ACCOUNT_ID_1));
 
         // create and populate the flip cache
-        FlipManager flipManager = new FlipManager(null);
-        flipManager.setFlipsChangedCallback(() -> {});
+        FlipManager flipManager = new FlipManager(null, columnarStore);
+        flipManager.addFlipsChangedListener(change -> {});
         flipManager.mergeFlips(flips, 0);
         flipManager.setIntervalAccount(ACCOUNT_ID_1);
 
@@ -63,8 +83,7 @@ public class FlipPriceGraphControllerTest {
         }
     }
 
-    @Test
-    public void testMultipleAccounts() {
+    private void testMultipleAccounts(boolean columnarStore) {
 
         // generate 6 months or random flips
         int now = (int) Instant.now().getEpochSecond();
@@ -72,8 +91,8 @@ public class FlipPriceGraphControllerTest {
         List<FlipV2> flips = generateFlipsBetween(sixMonthsAgo, now, 5_000, List.of(ACCOUNT_ID_1, ACCOUNT_ID_2, ACCOUNT_ID_3));
 
         // create and populate the flip cache
-        FlipManager flipManager = new FlipManager(null);
-        flipManager.setFlipsChangedCallback(() -> {});
+        FlipManager flipManager = new FlipManager(null, columnarStore);
+        flipManager.addFlipsChangedListener(change -> {});
         flipManager.mergeFlips(flips, 0);
         verifyflipManagerStoredOrder(flipManager);
 
@@ -116,13 +135,335 @@ public class FlipPriceGraphControllerTest {
         }
     }
 
+    @Test
+    public void testColumnarStoreMatchesObjectStoreAfterUpdates() {
+        int now = (int) Instant.now().getEpochSecond();
+        int sixMonthsAgo = (int) Instant.now().minus(365/ 2, ChronoUnit.DAYS).getEpochSecond();
+        List<FlipV2> flips = generateFlipsBetween(sixMonthsAgo, now, 5_000, List.of(ACCOUNT_ID_1, ACCOUNT_ID_2, ACCOUNT_ID_3));
+
+        FlipManager objectStore = new FlipManager(null, false);
+        FlipManager columnarStore = new FlipManager(null, true);
+        objectStore.mergeFlips(new ArrayList<>(flips), 0);
+        columnarStore.mergeFlips(new ArrayList<>(flips), 0);
+
+        // re-merge a subset of the flips with later closed times, more profit and some moved out of the portfolio
+        List<FlipV2> updates = new ArrayList<>();
+        for (int i = 0; i < flips.size(); i += 7) {
+            FlipV2 f = copy(flips.get(i));
+            f.setUpdatedTime(f.getUpdatedTime() + 1);
+            f.setClosedTime(Math.min(now, f.getClosedTime() + randomIntBetween(0, 14 * 24 * 60 * 60)));
+            f.setProfit(f.getProfit() + 1000);
+            if (i % 3 == 0) {
+                f.setPortfolioId(PortfolioId.GHOST);
+            }
+            updates.add(f);
+        }
+        objectStore.mergeFlips(new ArrayList<>(updates), 0);
+        columnarStore.mergeFlips(new ArrayList<>(updates), 0);
+        verifyflipManagerStoredOrder(columnarStore);
+
+        for (Integer accountId : Arrays.asList(ACCOUNT_ID_1, ACCOUNT_ID_2, ACCOUNT_ID_3, null)) {
+            for (int time : Arrays.asList(0, sixMonthsAgo, randomIntBetween(sixMonthsAgo, now), now)) {
+                Assert.assertEquals(objectStore.calculateStats(time, accountId), columnarStore.calculateStats(time, accountId));
+                List<FlipV2> expected = new ArrayList<>();
+                List<FlipV2> actual = new ArrayList<>();
+                objectStore.aggregateFlips(time, accountId, false, expected::add);
+                columnarStore.aggregateFlips(time, accountId, false, actual::add);
+                assertFlipListsEqual(actual, expected);
+                for (int page = 1; page <= 5; page++) {
+                    assertFlipListsEqual(columnarStore.getPageFlips(page, 50, time, accountId), objectStore.getPageFlips(page, 50, time, accountId));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRangeStats() {
+        int now = (int) Instant.now().getEpochSecond();
+        int sixMonthsAgo = (int) Instant.now().minus(365/ 2, ChronoUnit.DAYS).getEpochSecond();
+        List<FlipV2> flips = generateFlipsBetween(sixMonthsAgo, now, 5_000, List.of(ACCOUNT_ID_1, ACCOUNT_ID_2, ACCOUNT_ID_3));
+
+        for (boolean columnarStore : Arrays.asList(false, true)) {
+            FlipManager flipManager = new FlipManager(null, columnarStore);
+            flipManager.mergeFlips(new ArrayList<>(flips), 0);
+            for (Set<Integer> accountIds : Arrays.asList(null, Set.of(ACCOUNT_ID_2), Set.of(ACCOUNT_ID_1, ACCOUNT_ID_3))) {
+                for (int i = 0; i < 200; i++) {
+                    int start = randomIntBetween(sixMonthsAgo, now);
+                    // mix of sub-week, multi-week and open-ended ranges
+                    int end = i % 3 == 0 ? Integer.MAX_VALUE : start + randomIntBetween(0, i % 3 == 1 ? 3 * 24 * 60 * 60 : 60 * 24 * 60 * 60);
+                    Assert.assertEquals(expectedStats(flips, start, end, accountIds), flipManager.calculateStats(start, end, accountIds));
+                }
+            }
+
+            // an update moving a flip to another week is reflected in the index
+            FlipV2 moved = copy(flips.get(0));
+            moved.setUpdatedTime(moved.getUpdatedTime() + 1);
+            moved.setClosedTime(moved.getClosedTime() > now - 30 * 24 * 60 * 60 ? sixMonthsAgo : now);
+            List<FlipV2> updated = new ArrayList<>(flips);
+            updated.set(0, moved);
+            flipManager.calculateStats(sixMonthsAgo, now, (Set<Integer>) null);
+            flipManager.mergeFlips(new ArrayList<>(List.of(moved)), 0);
+            Assert.assertEquals(expectedStats(updated, sixMonthsAgo + WEEK, now - WEEK, null), flipManager.calculateStats(sixMonthsAgo + WEEK, now - WEEK, (Set<Integer>) null));
+            Assert.assertEquals(expectedStats(updated, sixMonthsAgo - 1, Integer.MAX_VALUE, null), flipManager.calculateStats(sixMonthsAgo - 1, Integer.MAX_VALUE, (Set<Integer>) null));
+
+            AccountAggregate a = flipManager.calculateAccountAggregate(sixMonthsAgo + WEEK, now, ACCOUNT_ID_1);
+            long minProfit = 0;
+            long maxProfit = 0;
+            for (FlipV2 f : updated) {
+                if (f.getAccountId() == ACCOUNT_ID_1 && f.getClosedTime() > sixMonthsAgo + WEEK && f.getClosedTime() < now) {
+                    minProfit = Math.min(minProfit, f.getProfit());
+                    maxProfit = Math.max(maxProfit, f.getProfit());
+                }
+            }
+            Assert.assertEquals(minProfit, a.getBiggestLoss());
+            Assert.assertEquals(maxProfit, a.getBiggestWin());
+        }
+    }
+
+    @Test
+    public void testRangeStatsBoundaries() {
+        int weekStart = (int) (Instant.now().getEpochSecond() / WEEK * WEEK) - 4 * WEEK;
+        // a range starting mid week and one starting on a week start, with flips closed exactly at start and end
+        for (int start : Arrays.asList(weekStart + 3 * 24 * 60 * 60, weekStart)) {
+            int end = start + 2 * WEEK;
+            List<FlipV2> flips = new ArrayList<>();
+            for (int time : Arrays.asList(start - 1, start, start, end - 1, end)) {
+                FlipV2 f = new FlipV2();
+                // ids either side of 0 in the signed uuid order
+                f.setId(new UUID(flips.size() % 2 == 0 ? -5L : 5L, flips.size()));
+                f.setAccountId(ACCOUNT_ID_1);
+                f.setItemId(1);
+                f.setStatus(FlipStatus.SELLING);
+                f.setClosedTime(time);
+                f.setSpent(100 + flips.size());
+                f.setProfit(10 + flips.size());
+                flips.add(f);
+            }
+            for (boolean columnarStore : Arrays.asList(false, true)) {
+                FlipManager flipManager = new FlipManager(null, columnarStore);
+                flipManager.mergeFlips(new ArrayList<>(flips), 0);
+                Stats expected = expectedStats(flips, start, end, null);
+                Assert.assertEquals(3, expected.flipsMade);
+                Assert.assertEquals(expected, flipManager.calculateStats(start, end, (Set<Integer>) null));
+                Assert.assertEquals(expected, flipManager.calculateStats(start, end, Set.of(ACCOUNT_ID_1)));
+                Assert.assertEquals(expectedStats(flips, start, ACCOUNT_ID_1), flipManager.calculateStats(start, ACCOUNT_ID_1));
+                // the item filtered views cut at the same boundary
+                Assert.assertEquals(expectedStats(flips, start, ACCOUNT_ID_1), flipManager.calculateStats(start, ACCOUNT_ID_1, Set.of(1)));
+                Assert.assertEquals(expectedStats(flips, start, null), flipManager.calculateStats(start, null, Set.of(1)));
+                Assert.assertEquals(flipManager.getPageFlips(1, 10, start, null, null).size(), flipManager.getPageFlips(1, 10, start, null, Set.of(1)).size());
+            }
+        }
+    }
+
+    @Test
+    public void testItemFilteredPagesAndStats() {
+        int now = (int) Instant.now().getEpochSecond();
+        int sixMonthsAgo = (int) Instant.now().minus(365/ 2, ChronoUnit.DAYS).getEpochSecond();
+        List<FlipV2> flips = generateFlipsBetween(sixMonthsAgo, now, 5_000, List.of(ACCOUNT_ID_1, ACCOUNT_ID_2, ACCOUNT_ID_3));
+        flips.forEach(f -> f.setItemId(randomIntBetween(1, 20)));
+
+        for (boolean columnarStore : Arrays.asList(false, true)) {
+            FlipManager flipManager = new FlipManager(null, columnarStore);
+            flipManager.mergeFlips(new ArrayList<>(flips), 0);
+            List<FlipV2> all = new ArrayList<>(flips);
+            for (int round = 0; round < 2; round++) {
+                all.sort(Comparator.comparing(FlipV2::getClosedTime).reversed());
+                for (Set<Integer> items : Arrays.asList(Set.of(3), Set.of(1, 7, 19))) {
+                    for (Integer accountId : Arrays.asList(null, ACCOUNT_ID_2)) {
+                        for (int i = 0; i < 20; i++) {
+                            int time = i == 0 ? 0 : randomIntBetween(sixMonthsAgo, now);
+                            List<FlipV2> expected = all.stream()
+                                    .filter(f -> items.contains(f.getItemId()))
+                                    .collect(Collectors.toList());
+                            Assert.assertEquals(expectedStats(expected, time, accountId), flipManager.calculateStats(time, accountId, items));
+                            List<FlipV2> page = flipManager.getPageFlips(2, 30, time, accountId, items);
+                            List<FlipV2> expectedPage = expectedPage(expected, time, 2, 30, accountId);
+                            Assert.assertEquals(expectedPage.size(), page.size());
+                            for (int ii = 0; ii < page.size(); ii++) {
+                                Assert.assertEquals(expectedPage.get(ii).getClosedTime(), page.get(ii).getClosedTime());
+                                Assert.assertTrue(items.contains(page.get(ii).getItemId()));
+                            }
+                        }
+                    }
+                }
+                // updates to already indexed items move the flips within the index
+                List<FlipV2> updates = new ArrayList<>();
+                for (int i = 0; i < 500; i++) {
+                    FlipV2 moved = copy(all.get(i));
+                    moved.setItemId(all.get(i).getItemId());
+                    moved.setUpdatedTime(moved.getUpdatedTime() + 1);
+                    moved.setClosedTime(randomIntBetween(sixMonthsAgo, now));
+                    all.set(i, moved);
+                    updates.add(moved);
+                }
+                flipManager.mergeFlips(updates, 0);
+            }
+        }
+    }
+
+    @Test
+    public void testSortedPages() {
+        int now = (int) Instant.now().getEpochSecond();
+        int sixMonthsAgo = (int) Instant.now().minus(365/ 2, ChronoUnit.DAYS).getEpochSecond();
+        List<FlipV2> flips = generateFlipsBetween(sixMonthsAgo, now, 5_000, List.of(ACCOUNT_ID_1, ACCOUNT_ID_2, ACCOUNT_ID_3));
+        flips.forEach(this::randomizeSortFields);
+
+        for (boolean columnarStore : Arrays.asList(false, true)) {
+            FlipManager flipManager = new FlipManager(null, columnarStore);
+            flipManager.mergeFlips(new ArrayList<>(flips), 0);
+            List<FlipV2> all = new ArrayList<>(flips);
+            // the second round merges a small batch which updates the existing indexes in place
+            for (int round = 0; round < 2; round++) {
+                for (FlipSortKey sortKey : FlipSortKey.values()) {
+                    Comparator<FlipV2> order = Comparator.<FlipV2>comparingLong(sortKey::key)
+                            .thenComparing(Comparator.comparing(FlipV2::getClosedTime).reversed())
+                            .thenComparing(Comparator.comparing(FlipV2::getId).reversed());
+                    for (boolean reversed : Arrays.asList(false, true)) {
+                        List<FlipV2> sorted = new ArrayList<>(all);
+                        sorted.sort(reversed ? order.reversed() : order);
+                        for (Integer accountId : Arrays.asList(null, ACCOUNT_ID_3)) {
+                            int time = randomIntBetween(sixMonthsAgo, now);
+                            for (int page : Arrays.asList(1, 7, 40)) {
+                                Assert.assertEquals(
+                                        expectedPage(sorted, time, page, 50, accountId).stream().map(FlipV2::getId).collect(Collectors.toList()),
+                                        flipManager.getSortedPageFlips(page, 50, time, accountId, sortKey, reversed).stream().map(FlipV2::getId).collect(Collectors.toList()));
+                            }
+                        }
+                    }
+                }
+                List<FlipV2> updates = new ArrayList<>();
+                for (int i = 0; i < 50; i++) {
+                    FlipV2 updated = copy(all.get(i));
+                    randomizeSortFields(updated);
+                    updated.setUpdatedTime(updated.getUpdatedTime() + 1);
+                    updated.setClosedTime(randomIntBetween(sixMonthsAgo, now));
+                    all.set(i, updated);
+                    updates.add(updated);
+                }
+                flipManager.mergeFlips(updates, 0);
+            }
+        }
+    }
+
+    @Test
+    public void testSortedPagesBoundaries() {
+        int start = (int) Instant.now().getEpochSecond() - WEEK;
+        // flips closed just before, exactly at and after the interval start
+        List<FlipV2> flips = new ArrayList<>();
+        for (int time : Arrays.asList(start - 1, start, start, start + 1)) {
+            FlipV2 f = new FlipV2();
+            f.setId(new UUID(flips.size() % 2 == 0 ? -5L : 5L, flips.size()));
+            f.setAccountId(ACCOUNT_ID_1);
+            f.setStatus(FlipStatus.SELLING);
+            f.setClosedTime(time);
+            randomizeSortFields(f);
+            flips.add(f);
+        }
+        for (boolean columnarStore : Arrays.asList(false, true)) {
+            FlipManager flipManager = new FlipManager(null, columnarStore);
+            flipManager.mergeFlips(new ArrayList<>(flips), 0);
+            for (FlipSortKey sortKey : FlipSortKey.values()) {
+                for (boolean reversed : Arrays.asList(false, true)) {
+                    // the sorted pages hold the same flips as the stats count
+                    List<FlipV2> page = flipManager.getSortedPageFlips(1, 10, start, ACCOUNT_ID_1, sortKey, reversed);
+                    Assert.assertEquals(flipManager.calculateStats(start, ACCOUNT_ID_1).flipsMade, page.size());
+                    Assert.assertEquals(3, page.size());
+                    Assert.assertTrue(page.stream().allMatch(f -> f.getClosedTime() >= start));
+                }
+            }
+        }
+    }
+
+    private void randomizeSortFields(FlipV2 f) {
+        f.setItemId(randomIntBetween(1, 50));
+        f.setOpenedTime(f.getClosedTime() - randomIntBetween(0, 10_000));
+        f.setOpenedQuantity(randomIntBetween(1, 100));
+        f.setClosedQuantity(randomIntBetween(0, 100));
+    }
+
+    @Test
+    public void testFlipsChange() throws Exception {
+        int now = (int) Instant.now().getEpochSecond();
+        List<FlipV2> flips = generateFlipsBetween(now - 4 * WEEK, now, 100, List.of(ACCOUNT_ID_1, ACCOUNT_ID_2));
+        FlipManager flipManager = new FlipManager(null);
+        List<FlipsChange> changes = new ArrayList<>();
+        flipManager.addFlipsChangedListener(changes::add);
+        flipManager.mergeFlips(new ArrayList<>(flips), 0);
+
+        FlipV2 updated = copy(flips.get(0));
+        updated.setUpdatedTime(updated.getUpdatedTime() + 1);
+        updated.setClosedTime(now - 3 * WEEK);
+        FlipV2 deleted = copy(flips.get(1));
+        deleted.setUpdatedTime(deleted.getUpdatedTime() + 1);
+        deleted.setDeleted(true);
+        flipManager.mergeFlips(new ArrayList<>(List.of(updated, deleted)), 0);
+        // an out of date instance changes nothing so no change is sent
+        flipManager.mergeFlips(new ArrayList<>(List.of(copy(flips.get(2)))), 0);
+        javax.swing.SwingUtilities.invokeAndWait(() -> {});
+
+        Assert.assertEquals(2, changes.size());
+        Assert.assertEquals(flips.size(), changes.get(0).getAddedIds().size());
+        FlipsChange change = changes.get(1);
+        Assert.assertEquals(Set.of(updated.getId()), change.getUpdatedIds());
+        Assert.assertEquals(Set.of(deleted.getId()), change.getRemovedIds());
+        Assert.assertTrue(change.getAddedIds().isEmpty());
+        Assert.assertTrue(change.affects(now - 3 * WEEK - 1, updated.getAccountId()));
+        Assert.assertFalse(change.affects(now + WEEK, null));
+    }
+
+    @Test
+    public void testBatchedMergeFiresOneChange() throws Exception {
+        int now = (int) Instant.now().getEpochSecond();
+        List<FlipV2> flips = generateFlipsBetween(now - 4 * WEEK, now, 300, List.of(ACCOUNT_ID_1, ACCOUNT_ID_2));
+        FlipManager flipManager = new FlipManager(null);
+        List<FlipsChange> changes = new ArrayList<>();
+        flipManager.addFlipsChangedListener(changes::add);
+
+        FlipsChange change = new FlipsChange();
+        for (int i = 0; i < flips.size(); i += 100) {
+            flipManager.mergeFlips(new ArrayList<>(flips.subList(i, Math.min(i + 100, flips.size()))), 0, change);
+        }
+        javax.swing.SwingUtilities.invokeAndWait(() -> {});
+        Assert.assertTrue(changes.isEmpty());
+
+        flipManager.flipsMerged(change);
+        javax.swing.SwingUtilities.invokeAndWait(() -> {});
+        Assert.assertEquals(1, changes.size());
+        Assert.assertEquals(flips.size(), changes.get(0).getAddedIds().size());
+    }
+
+    private Stats expectedStats(List<FlipV2> flips, int start, int end, Set<Integer> accountIds) {
+        Stats stats = new Stats(0,0,0,0);
+        for(FlipV2 f : flips) {
+            if(f.getClosedTime() >= start && f.getClosedTime() < end && (accountIds == null || accountIds.contains(f.getAccountId()))) {
+                stats.flipsMade += 1;
+                stats.gross += f.getSpent();
+                stats.profit += f.getProfit();
+            }
+        }
+        return stats;
+    }
+
+    private FlipV2 copy(FlipV2 f) {
+        FlipV2 c = new FlipV2();
+        c.setId(f.getId());
+        c.setAccountId(f.getAccountId());
+        c.setStatus(f.getStatus());
+        c.setClosedTime(f.getClosedTime());
+        c.setSpent(f.getSpent());
+        c.setProfit(f.getProfit());
+        c.setUpdatedTime(f.getUpdatedTime());
+        c.setPortfolioId(f.getPortfolioId());
+        return c;
+    }
+
     public void verifyflipManagerStoredOrder(FlipManager flipManager) {
         for (int i =0; i < flipManager.weeks.size(); i++) {
             Assert.assertTrue(flipManager.weeks.get(Math.max(i-1,0)).weekStart <= flipManager.weeks.get(i).weekStart);
             FlipManager.WeekAggregate w = flipManager.weeks.get(i);
-            for (List<FlipV2> flips : w.accountIdToFlips.values()) {
+            for (FlipRows flips : w.accountIdToFlips.values()) {
                 for (int ii =1; ii < flips.size(); ii++) {
-                    Assert.assertTrue(flips.get(ii-1).getClosedTime() <= flips.get(ii).getClosedTime());
+                    Assert.assertTrue(flips.closedTime(ii-1) <= flips.closedTime(ii));
                 }
             }
         }
@@ -132,7 +473,7 @@ public class FlipPriceGraphControllerTest {
         int toSkip = (pageNumber - 1) * pageSize;
         List<FlipV2> page = new ArrayList<>();
         for(FlipV2 f : flips) {
-            if(f.getClosedTime() > time && (accountId == null || accountId == f.getAccountId())) {
+            if(f.getClosedTime() >= time && (accountId == null || accountId == f.getAccountId())) {
                 if(toSkip > 0) {
                     toSkip -= 1;
                 } else {
@@ -162,7 +503,7 @@ public class FlipPriceGraphControllerTest {
     private Stats expectedStats(List<FlipV2> flips, int time, Integer accountId) {
         Stats stats = new Stats(0,0,0,0);
         for(FlipV2 f : flips) {
-            if(f.getClosedTime() > time && (accountId == null || accountId == f.getAccountId())) {
+            if(f.getClosedTime() >= time && (accountId == null || accountId == f.getAccountId())) {
                 stats.flipsMade += 1;
                 stats.gross += f.getSpent();
                 stats.profit += f.getProfit();
@@ -1,8 +1,19 @@
 package com.flippingcopilot.model;
 
+import com.flippingcopilot.util.ProtoUtils;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 public class FlipV2Test {
 
@@ -21,4 +32,61 @@ public class FlipV2Test {
 
         assertEquals(500_000_000L, flip.calculateProfit(transaction));
     }
+
+    @Test
+    public void flipsSnapshotRoundTrips() throws Exception {
+        FlipV2 flip = new FlipV2();
+        flip.setId(UUID.randomUUID());
+        flip.setAccountId(3);
+        flip.setItemId(13190);
+        flip.setOpenedTime(1_700_000_000);
+        flip.setOpenedQuantity(10);
+        flip.setSpent(4_500_000_000L);
+        flip.setClosedTime(1_700_000_500);
+        flip.setClosedQuantity(7);
+        flip.setReceivedPostTax(3_200_000_000L);
+        flip.setTaxPaid(64_000_000L);
+        flip.setProfit(-1_300_000_000L);
+        flip.setStatus(FlipStatus.SELLING);
+        flip.setUpdatedTime(1_700_000_600);
+        flip.setPortfolioId(-2);
+        flip.setSeqNo(42);
+        flip.setUserId(9);
+
+        FlipsSnapshot snapshot = new FlipsSnapshot();
+        snapshot.userId = 9;
+        snapshot.accountIdTime.put(3, 1_700_000_700);
+        snapshot.flips.add(flip);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CodedOutputStream out = CodedOutputStream.newInstance(bytes);
+        snapshot.encodeProto(out);
+        out.flush();
+
+        assertEquals(snapshot, FlipsSnapshot.decodeProto(CodedInputStream.newInstance(bytes.toByteArray())));
+    }
+
+    @Test
+    public void flipsDeltaDecodesInBatchesWithOpenFlipsLast() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CodedOutputStream out = CodedOutputStream.newInstance(bytes);
+        out.writeInt32(1, 1_700_000_900);
+        for (int i = 0; i < 7; i++) {
+            FlipV2 flip = new FlipV2();
+            flip.setId(UUID.randomUUID());
+            flip.setStatus(i % 3 == 0 ? FlipStatus.BUYING : FlipStatus.FINISHED);
+            ProtoUtils.writeDelimitedMessageField(out, 2, ProtoUtils.encodeMessage(flip::encodeProto));
+        }
+        out.flush();
+
+        List<List<FlipV2>> batches = new ArrayList<>();
+        FlipsDeltaResult res = FlipsDeltaResult.decodeProto(new ByteArrayInputStream(bytes.toByteArray()), 2, batches::add);
+
+        assertEquals(1_700_000_900, res.time);
+        assertEquals(7, res.numFlips);
+        assertEquals(3, batches.size());
+        // the 4 closed flips fill the first two batches, the 3 open ones come in the last
+        assertEquals(3, batches.get(2).size());
+        assertTrue(batches.get(2).stream().noneMatch(FlipV2::isClosed));
+        assertNull(FlipsDeltaResult.decodeProto(new ByteArrayInputStream(bytes.toByteArray()), 2, batch -> false));
+    }
 }
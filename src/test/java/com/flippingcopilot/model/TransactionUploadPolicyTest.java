@@ -0,0 +1,47 @@
+package com.flippingcopilot.model;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import static com.flippingcopilot.model.TransactionUploadPolicy.*;
+
+public class TransactionUploadPolicyTest {
+
+    @Test
+    public void batchSizeAdaptsToLatencyAndFailures() {
+        TransactionUploadPolicy policy = new TransactionUploadPolicy();
+        policy.onSuccess(INITIAL_BATCH_SIZE, 100);
+        Assert.assertEquals(INITIAL_BATCH_SIZE * 2, policy.batchSize());
+
+        // a partial batch says nothing about whether a bigger one would be fast
+        policy.onSuccess(5, 100);
+        Assert.assertEquals(INITIAL_BATCH_SIZE * 2, policy.batchSize());
+
+        policy.onSuccess(INITIAL_BATCH_SIZE * 2, TARGET_LATENCY_MS + 1);
+        Assert.assertEquals(INITIAL_BATCH_SIZE, policy.batchSize());
+
+        for (int i = 0; i < 10; i++) {
+            policy.onFailure();
+        }
+        Assert.assertEquals(MIN_BATCH_SIZE, policy.batchSize());
+
+        for (int i = 0; i < 20; i++) {
+            policy.onSuccess(policy.batchSize(), 100);
+        }
+        Assert.assertEquals(MAX_BATCH_SIZE, policy.batchSize());
+    }
+
+    @Test
+    public void backoffGrowsWithJitterUpToMax() {
+        TransactionUploadPolicy policy = new TransactionUploadPolicy();
+        long backoff = BASE_BACKOFF_MS;
+        for (int i = 0; i < 30; i++) {
+            long delay = policy.onFailure();
+            Assert.assertTrue(delay >= backoff / 2 && delay <= backoff);
+            backoff = Math.min(MAX_BACKOFF_MS, backoff * 2);
+        }
+        policy.onSuccess(1, 100);
+        long delay = policy.onFailure();
+        Assert.assertTrue(delay <= BASE_BACKOFF_MS);
+    }
+}
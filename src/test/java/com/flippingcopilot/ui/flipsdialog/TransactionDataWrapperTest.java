@@ -0,0 +1,88 @@
+package com.flippingcopilot.ui.flipsdialog;
+
+import com.flippingcopilot.model.AckedTransaction;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+public class TransactionDataWrapperTest {
+
+    @Test
+    public void mappedStorePersistsUpdatesAndDeletes() throws Exception {
+        List<AckedTransaction> txs = new ArrayList<>();
+        ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        for (int i = 0; i < 2000; i++) {
+            AckedTransaction t = new AckedTransaction(UUID.randomUUID(), UUID.randomUUID(), i % 3, 1_700_000_000 + i, 500 + i % 7, i + 1, 100L + i, 100L * (i + 1));
+            txs.add(t);
+            raw.write(t.toRaw());
+        }
+        File file = File.createTempFile("transactions", ".bin");
+        file.deleteOnExit();
+
+        TransactionDataWrapper store = TransactionDataWrapper.open(file);
+        assertEquals(0, store.size());
+        store.replaceAll(raw.toByteArray());
+        assertEquals(txs.subList(10, 20), store.getPage(Collections.emptySet(), null, 2, 10));
+
+        int account1Count = store.totalRecords(Collections.emptySet(), 1);
+        AckedTransaction updated = txs.get(5);
+        updated.setClientFlipId(new UUID(0L, 0L));
+        store.update(updated);
+        AckedTransaction removed = txs.remove(7);
+        store.delete(removed.getId());
+        assertEquals(txs.subList(0, 10), store.getPage(Collections.emptySet(), null, 1, 10));
+        // the cached count is kept current by the delete
+        assertEquals(account1Count - 1, store.totalRecords(Collections.emptySet(), 1));
+        store.close();
+
+        TransactionDataWrapper reopened = TransactionDataWrapper.open(file);
+        assertEquals(txs.size(), reopened.size());
+        assertEquals(txs.subList(0, 50), reopened.getPage(Collections.emptySet(), null, 1, 50));
+        assertEquals(txs.stream().filter(t -> t.getAccountId() == 1 && t.getItemId() == 502).count(),
+                reopened.totalRecords(Collections.singleton(502), 1));
+        reopened.close();
+    }
+
+    @Test
+    public void filteredPagesMatchScan() throws Exception {
+        Random random = new Random(7);
+        List<AckedTransaction> txs = new ArrayList<>();
+        ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        for (int i = 0; i < 3000; i++) {
+            AckedTransaction t = new AckedTransaction(UUID.randomUUID(), UUID.randomUUID(), random.nextInt(3), i, random.nextInt(20), 1, 1L, 1L);
+            txs.add(t);
+            raw.write(t.toRaw());
+        }
+        TransactionDataWrapper store = new TransactionDataWrapper(raw.toByteArray());
+        Set<Integer> items = new HashSet<>(Arrays.asList(3, 11, 17));
+        for (int round = 0; round < 20; round++) {
+            AckedTransaction removed = txs.remove(random.nextInt(txs.size()));
+            store.delete(removed.getId());
+            AckedTransaction updated = txs.get(random.nextInt(txs.size()));
+            updated.setItemId(random.nextInt(20));
+            updated.setAccountId(random.nextInt(3));
+            store.update(updated);
+            for (Integer account : Arrays.asList(null, 1)) {
+                for (Set<Integer> filter : Arrays.asList(Collections.<Integer>emptySet(), Collections.singleton(11), items)) {
+                    List<AckedTransaction> expected = txs.stream()
+                            .filter(t -> (filter.isEmpty() || filter.contains(t.getItemId())) && (account == null || account == t.getAccountId()))
+                            .collect(Collectors.toList());
+                    assertEquals(expected.size(), store.totalRecords(filter, account));
+                    assertEquals(expected.subList(Math.min(50, expected.size()), Math.min(100, expected.size())), store.getPage(filter, account, 2, 50));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.flippingcopilot.ui.graph;
+
+import com.flippingcopilot.ui.graph.model.Bounds;
+import com.flippingcopilot.ui.graph.model.Constants;
+import com.flippingcopilot.ui.graph.model.Datapoint;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class HoverIndexTest {
+
+    private static final Rectangle PA = new Rectangle(80, 50, 400, 200);
+
+    @Test
+    public void closestMatchesFullScan() {
+        Random random = new Random(23);
+        List<List<Datapoint>> lists = Arrays.asList(
+                series(random, 3000, Datapoint.Type.HOUR_AVERAGE),
+                series(random, 3000, Datapoint.Type.FIVE_MIN_AVERAGE),
+                series(random, 500, Datapoint.Type.INSTA_SELL_BUY));
+        HoverIndex index = new HoverIndex();
+        for (int run = 0; run < 20; run++) {
+            int xMin = 1_700_000_000 + random.nextInt(3000 * Constants.FIVE_MIN_SECONDS);
+            Bounds bounds = new Bounds(xMin, xMin + 1 + random.nextInt(10 * Constants.DAY_SECONDS), 990_000, 1_010_000, 0, 10);
+            for (int i = 0; i < 500; i++) {
+                Point mouse = new Point(PA.x + random.nextInt(PA.width + 1), PA.y + random.nextInt(PA.height + 1));
+                Assert.assertSame(fullScan(lists, mouse, 10, bounds), index.closest(lists, mouse, 10, PA, bounds));
+            }
+        }
+    }
+
+    private static Datapoint fullScan(List<List<Datapoint>> lists, Point mousePos, int hoverRadius, Bounds bounds) {
+        Datapoint closest = null;
+        double minDistance = hoverRadius;
+        for (List<Datapoint> datapoints : lists) {
+            for (Datapoint d : datapoints) {
+                double distance = mousePos.distance(d.getHoverPosition(PA, bounds));
+                if (distance < minDistance) {
+                    minDistance = distance;
+                    closest = d;
+                }
+            }
+        }
+        return closest;
+    }
+
+    private static List<Datapoint> series(Random random, int n, Datapoint.Type type) {
+        List<Datapoint> series = new ArrayList<>();
+        int t = 1_700_000_000;
+        for (int i = 0; i < n; i++) {
+            t += Constants.FIVE_MIN_SECONDS * (1 + random.nextInt(3));
+            series.add(new Datapoint(t, 990_000 + random.nextInt(20_000), true, type));
+        }
+        return series;
+    }
+}
@@ -0,0 +1,56 @@
+package com.flippingcopilot.ui.graph;
+
+import com.flippingcopilot.ui.graph.model.Datapoint;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class RangeTableTest {
+
+    @Test
+    public void rangeQueriesMatchScan() {
+        Random random = new Random(25);
+        for (int run = 0; run < 50; run++) {
+            List<Datapoint> datapoints = new ArrayList<>();
+            int n = random.nextInt(300);
+            for (int i = 0; i < n; i++) {
+                datapoints.add(new Datapoint(random.nextInt(10_000), random.nextInt(1_000_000), true, Datapoint.Type.HOUR_AVERAGE));
+            }
+            Collections.shuffle(datapoints, random);
+            RangeTable table = RangeTable.of(datapoints, d -> d.price - 5, d -> d.price + 5, d -> d.price);
+
+            for (int q = 0; q < 200; q++) {
+                long from = random.nextInt(11_000) - 500;
+                long to = from + random.nextInt(5_000);
+                int i = table.from(from);
+                int j = table.to(to);
+
+                long min = Long.MAX_VALUE, max = Long.MIN_VALUE, sum = 0;
+                int count = 0, minTime = Integer.MAX_VALUE, maxTime = Integer.MIN_VALUE;
+                for (Datapoint d : datapoints) {
+                    if (d.time >= from && d.time <= to) {
+                        min = Math.min(min, d.price - 5);
+                        max = Math.max(max, d.price + 5);
+                        sum += d.price;
+                        count++;
+                        minTime = Math.min(minTime, d.time);
+                        maxTime = Math.max(maxTime, d.time);
+                    }
+                }
+                Assert.assertEquals(count, j - i);
+                Assert.assertEquals(sum, table.sum(i, j));
+                if (count > 0) {
+                    Assert.assertEquals(min, table.min(i, j));
+                    Assert.assertEquals(max, table.max(i, j));
+                    Assert.assertEquals(minTime, table.time(i));
+                    Assert.assertEquals(maxTime, table.time(j - 1));
+                }
+            }
+            Assert.assertEquals(n, table.to(Long.MAX_VALUE) - table.from(Long.MIN_VALUE));
+        }
+    }
+}
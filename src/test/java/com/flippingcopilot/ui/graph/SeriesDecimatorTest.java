@@ -0,0 +1,94 @@
+package com.flippingcopilot.ui.graph;
+
+import com.flippingcopilot.ui.graph.model.Bounds;
+import com.flippingcopilot.ui.graph.model.Constants;
+import com.flippingcopilot.ui.graph.model.Datapoint;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+public class SeriesDecimatorTest {
+
+    private static final Rectangle PA = new Rectangle(80, 50, 400, 200);
+
+    @Test
+    public void pointsCoverEveryVisiblePixel() {
+        List<Datapoint> series = series(new Random(22), 20_000);
+        Bounds bounds = new Bounds(series.get(5000).time, series.get(15000).time, 900_000, 1_100_000, 0, 10);
+        List<Datapoint> points = new SeriesDecimator().points(series, PA, bounds);
+
+        Set<String> expected = new HashSet<>();
+        for (Datapoint d : series) {
+            if (d.time >= bounds.xMin && d.time <= bounds.xMax) {
+                expected.add(pixel(d, bounds));
+            }
+        }
+        Set<String> drawn = new HashSet<>();
+        for (Datapoint d : points) {
+            Assert.assertTrue(d.time >= bounds.xMin && d.time <= bounds.xMax);
+            Assert.assertTrue("point drawn twice", drawn.add(pixel(d, bounds)));
+        }
+        Assert.assertEquals(expected, drawn);
+        Assert.assertTrue(points.size() < 10_000);
+    }
+
+    @Test
+    public void lineKeepsColumnExtremesInTimeOrder() {
+        List<Datapoint> series = series(new Random(22), 20_000);
+        Bounds bounds = new Bounds(series.get(5000).time, series.get(15000).time, 900_000, 1_100_000, 0, 10);
+        List<Datapoint> line = new SeriesDecimator().line(series, PA, bounds);
+
+        Assert.assertSame(series.get(4999), line.get(0));
+        Assert.assertSame(series.get(15001), line.get(line.size() - 1));
+        Assert.assertTrue(line.size() <= 4 * PA.width + 2);
+        for (int i = 1; i < line.size(); i++) {
+            Assert.assertTrue(line.get(i - 1).time < line.get(i).time);
+        }
+        for (int i = 5000; i <= 15000; i++) {
+            Datapoint d = series.get(i);
+            int x = bounds.toX(PA, d.time);
+            long min = Long.MAX_VALUE, max = Long.MIN_VALUE;
+            for (Datapoint l : line) {
+                if (bounds.toX(PA, l.time) == x) {
+                    min = Math.min(min, l.price);
+                    max = Math.max(max, l.price);
+                }
+            }
+            Assert.assertTrue(d.price >= min && d.price <= max);
+        }
+    }
+
+    @Test
+    public void cachedUntilBoundsChange() {
+        List<Datapoint> series = series(new Random(22), 1000);
+        Bounds bounds = new Bounds(series.get(0).time, series.get(999).time, 900_000, 1_100_000, 0, 10);
+        SeriesDecimator decimator = new SeriesDecimator();
+        List<Datapoint> line = new ArrayList<>(decimator.line(series, PA, bounds));
+        Assert.assertEquals(line, decimator.line(series, PA, bounds));
+
+        bounds.xMin = series.get(500).time;
+        Assert.assertNotEquals(line, decimator.line(series, PA, bounds));
+    }
+
+    private static String pixel(Datapoint d, Bounds bounds) {
+        return bounds.toX(PA, d.time) + "," + bounds.toY(PA, d.price) + "," + d.type;
+    }
+
+    private static List<Datapoint> series(Random random, int n) {
+        List<Datapoint> series = new ArrayList<>();
+        int t = 1_700_000_000;
+        long price = 1_000_000;
+        for (int i = 0; i < n; i++) {
+            t += Constants.FIVE_MIN_SECONDS;
+            price += random.nextInt(2001) - 1000;
+            series.add(new Datapoint(t, price, true, i < n / 2 ? Datapoint.Type.HOUR_AVERAGE : Datapoint.Type.FIVE_MIN_AVERAGE));
+        }
+        return series;
+    }
+}
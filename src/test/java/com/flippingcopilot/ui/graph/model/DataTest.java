@@ -0,0 +1,155 @@
+package com.flippingcopilot.ui.graph.model;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DataTest {
+
+    @Test
+    public void deltaEncodedSeriesDecodeLikePlainSeries() {
+        Random random = new Random(5);
+        int[] times = new int[4380];
+        long[] prices = new long[times.length];
+        int time = 1_700_000_000;
+        long price = 2_000_000_000L;
+        for (int i = 0; i < times.length; i++) {
+            // mostly regular hourly times with the odd missing hour
+            time += random.nextInt(50) == 0 ? 7200 : 3600;
+            times[i] = time;
+            price += random.nextInt(2001) - 1000;
+            prices[i] = price;
+        }
+
+        ServerFixture plain = new ServerFixture();
+        plain.mapHeader(2);
+        plain.key("l1ht").int32Array(times);
+        plain.key("l1hp64").longArray(prices);
+        ServerFixture delta = new ServerFixture();
+        delta.mapHeader(2);
+        delta.key("l1htd").delta2Int32Array(times);
+        delta.key("l1hpd").deltaLongArray(prices);
+
+        Data expected = Data.fromMsgPack(plain.payload());
+        Data actual = Data.fromMsgPack(delta.payload());
+        assertArrayEquals(expected.low1hTimes, actual.low1hTimes);
+        assertArrayEquals(expected.low1hPrices, actual.low1hPrices);
+        assertTrue(delta.payload().remaining() * 3 < plain.payload().remaining());
+    }
+
+    @Test
+    public void shortDeltaEncodedSeriesDecode() {
+        // payloads of 1, 2, 4, 8 and 16 bytes, which the server sends as fixext
+        assertDeltaRoundTrip(new int[0], new long[0]);
+        assertDeltaRoundTrip(new int[]{60}, new long[]{1});
+        assertDeltaRoundTrip(new int[]{1_700_000_000}, new long[]{100_000});
+        assertDeltaRoundTrip(new int[]{1_700_000_000}, new long[]{1L << 45});
+        assertDeltaRoundTrip(new int[]{1_700_000_000, 1_700_003_600}, new long[]{1L << 60, (1L << 60) + (1L << 40)});
+    }
+
+    private static void assertDeltaRoundTrip(int[] times, long[] prices) {
+        ServerFixture delta = new ServerFixture();
+        delta.mapHeader(2);
+        delta.key("l1htd").delta2Int32Array(times);
+        delta.key("l1hpd").deltaLongArray(prices);
+        Data actual = Data.fromMsgPack(delta.payload());
+        assertArrayEquals(times, actual.low1hTimes);
+        assertArrayEquals(prices, actual.low1hPrices);
+    }
+
+    /**
+     * Stand in for the server's msgpack graph data encoding.
+     */
+    private static class ServerFixture {
+        private final ByteBuffer b = ByteBuffer.allocate(1 << 20);
+
+        ByteBuffer payload() {
+            ByteBuffer p = b.duplicate();
+            p.flip();
+            return p;
+        }
+
+        void mapHeader(int size) {
+            b.put((byte) (0x80 | size));
+        }
+
+        ServerFixture key(String key) {
+            byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+            b.put((byte) (0xA0 | bytes.length)).put(bytes);
+            return this;
+        }
+
+        void int32Array(int[] values) {
+            b.put((byte) 0xC9).putInt(values.length * 4).put((byte) 41);
+            b.order(ByteOrder.LITTLE_ENDIAN);
+            for (int v : values) {
+                b.putInt(v);
+            }
+            b.order(ByteOrder.BIG_ENDIAN);
+        }
+
+        void longArray(long[] values) {
+            b.put((byte) 0xDD).putInt(values.length);
+            for (long v : values) {
+                b.put((byte) 0xD3).putLong(v);
+            }
+        }
+
+        void delta2Int32Array(int[] values) {
+            ByteBuffer p = ByteBuffer.allocate(values.length * 10 + 10);
+            varint(p, values.length);
+            long previousDelta = 0;
+            for (int i = 0; i < values.length; i++) {
+                long delta = i == 0 ? 0 : (long) values[i] - values[i - 1];
+                zigZag(p, i == 0 ? values[0] : i == 1 ? delta : delta - previousDelta);
+                previousDelta = delta;
+            }
+            ext(42, p);
+        }
+
+        void deltaLongArray(long[] values) {
+            ByteBuffer p = ByteBuffer.allocate(values.length * 10 + 10);
+            varint(p, values.length);
+            long previous = 0;
+            for (long v : values) {
+                zigZag(p, v - previous);
+                previous = v;
+            }
+            ext(43, p);
+        }
+
+        private void ext(int type, ByteBuffer p) {
+            p.flip();
+            // like the server, use the shortest format that fits the payload
+            int n = p.remaining();
+            if (Integer.bitCount(n) == 1 && n <= 16) {
+                b.put((byte) (0xD4 + Integer.numberOfTrailingZeros(n)));
+            } else if (n <= 0xFF) {
+                b.put((byte) 0xC7).put((byte) n);
+            } else if (n <= 0xFFFF) {
+                b.put((byte) 0xC8).putShort((short) n);
+            } else {
+                b.put((byte) 0xC9).putInt(n);
+            }
+            b.put((byte) type).put(p);
+        }
+
+        private static void zigZag(ByteBuffer p, long v) {
+            varint(p, (v << 1) ^ (v >> 63));
+        }
+
+        private static void varint(ByteBuffer p, long v) {
+            while ((v & ~0x7FL) != 0) {
+                p.put((byte) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            p.put((byte) v);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.flippingcopilot.ui.graph.model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class GraphDataCacheTest {
+
+    @Test
+    public void mergesNewerPointsOntoCachedVersion() {
+        GraphDataCache cache = new GraphDataCache();
+        assertNull(cache.versions(null));
+
+        Data full = data(7, null, new int[]{100, 200, 300}, new long[]{10, 20, 30});
+        assertTrue(cache.merge(full));
+        assertEquals("2:7", cache.versions(2));
+
+        // the last point is revised and one added
+        Data delta = data(8, 7L, new int[]{300, 400}, new long[]{31, 40});
+        assertTrue(cache.merge(delta));
+        assertArrayEquals(new int[]{100, 200, 300, 400}, delta.low1hTimes);
+        assertArrayEquals(new long[]{10, 20, 31, 40}, delta.low1hPrices);
+        assertNull(delta.graphDataBaseVersion);
+
+        // not modified
+        Data unmodified = data(8, 8L, new int[0], new long[0]);
+        assertTrue(cache.merge(unmodified));
+        assertArrayEquals(delta.low1hPrices, unmodified.low1hPrices);
+
+        assertFalse(cache.merge(data(9, 3L, new int[0], new long[0])));
+        assertNull(cache.versions(2));
+    }
+
+    @Test
+    public void dropsMergedPointsOutsideTheWindow() {
+        GraphDataCache cache = new GraphDataCache();
+        int day = Constants.DAY_SECONDS;
+        assertTrue(cache.merge(data(1, null, new int[]{0, 10 * day, 100 * day}, new long[]{1, 2, 3})));
+
+        // six months on from the second point only it and the new one are still in the 1h window
+        Data delta = data(2, 1L, new int[]{196 * day}, new long[]{4});
+        assertTrue(cache.merge(delta));
+        assertArrayEquals(new int[]{10 * day, 100 * day, 196 * day}, delta.low1hTimes);
+        assertArrayEquals(new long[]{2, 3, 4}, delta.low1hPrices);
+    }
+
+    private static Data data(long version, Long baseVersion, int[] times, long[] prices) {
+        Data d = new Data();
+        d.itemId = 2;
+        d.graphDataVersion = version;
+        d.graphDataBaseVersion = baseVersion;
+        d.low1hTimes = times;
+        d.low1hPrices = prices;
+        return d;
+    }
+}
@@ -0,0 +1,85 @@
+package com.flippingcopilot.ui.graph.model;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class PriceSeriesTest {
+
+    @Test
+    public void assembleMatchesCutAndPrepend() {
+        Random random = new Random(21);
+        for (int run = 0; run < 500; run++) {
+            int now = 1_700_000_000 + random.nextInt(Constants.DAY_SECONDS);
+            int[] hourTimes = times(random, now - 180 * Constants.DAY_SECONDS, Constants.HOUR_SECONDS, random.nextInt(50));
+            int[] fiveMinTimes = times(random, now - 2 * Constants.DAY_SECONDS, Constants.FIVE_MIN_SECONDS, random.nextInt(50));
+            int[] latestTimes = times(random, now - Constants.HOUR_SECONDS * random.nextInt(3), 60, random.nextInt(20));
+            long[] hourPrices = prices(random, hourTimes.length);
+            long[] fiveMinPrices = prices(random, fiveMinTimes.length);
+            long[] latestPrices = prices(random, latestTimes.length);
+
+            List<Datapoint> expected = new ArrayList<>();
+            cutAndPrepend(expected, latestTimes, latestPrices, fiveMinTimes, fiveMinPrices, hourTimes, hourPrices);
+            PriceSeries series = PriceSeries.assemble(latestTimes, latestPrices, fiveMinTimes, fiveMinPrices, hourTimes, hourPrices, true);
+
+            Assert.assertEquals(expected.size(), series.size);
+            for (int i = 0; i < series.size; i++) {
+                Assert.assertEquals(expected.get(i).time, series.times[i]);
+                Assert.assertEquals(expected.get(i).price, series.prices[i]);
+                Assert.assertEquals(expected.get(i).type, series.type(i));
+            }
+        }
+    }
+
+    private static int[] times(Random random, int start, int step, int n) {
+        int[] times = new int[n];
+        int t = start - start % step;
+        for (int i = 0; i < n; i++) {
+            t += step * (1 + random.nextInt(3));
+            times[i] = t;
+        }
+        return times;
+    }
+
+    private static long[] prices(Random random, int n) {
+        long[] prices = new long[n];
+        for (int i = 0; i < n; i++) {
+            prices[i] = 1 + random.nextInt(1_000_000);
+        }
+        return prices;
+    }
+
+    /**
+     * The list based assembly the series replaced.
+     */
+    private static void cutAndPrepend(List<Datapoint> target, int[] latestTimes, long[] latestPrices, int[] fiveMinTimes,
+                                      long[] fiveMinPrices, int[] hourTimes, long[] hourPrices) {
+        for (int i = 0; i < latestTimes.length; i++) {
+            target.add(new Datapoint(latestTimes[i], latestPrices[i], true, Datapoint.Type.INSTA_SELL_BUY));
+        }
+        int fiveMinCut = removeBeforeNextBucket(target, Constants.FIVE_MIN_SECONDS);
+        prepend(target, fiveMinTimes, fiveMinPrices, fiveMinCut, Datapoint.Type.FIVE_MIN_AVERAGE);
+        int hourCut = removeBeforeNextBucket(target, Constants.HOUR_SECONDS);
+        prepend(target, hourTimes, hourPrices, hourCut, Datapoint.Type.HOUR_AVERAGE);
+    }
+
+    private static int removeBeforeNextBucket(List<Datapoint> target, int bucketSeconds) {
+        if (target.isEmpty()) {
+            return Integer.MAX_VALUE;
+        }
+        int cut = bucketSeconds * (target.get(0).time / bucketSeconds) + bucketSeconds;
+        target.removeIf(i -> i.time < cut);
+        return cut;
+    }
+
+    private static void prepend(List<Datapoint> target, int[] times, long[] prices, int cut, Datapoint.Type type) {
+        for (int i = times.length - 1; i >= 0; i--) {
+            if (times[i] < cut) {
+                target.add(0, new Datapoint(times[i], prices[i], true, type));
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.flippingcopilot.util;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class MsgPackUtilTest {
+
+    @Test
+    public void decodesInt32ExtensionAndLongArrays() {
+        ByteBuffer b = ByteBuffer.allocate(64);
+        b.put((byte) 0xC9).putInt(12).put((byte) 41);
+        b.order(ByteOrder.LITTLE_ENDIAN).putInt(1_700_000_000).putInt(-1).putInt(300).order(ByteOrder.BIG_ENDIAN);
+        // fixarray of a fixint, negative fixint, uint 16, uint 32, int 8 and int 64
+        b.put((byte) 0x96).put((byte) 0x05).put((byte) 0xFF);
+        b.put((byte) 0xCD).putShort((short) 65535);
+        b.put((byte) 0xCE).putInt(-1);
+        b.put((byte) 0xD0).put((byte) -100);
+        b.put((byte) 0xD3).putLong(-5_000_000_000L);
+        b.put((byte) 0xC0);
+        b.flip();
+
+        assertArrayEquals(new int[]{1_700_000_000, -1, 300}, MsgPackUtil.decodeInt32Array(b));
+        assertArrayEquals(new long[]{5, -1, 65535, 4294967295L, -100, -5_000_000_000L}, MsgPackUtil.decodeLongArray(b));
+        assertEquals(null, MsgPackUtil.decodeInt32Array(b));
+        assertEquals(0, b.remaining());
+    }
+}